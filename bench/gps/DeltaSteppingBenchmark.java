@@ -0,0 +1,78 @@
+package gps;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This DeltaSteppingBenchmark class measures whole shortest path trees on a random geometric map,
+ * computed by sequential Dijkstra and by DeltaStepping on pools of different sizes and bucket
+ * widths, to show how the parallel search scales with cores. A delta of 0 is DEFAULT_DELTA.
+ *
+ * @author wyattcombs
+ *
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeltaSteppingBenchmark {
+	//=================================================================== Properties
+	@Param({ "200000" })
+	public int vertices;
+	@Param({ "1", "4", "16", "32" })
+	public int threads;
+	@Param({ "0", "1", "8" })
+	public int delta;
+	private CsrGraph csr;
+	private ForkJoinPool pool;
+	private DeltaStepping deltaStepping;
+	private int[] dist;
+	private int next;
+
+	//=================================================================== Methods
+	@Setup
+	public void loadMap() throws IOException {
+		File file = File.createTempFile("geometric" + vertices + "-", ".txt");
+		file.deleteOnExit();
+		MapGenerator.writeGeometric(file.getPath(), vertices, 42);
+		csr = new Graph(file.getPath()).getCsr();
+		pool = new ForkJoinPool(threads);
+		deltaStepping = new DeltaStepping(delta, pool);
+		dist = new int[vertices];
+	}
+
+	@TearDown
+	public void closePool() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public int[] dijkstra() {
+		Dijkstra.shortestPathTree(csr, next++ % vertices, Metric.TIME, false, dist, null);
+		return dist;
+	}
+
+	@Benchmark
+	public int[] deltaStepping() {
+		deltaStepping.shortestPathTree(csr, next++ % vertices, Metric.TIME, false, dist, null);
+		return dist;
+	}
+}
@@ -0,0 +1,75 @@
+package gps;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This DijkstraBenchmark class measures shortest path and k shortest paths queries on grid maps
+ * for every Metric and queue type. Queries cycle through a fixed list of random pairs drawn
+ * with a fixed seed, so every run asks the same questions.
+ *
+ * @author wyattcombs
+ *
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DijkstraBenchmark {
+	//=================================================================== Properties
+	private static final int PAIRS = 256;
+	private static final int K = 5;
+	@Param({ "100", "300" })
+	public int side;
+	@Param({ "TIME", "DISTANCE", "LANE" })
+	public Metric metric;
+	@Param({ "LAZY", "DECREASE_KEY", "BUCKET", "RADIX" })
+	public QueueType queueType;
+	private Graph map;
+	private RouteQuery[] queries;
+	private int next;
+
+	//=================================================================== Methods
+	@Setup
+	public void loadMap() throws IOException {
+		File file = File.createTempFile("grid" + side + "-", ".txt");
+		file.deleteOnExit();
+		MapGenerator.writeGrid(file.getPath(), side, 42);
+		map = new Graph(file.getPath());
+		Random random = new Random(7);
+		queries = new RouteQuery[PAIRS];
+		for(int i = 0; i < PAIRS; i++) {
+			String start = MapGenerator.symbol(random.nextInt(side * side));
+			String end = MapGenerator.symbol(random.nextInt(side * side));
+			queries[i] = new RouteQuery(start, end, metric, false, queueType);
+		}
+	}
+
+	@Benchmark
+	public Path shortestPath() {
+		return map.findShortestPath(queries[next++ & (PAIRS - 1)]);
+	}
+
+	@Benchmark
+	public LinkedList<Path> kShortestPaths() {
+		return map.findPaths(queries[next++ & (PAIRS - 1)], K);
+	}
+}
@@ -0,0 +1,51 @@
+package gps;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This GraphLoadBenchmark class measures building a Graph from a MapInformation file, which
+ * parses the file and builds the CsrGraph. The grid side is a parameter.
+ *
+ * @author wyattcombs
+ *
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphLoadBenchmark {
+	//=================================================================== Properties
+	@Param({ "100", "300", "1000" })
+	public int side;
+	private File map;
+
+	//=================================================================== Methods
+	@Setup
+	public void writeMap() throws IOException {
+		map = File.createTempFile("grid" + side + "-", ".txt");
+		map.deleteOnExit();
+		MapGenerator.writeGrid(map.getPath(), side, 42);
+	}
+
+	@Benchmark
+	public Graph load() throws IOException {
+		return new Graph(map.getPath());
+	}
+}
@@ -0,0 +1,91 @@
+package gps;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * This HeapPriorityQBenchmark class measures adding a batch of entries to a queue and removing
+ * them all again. HeapPriorityQ is run with Integer and with Path entries, whose compareTo is a
+ * call through Comparable, and LazyHeapPriorityQ with primitive priorities shows the cost of that
+ * dispatch. Scores are per entry added and removed.
+ *
+ * @author wyattcombs
+ *
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HeapPriorityQBenchmark {
+	//=================================================================== Properties
+	private static final int BATCH = 4096;
+	@Param({ "1000", "1000000" })
+	public int range;
+	private int[] priorities;
+	private Integer[] boxed;
+	private Path[] paths;
+	private HeapPriorityQ<Integer> integerQ;
+	private HeapPriorityQ<Path> pathQ;
+	private LazyHeapPriorityQ lazyQ;
+
+	//=================================================================== Methods
+	@Setup
+	public void fillEntries() {
+		Random random = new Random(11);
+		priorities = new int[BATCH];
+		boxed = new Integer[BATCH];
+		paths = new Path[BATCH];
+		for(int i = 0; i < BATCH; i++) {
+			priorities[i] = random.nextInt(range);
+			boxed[i] = priorities[i];
+			paths[i] = new Path(null, new int[] { i }, new int[0], priorities[i], Metric.TIME);
+		}
+		integerQ = new HeapPriorityQ<>(BATCH);
+		pathQ = new HeapPriorityQ<>(BATCH);
+		lazyQ = new LazyHeapPriorityQ(BATCH);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void integerEntries(Blackhole sink) {
+		for(Integer entry: boxed)
+			integerQ.add(entry);
+		while(!integerQ.isEmpty())
+			sink.consume(integerQ.remove());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void pathEntries(Blackhole sink) {
+		for(Path entry: paths)
+			pathQ.add(entry);
+		while(!pathQ.isEmpty())
+			sink.consume(pathQ.remove());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void primitiveEntries(Blackhole sink) {
+		for(int i = 0; i < BATCH; i++)
+			lazyQ.add(i, priorities[i]);
+		while(!lazyQ.isEmpty())
+			sink.consume(lazyQ.remove());
+	}
+}
@@ -0,0 +1,135 @@
+package gps;
+
+import java.util.Arrays;
+
+/**
+ * This AltDijkstra class is part of the Graph data structure. It finds the shortest path from one
+ * Vertex to another with A* search, ordering the queue by the cost so far plus a lower bound on the
+ * cost left. The bounds come from Landmarks, so the search heads toward the end Vertex and settles
+ * far fewer vertices than Dijkstra while returning a path of the same cost.
+ *
+ * Only the few landmarks that give the best bound between the start and end are used during a
+ * query. Landmark bounds never decrease by more than an Edge's cost along that Edge, so each
+ * vertex is still settled at most once.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class AltDijkstra {
+	//=================================================================== Properties
+	public static final int ACTIVE_LANDMARKS = 4;
+	private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	//=================================================================== Methods
+	/**
+	 * Returns the shortest path from one Vertex to another. Null is returned if no paths found.
+	 *
+	 * @param landmarks The Landmarks of the CsrGraph being searched
+	 * @param start The id of the start Vertex
+	 * @param end The id of the end Vertex
+	 * @param metric The cost type to minimize
+	 * @return The shortest path as a Path object
+	 */
+	public static Path shortestPath(Landmarks landmarks, int start, int end, Metric metric) {
+		CsrGraph csr = landmarks.getGraph();
+		int[] active = activeLandmarks(landmarks, start, end, metric);
+		int[] fromEnd = new int[active.length];
+		int[] toEnd = new int[active.length];
+		for(int j = 0; j < active.length; j++) {
+			fromEnd[j] = landmarks.getFrom(metric, active[j], end);
+			toEnd[j] = landmarks.getTo(metric, active[j], end);
+		}
+
+		SearchContext ctx = SearchContext.current();
+		ctx.reset(csr.vertexCount());
+		LazyHeapPriorityQ pq = ctx.getLazyQ();
+		int startBound = bound(landmarks, metric, active, fromEnd, toEnd, start);
+		if(startBound < 0)	return null;
+		ctx.setDist(start, 0, -1);
+		pq.add(start, startBound);
+
+		while(!pq.isEmpty()) {
+			int currVert = pq.remove();
+			if(ctx.isSettled(currVert))	continue;
+			ctx.settle(currVert);
+
+			if(currVert == end) {
+				return Dijkstra.toPath(csr, ctx, end, metric);
+			}
+
+			int currCost = ctx.getDist(currVert);
+			for(int e = csr.firstEdge(currVert); e < csr.endEdge(currVert); e++) {
+				int nextVert = csr.getTarget(e);
+				int nextCost = currCost + csr.getCost(metric, e);
+				if(nextCost < ctx.getDist(nextVert)) {
+					int nextBound = bound(landmarks, metric, active, fromEnd, toEnd, nextVert);
+					if(nextBound < 0)	continue;
+					ctx.setDist(nextVert, nextCost, currVert);
+					pq.add(nextVert, nextCost + nextBound);
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Picks the landmarks giving the largest lower bound between the start and end.
+	 *
+	 * @param landmarks The Landmarks
+	 * @param start The id of the start Vertex
+	 * @param end The id of the end Vertex
+	 * @param metric The cost type
+	 * @return the indexes of the landmarks to use
+	 */
+	private static int[] activeLandmarks(Landmarks landmarks, int start, int end, Metric metric) {
+		int k = landmarks.getCount();
+		long[] ranked = new long[k];
+		for(int i = 0; i < k; i++) {
+			int[] single = { i };
+			int[] fromEnd = { landmarks.getFrom(metric, i, end) };
+			int[] toEnd = { landmarks.getTo(metric, i, end) };
+			int value = Math.max(0, bound(landmarks, metric, single, fromEnd, toEnd, start));
+			ranked[i] = (long) value << 32 | (k - 1 - i);
+		}
+		Arrays.sort(ranked);
+
+		int[] ret = new int[Math.min(ACTIVE_LANDMARKS, k)];
+		for(int j = 0; j < ret.length; j++)
+			ret[j] = k - 1 - (int) ranked[k - 1 - j];
+		return ret;
+	}
+
+	/**
+	 * Returns the lower bound on the cost from a vertex to the end Vertex, or -1 if the landmark
+	 * distances prove the end can not be reached from the vertex.
+	 *
+	 * @param landmarks The Landmarks
+	 * @param metric The cost type
+	 * @param active The indexes of the landmarks to use
+	 * @param fromEnd The distance from each active landmark to the end Vertex
+	 * @param toEnd The distance from the end Vertex to each active landmark
+	 * @param vertex The id of the vertex
+	 * @return the lower bound, or -1
+	 */
+	private static int bound(Landmarks landmarks, Metric metric, int[] active, int[] fromEnd, int[] toEnd,
+			int vertex) {
+		int ret = 0;
+		for(int j = 0; j < active.length; j++) {
+			int fromVert = landmarks.getFrom(metric, active[j], vertex);
+			if(fromEnd[j] != UNREACHABLE) {
+				if(fromVert != UNREACHABLE)	ret = Math.max(ret, fromEnd[j] - fromVert);
+			} else if(fromVert != UNREACHABLE) {
+				return -1;
+			}
+
+			int toVert = landmarks.getTo(metric, active[j], vertex);
+			if(toEnd[j] != UNREACHABLE) {
+				if(toVert == UNREACHABLE)	return -1;
+				ret = Math.max(ret, toVert - toEnd[j]);
+			}
+		}
+		return ret;
+	}
+}
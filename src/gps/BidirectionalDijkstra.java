@@ -0,0 +1,128 @@
+package gps;
+
+/**
+ * This BidirectionalDijkstra class is part of the Graph data structure. It finds the shortest path
+ * from one Vertex to another by running Dijkstra forward from the start over outgoing Edges and
+ * backward from the end over incoming Edges, always growing the side whose next vertex is closer.
+ * Whenever an Edge reaches a vertex the other side has already reached, the two distances give a
+ * candidate path. The search stops once the smallest costs left in the two queues add up to at
+ * least the best candidate, because no path through an unsettled vertex can then be cheaper.
+ *
+ * Each side uses its own SearchContext and lazy priority queue, so the class keeps no state and
+ * can run on many threads at once.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class BidirectionalDijkstra {
+	//=================================================================== Methods
+	/**
+	 * Returns the shortest path from one Vertex to another. Null is returned if no paths found.
+	 *
+	 * @param csr The CsrGraph for which this algorithms runs through
+	 * @param start The id of the start Vertex
+	 * @param end The id of the end Vertex
+	 * @param metric The cost type to minimize
+	 * @return The shortest path as a Path object
+	 */
+	public static Path shortestPath(CsrGraph csr, int start, int end, Metric metric) {
+		if(start == end)	return Dijkstra.shortestPath(csr, start, end, metric);
+		csr.buildReverse();
+
+		SearchContext fwd = SearchContext.current();
+		SearchContext bwd = fwd.getBackward();
+		fwd.reset(csr.vertexCount());
+		bwd.reset(csr.vertexCount());
+		LazyHeapPriorityQ fwdQ = fwd.getLazyQ();
+		LazyHeapPriorityQ bwdQ = bwd.getLazyQ();
+		fwd.setDist(start, 0, -1);
+		fwdQ.add(start, 0);
+		bwd.setDist(end, 0, -1);
+		bwdQ.add(end, 0);
+
+		long best = Long.MAX_VALUE;
+		int meet = -1;
+		while(!fwdQ.isEmpty() && !bwdQ.isEmpty()) {
+			int fwdTop = fwdQ.peekPriority();
+			int bwdTop = bwdQ.peekPriority();
+			if((long) fwdTop + bwdTop >= best)	break;
+
+			if(fwdTop <= bwdTop) {
+				int currVert = fwdQ.remove();
+				if(fwd.isSettled(currVert))	continue;
+				fwd.settle(currVert);
+
+				for(int e = csr.firstEdge(currVert); e < csr.endEdge(currVert); e++) {
+					int nextVert = csr.getTarget(e);
+					int nextCost = fwdTop + csr.getCost(metric, e);
+					if(nextCost < fwd.getDist(nextVert)) {
+						fwd.setDist(nextVert, nextCost, currVert);
+						fwdQ.add(nextVert, nextCost);
+						if(bwd.isReached(nextVert) && (long) nextCost + bwd.getDist(nextVert) < best) {
+							best = (long) nextCost + bwd.getDist(nextVert);
+							meet = nextVert;
+						}
+					}
+				}
+			} else {
+				int currVert = bwdQ.remove();
+				if(bwd.isSettled(currVert))	continue;
+				bwd.settle(currVert);
+
+				for(int i = csr.firstInEdge(currVert); i < csr.endInEdge(currVert); i++) {
+					int prevVert = csr.getSource(i);
+					int prevCost = bwdTop + csr.getCost(metric, csr.getInEdge(i));
+					if(prevCost < bwd.getDist(prevVert)) {
+						bwd.setDist(prevVert, prevCost, currVert);
+						bwdQ.add(prevVert, prevCost);
+						if(fwd.isReached(prevVert) && (long) prevCost + fwd.getDist(prevVert) < best) {
+							best = (long) prevCost + fwd.getDist(prevVert);
+							meet = prevVert;
+						}
+					}
+				}
+			}
+		}
+
+		return meet < 0 ? null: toPath(csr, fwd, bwd, meet, (int) best, metric);
+	}
+
+	/**
+	 * Builds the Path through the meeting vertex by following the forward parents back to the
+	 * start and the backward parents on to the end.
+	 *
+	 * @param csr The CsrGraph that was searched
+	 * @param fwd The SearchContext of the forward search
+	 * @param bwd The SearchContext of the backward search
+	 * @param meet The id of the vertex where the searches met
+	 * @param cost The cost of the path
+	 * @param metric The cost type that was minimized
+	 * @return The Path from the start Vertex to the end Vertex
+	 */
+	private static Path toPath(CsrGraph csr, SearchContext fwd, SearchContext bwd, int meet, int cost,
+			Metric metric) {
+		int before = 0;
+		for(int v = meet; v >= 0; v = fwd.getParent(v))
+			before++;
+		int length = before;
+		for(int v = bwd.getParent(meet); v >= 0; v = bwd.getParent(v))
+			length++;
+
+		int[] vertices = new int[length];
+		int[] legCosts = new int[length - 1];
+		int i = before;
+		for(int v = meet; v >= 0; v = fwd.getParent(v)) {
+			vertices[--i] = v;
+			if(i > 0)
+				legCosts[i - 1] = fwd.getDist(v) - fwd.getDist(fwd.getParent(v));
+		}
+		i = before - 1;
+		for(int v = meet; bwd.getParent(v) >= 0; v = bwd.getParent(v)) {
+			legCosts[i] = bwd.getDist(v) - bwd.getDist(bwd.getParent(v));
+			vertices[++i] = bwd.getParent(v);
+		}
+
+		return new Path(csr, vertices, legCosts, cost, metric);
+	}
+}
@@ -0,0 +1,325 @@
+package gps;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiPredicate;
+
+/**
+ * This BoundedCache class is a thread-safe cache that holds at most a fixed number of entries,
+ * evicted with the W-TinyLFU policy. New entries go into a small window kept in least recently
+ * used order. An entry pushed out of the window only moves into the main area if a FrequencySketch
+ * says its key has been asked for more often than the main area's least recently used entry,
+ * which would be evicted in its place. One-off lookups therefore never push out popular entries,
+ * while a key that suddenly becomes popular still gets in.
+ *
+ * Lookups take no lock. Values are read from a ConcurrentHashMap and the key is dropped into a
+ * small read buffer picked by the calling thread. The buffers are replayed into the recency order
+ * and the FrequencySketch under the lock, by whichever thread fills a buffer and finds the lock
+ * free, and before every change. A buffer slot that is overwritten before it is replayed loses
+ * that read; the policy only needs the reads to be roughly right.
+ *
+ * Hits, misses and evictions are counted for monitoring.
+ *
+ * @author wyattcombs
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+
+public class BoundedCache<K, V> {
+	//=================================================================== Properties
+	private static final int STRIPES = 16;
+	private static final int BUFFER_SIZE = 32;
+	// Read counts are spaced a cache line apart so stripes do not share one
+	private static final int COUNT_SPACING = 8;
+	private final int capacity;
+	private final int windowCapacity;
+	private final ConcurrentHashMap<K, V> data;
+	private final LinkedHashMap<K, V> window;
+	private final LinkedHashMap<K, V> main;
+	private final FrequencySketch sketch;
+	private final AtomicReferenceArray<K> reads;
+	private final AtomicLongArray readCounts;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	//=================================================================== Constructors
+	/**
+	 * Creates an empty BoundedCache whose FrequencySketch is sized for its capacity.
+	 *
+	 * @param capacity The most entries held
+	 */
+	public BoundedCache(int capacity) {
+		this(capacity, capacity);
+	}
+
+	//-- Workhorse Constructor
+	/**
+	 * Creates an empty BoundedCache. One percent of the capacity, and at least one entry, is the
+	 * window. The FrequencySketch can be sized for more keys than are kept, when far more keys are
+	 * looked up than can ever be held.
+	 *
+	 * @param capacity The most entries held
+	 * @param sketchCapacity The number of keys the FrequencySketch is sized for
+	 */
+	public BoundedCache(int capacity, int sketchCapacity) {
+		if(capacity < 1)	throw new IllegalArgumentException("capacity must be at least 1");
+		this.capacity = capacity;
+		windowCapacity = Math.max(1, capacity / 100);
+		data = new ConcurrentHashMap<>();
+		window = new LinkedHashMap<>(16, 0.75f, true);
+		main = new LinkedHashMap<>(16, 0.75f, true);
+		sketch = new FrequencySketch(Math.max(capacity, sketchCapacity));
+		reads = new AtomicReferenceArray<>(STRIPES * BUFFER_SIZE);
+		readCounts = new AtomicLongArray(STRIPES * COUNT_SPACING);
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Returns the value of a key, or null if it is not cached.
+	 *
+	 * @param key The key
+	 * @return the cached value
+	 */
+	public V get(K key) {
+		V ret = data.get(key);
+		if(ret == null)
+			misses.increment();
+		else
+			hits.increment();
+		recordRead(key);
+		return ret;
+	}
+
+	/**
+	 * Returns the estimated number of recent lookups of a key, after replaying the read buffers if
+	 * no other thread holds the lock.
+	 *
+	 * @param key The key
+	 * @return the estimate, at most 15
+	 */
+	public int frequency(K key) {
+		tryDrainReads();
+		return sketch.frequency(key.hashCode());
+	}
+
+	/**
+	 * Adds a lookup to the read buffer of the calling thread's stripe, replaying the buffers if it
+	 * is now full.
+	 *
+	 * @param key The key looked up
+	 */
+	private void recordRead(K key) {
+		int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+		int slot = (int) readCounts.getAndIncrement(stripe * COUNT_SPACING) & (BUFFER_SIZE - 1);
+		reads.lazySet(stripe * BUFFER_SIZE + slot, key);
+		if(slot == BUFFER_SIZE - 1)
+			tryDrainReads();
+	}
+
+	/** Replays the read buffers unless another thread holds the lock. */
+	private void tryDrainReads() {
+		if(!lock.tryLock())	return;
+		try {
+			drainReads();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Counts every buffered read in the FrequencySketch and moves its key to the most recently used
+	 * end of its area. The lock must be held.
+	 */
+	private void drainReads() {
+		for(int i = 0; i < reads.length(); i++) {
+			K key = reads.getAndSet(i, null);
+			if(key == null)	continue;
+			sketch.increment(key.hashCode());
+			if(window.get(key) == null)
+				main.get(key);
+		}
+	}
+
+	/**
+	 * Caches a value, possibly evicting another entry.
+	 *
+	 * @param key The key
+	 * @param value The value; must not be null
+	 */
+	public void put(K key, V value) {
+		if(value == null)	throw new NullPointerException();
+		lock.lock();
+		try {
+			drainReads();
+			data.put(key, value);
+			if(main.containsKey(key)) {
+				main.put(key, value);
+				return;
+			}
+			window.put(key, value);
+			if(window.size() <= windowCapacity)	return;
+
+			Map.Entry<K, V> candidate = removeEldest(window);
+			if(main.size() < capacity - windowCapacity) {
+				main.put(candidate.getKey(), candidate.getValue());
+				return;
+			}
+			evictions.increment();
+			K victim = main.isEmpty() ? null: main.keySet().iterator().next();
+			if(victim != null
+					&& sketch.frequency(candidate.getKey().hashCode()) > sketch.frequency(victim.hashCode())) {
+				main.remove(victim);
+				data.remove(victim);
+				main.put(candidate.getKey(), candidate.getValue());
+			}
+			else {
+				data.remove(candidate.getKey());
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns true if a value for a key would be kept by put without pushing out a more popular
+	 * entry, so a caller can skip computing a costly value that would only be evicted again.
+	 *
+	 * @param key The key
+	 * @return whether the cache has room or the key is more popular than the next main victim
+	 */
+	public boolean admits(K key) {
+		lock.lock();
+		try {
+			drainReads();
+			if(size() < capacity || main.isEmpty())	return true;
+			K victim = main.keySet().iterator().next();
+			return sketch.frequency(key.hashCode()) > sketch.frequency(victim.hashCode());
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes and returns the least recently used entry of an area.
+	 *
+	 * @param area The window or the main area
+	 * @return the removed entry
+	 */
+	private static <K, V> Map.Entry<K, V> removeEldest(LinkedHashMap<K, V> area) {
+		Iterator<Map.Entry<K, V>> it = area.entrySet().iterator();
+		Map.Entry<K, V> eldest = it.next();
+		Map.Entry<K, V> ret = Map.entry(eldest.getKey(), eldest.getValue());
+		it.remove();
+		return ret;
+	}
+
+	/**
+	 * Removes the entries a condition holds for. Neither the order of the other entries nor the
+	 * counters change.
+	 *
+	 * @param filter The condition on key and value
+	 * @return the number of entries removed
+	 */
+	public int removeIf(BiPredicate<? super K, ? super V> filter) {
+		lock.lock();
+		try {
+			int ret = 0;
+			for(LinkedHashMap<K, V> area: List.of(window, main)) {
+				Iterator<Map.Entry<K, V>> it = area.entrySet().iterator();
+				while(it.hasNext()) {
+					Map.Entry<K, V> entry = it.next();
+					if(filter.test(entry.getKey(), entry.getValue())) {
+						it.remove();
+						data.remove(entry.getKey());
+						ret++;
+					}
+				}
+			}
+			return ret;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns a copy of every entry, without counting them as used.
+	 *
+	 * @return the entries
+	 */
+	public Map<K, V> entries() {
+		return new HashMap<>(data);
+	}
+
+	/**
+	 * Replaces the values of cached keys, keeping their place in the eviction order. Keys that are
+	 * no longer cached are ignored.
+	 *
+	 * @param values The new value of each key
+	 */
+	public void replaceAll(Map<K, V> values) {
+		lock.lock();
+		try {
+			for(LinkedHashMap<K, V> area: List.of(window, main)) {
+				for(Map.Entry<K, V> entry: area.entrySet()) {
+					V value = values.get(entry.getKey());
+					if(value != null) {
+						entry.setValue(value);
+						data.put(entry.getKey(), value);
+					}
+				}
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/** Removes every entry. The counters are kept. */
+	public void clear() {
+		lock.lock();
+		try {
+			data.clear();
+			window.clear();
+			main.clear();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of entries.
+	 *
+	 * @return the size of the BoundedCache
+	 */
+	public int size() {
+		return data.size();
+	}
+
+	@Override
+	public String toString() {
+		return size() + "/" + capacity + " entries, " + getHits() + " hits, " + getMisses() + " misses, "
+				+ getEvictions() + " evictions";
+	}
+
+	//=================================================================== Getters / Setters
+	public int getCapacity() 						{	return capacity;			}
+	public long getHits() 							{	return hits.sum();			}
+	public long getMisses() 						{	return misses.sum();		}
+	public long getEvictions() 						{	return evictions.sum();		}
+}
@@ -0,0 +1,155 @@
+package gps;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * This BucketPriorityQ class is part of the Graph data structure. It is Dial's bucket queue of
+ * vertex ids with int priorities, used by the Dijkstra class when every edge cost is a small int.
+ * There is one bucket per priority in a circular array, so adding is O(1) and removing only walks
+ * forward over empty buckets to the next priority. Like the LazyHeapPriorityQ the same id may be
+ * added many times and the stale entries are skipped by Dijkstra.
+ *
+ * The priorities must be monotone: nothing smaller than the last priority removed may be added,
+ * and nothing more than maxGap above it. Until the first removal the first priority added counts
+ * as the last one removed. Dijkstra keeps to this when maxGap is the largest edge
+ * cost. The entries of each bucket are a linked list threaded through int arrays, so adding and
+ * removing never creates objects once the arrays have grown to the largest query.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class BucketPriorityQ implements LazyPriorityQueueInterface {
+	//=================================================================== Properties
+	private static final int NONE = -1;
+	private static final int DEFAULT_CAPACITY = 16;
+	private final int maxGap;
+	private final int mask;
+	private final int[] heads;
+	private int[] ids;
+	private int[] next;
+	private int free;
+	private int used;
+	private int current;
+	private int size;
+
+	//=================================================================== Constructors
+	//-- Workhorse Constructor
+	/**
+	 * Creates an empty BucketPriorityQ for priorities at most maxGap apart.
+	 *
+	 * @param maxGap The largest difference between the smallest and any other priority
+	 */
+	public BucketPriorityQ(int maxGap) {
+		if(maxGap < 0 || maxGap >= 1 << 30)	throw new IllegalArgumentException("gap out of range: " + maxGap);
+		int buckets = Math.max(Integer.highestOneBit(maxGap) << 1, 1);
+		this.maxGap = maxGap;
+		this.mask = buckets - 1;
+		heads = new int[buckets];
+		Arrays.fill(heads, NONE);
+		ids = new int[DEFAULT_CAPACITY];
+		next = new int[DEFAULT_CAPACITY];
+		free = NONE;
+		current = NONE;
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Returns true if there are no entries.
+	 *
+	 * @return whether the BucketPriorityQ is empty
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/** Removes all entries but keeps the capacity for the next query. */
+	public void clear() {
+		if(used > 0)
+			Arrays.fill(heads, NONE);
+		free = NONE;
+		used = 0;
+		current = NONE;
+		size = 0;
+	}
+
+	/**
+	 * Returns the number of entries.
+	 *
+	 * @return the size of the BucketPriorityQ
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Adds an id with a priority.
+	 *
+	 * @param id The vertex id
+	 * @param priority The priority of the entry
+	 * @throws IllegalArgumentException if the priority is below the smallest one or too far above it
+	 */
+	public void add(int id, int priority) {
+		if(current == NONE)
+			current = priority;
+		else if(priority < current || priority - current > maxGap)
+			throw new IllegalArgumentException("priority " + priority + " is outside " + current + " + " + maxGap);
+
+		int node = free;
+		if(node != NONE) {
+			free = next[node];
+		} else {
+			if(used == ids.length) {
+				ids = Arrays.copyOf(ids, 2 * used);
+				next = Arrays.copyOf(next, 2 * used);
+			}
+			node = used++;
+		}
+		int bucket = priority & mask;
+		ids[node] = id;
+		next[node] = heads[bucket];
+		heads[bucket] = node;
+		size++;
+	}
+
+	/**
+	 * Moves current forward to the first bucket with an entry.
+	 *
+	 * @return the first node of that bucket
+	 */
+	private int first() {
+		if(isEmpty())	throw new NoSuchElementException();
+		int node;
+		while((node = heads[current & mask]) == NONE)
+			current++;
+		return node;
+	}
+
+	/**
+	 * Returns the priority of the first entry.
+	 *
+	 * @return the smallest priority
+	 */
+	public int peekPriority() {
+		first();
+		return current;
+	}
+
+	/**
+	 * Removes the first entry and returns its id.
+	 *
+	 * @return the id with the smallest priority
+	 */
+	public int remove() {
+		int node = first();
+		heads[current & mask] = next[node];
+		next[node] = free;
+		free = node;
+		size--;
+		return ids[node];
+	}
+
+	//=================================================================== Getters / Setters
+	public int getMaxGap() 		{	return maxGap;	}
+}
@@ -0,0 +1,328 @@
+package gps;
+
+import java.util.Arrays;
+
+/**
+ * This ContractionBuilder class does the preprocessing of a ContractionHierarchy for one Metric.
+ * Vertices are contracted one at a time, cheapest first. Contracting a vertex v removes it from
+ * the remaining graph; for every pair of neighbors u -> v -> w whose only shortest connection runs
+ * through v, a shortcut u -> w remembering v is added. A bounded witness search from u that avoids
+ * v decides whether a shortcut is needed.
+ *
+ * The cost of contracting a vertex is its edge difference (shortcuts added minus edges removed)
+ * plus the number of its neighbors already contracted, which spreads contraction evenly over the
+ * map. Costs are updated lazily: a vertex whose cost has risen since it was queued is put back
+ * instead of contracted.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class ContractionBuilder {
+	//=================================================================== Properties
+	private static final int WITNESS_SETTLE_LIMIT = 500;
+	private static final int SIMULATE_SETTLE_LIMIT = 25;
+	private final CsrGraph csr;
+	private final Metric metric;
+	private final int n;
+	private final int[][] outTo;
+	private final int[][] outWeight;
+	private final int[][] outMid;
+	private final int[] outCount;
+	private final int[][] inFrom;
+	private final int[] inCount;
+	private final boolean[] contracted;
+	private final int[] contractedNeighbors;
+	private final int[] rank;
+	private final SearchContext witness;
+	private final int[] targetStamp;
+	private final int[] touched;
+	private int stamp;
+	private int touchStamp;
+
+	//=================================================================== Constructors
+	//-- Workhorse Constructor
+	/**
+	 * Creates a ContractionBuilder holding a modifiable copy of the CsrGraph's edges. Parallel
+	 * edges keep only the cheapest and self loops are dropped.
+	 *
+	 * @param csr The CsrGraph to contract
+	 * @param metric The cost type of the hierarchy
+	 */
+	public ContractionBuilder(CsrGraph csr, Metric metric) {
+		this.csr = csr;
+		this.metric = metric;
+		this.n = csr.vertexCount();
+		outTo = new int[n][];
+		outWeight = new int[n][];
+		outMid = new int[n][];
+		outCount = new int[n];
+		inFrom = new int[n][];
+		inCount = new int[n];
+		contracted = new boolean[n];
+		contractedNeighbors = new int[n];
+		rank = new int[n];
+		witness = new SearchContext(n);
+		targetStamp = new int[n];
+		touched = new int[n];
+
+		for(int v = 0; v < n; v++) {
+			int degree = Math.max(2, csr.endEdge(v) - csr.firstEdge(v));
+			outTo[v] = new int[degree];
+			outWeight[v] = new int[degree];
+			outMid[v] = new int[degree];
+			inFrom[v] = new int[2];
+		}
+		for(int v = 0; v < n; v++) {
+			for(int e = csr.firstEdge(v); e < csr.endEdge(v); e++) {
+				if(csr.getTarget(e) != v)
+					addEdge(v, csr.getTarget(e), csr.getCost(metric, e), -1);
+			}
+		}
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Contracts every vertex and returns the finished ContractionHierarchy.
+	 *
+	 * @return the ContractionHierarchy
+	 */
+	public ContractionHierarchy build() {
+		IndexedHeapPriorityQ queue = new IndexedHeapPriorityQ(n);
+		for(int v = 0; v < n; v++)
+			queue.add(v, priority(v));
+
+		int next = 0;
+		while(!queue.isEmpty()) {
+			int v = queue.remove();
+			int cost = priority(v);
+			if(!queue.isEmpty() && cost > queue.priorityOf(queue.peek())) {
+				queue.add(v, cost);
+				continue;
+			}
+
+			contract(v, false);
+			contracted[v] = true;
+			rank[v] = next++;
+			touchStamp++;
+			for(int i = 0; i < outCount[v]; i++)
+				touch(queue, outTo[v][i]);
+			for(int i = 0; i < inCount[v]; i++)
+				touch(queue, inFrom[v][i]);
+		}
+		return export();
+	}
+
+	/**
+	 * Updates a neighbor of a vertex that was just contracted. A neighbor joined by edges in both
+	 * directions is only updated once.
+	 *
+	 * @param queue The queue of uncontracted vertices
+	 * @param neighbor The id of the neighbor
+	 */
+	private void touch(IndexedHeapPriorityQ queue, int neighbor) {
+		if(contracted[neighbor] || touched[neighbor] == touchStamp)	return;
+		touched[neighbor] = touchStamp;
+		contractedNeighbors[neighbor]++;
+		int cost = priority(neighbor);
+		if(cost < queue.priorityOf(neighbor))
+			queue.decreaseKey(neighbor, cost);
+	}
+
+	/**
+	 * Returns the cost of contracting a vertex now: its edge difference plus its contracted
+	 * neighbors.
+	 *
+	 * @param v The id of the vertex
+	 * @return the priority of the vertex
+	 */
+	private int priority(int v) {
+		int removed = 0;
+		for(int i = 0; i < outCount[v]; i++) {
+			if(!contracted[outTo[v][i]])	removed++;
+		}
+		for(int i = 0; i < inCount[v]; i++) {
+			if(!contracted[inFrom[v][i]])	removed++;
+		}
+		return contract(v, true) - removed + contractedNeighbors[v];
+	}
+
+	/**
+	 * Finds the shortcuts needed to contract a vertex and adds them unless simulating.
+	 *
+	 * @param v The id of the vertex
+	 * @param simulate True to only count the shortcuts
+	 * @return the number of shortcuts
+	 */
+	private int contract(int v, boolean simulate) {
+		int shortcuts = 0;
+		for(int i = 0; i < inCount[v]; i++) {
+			int u = inFrom[v][i];
+			if(contracted[u])	continue;
+			int toV = weight(u, v);
+
+			int limit = -1;
+			int targets = 0;
+			stamp++;
+			for(int j = 0; j < outCount[v]; j++) {
+				int w = outTo[v][j];
+				if(!contracted[w] && w != u) {
+					limit = Math.max(limit, toV + outWeight[v][j]);
+					targetStamp[w] = stamp;
+					targets++;
+				}
+			}
+			if(limit < 0)	continue;
+
+			witnessSearch(u, v, limit, targets, simulate ? SIMULATE_SETTLE_LIMIT: WITNESS_SETTLE_LIMIT);
+			for(int j = 0; j < outCount[v]; j++) {
+				int w = outTo[v][j];
+				if(contracted[w] || w == u)	continue;
+				int via = toV + outWeight[v][j];
+				if(witness.getDist(w) > via) {
+					shortcuts++;
+					if(!simulate)	addEdge(u, w, via, v);
+				}
+			}
+		}
+		return shortcuts;
+	}
+
+	/**
+	 * Runs a Dijkstra search from a vertex over the uncontracted graph without passing through the
+	 * vertex being contracted. It stops once every target is settled, past the limit cost, or
+	 * after a number of vertices, so a missed witness only costs an extra shortcut. Simulated
+	 * contractions search less, since they only estimate the cost of a vertex.
+	 *
+	 * @param source The id of the start vertex
+	 * @param avoid The id of the vertex being contracted
+	 * @param limit The largest cost worth searching to
+	 * @param targets The number of vertices marked with the current stamp
+	 * @param settleLimit The most vertices to settle
+	 */
+	private void witnessSearch(int source, int avoid, int limit, int targets, int settleLimit) {
+		witness.reset(n);
+		LazyHeapPriorityQ pq = witness.getLazyQ();
+		witness.setDist(source, 0, -1);
+		pq.add(source, 0);
+
+		int settled = 0;
+		while(!pq.isEmpty()) {
+			int currCost = pq.peekPriority();
+			int currVert = pq.remove();
+			if(witness.isSettled(currVert))	continue;
+			if(currCost > limit || ++settled > settleLimit)	break;
+			witness.settle(currVert);
+			if(targetStamp[currVert] == stamp && --targets == 0)	break;
+
+			for(int i = 0; i < outCount[currVert]; i++) {
+				int nextVert = outTo[currVert][i];
+				if(nextVert == avoid || contracted[nextVert])	continue;
+				int nextCost = currCost + outWeight[currVert][i];
+				if(nextCost < witness.getDist(nextVert)) {
+					witness.setDist(nextVert, nextCost, currVert);
+					pq.add(nextVert, nextCost);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds an edge, or lowers the weight of the existing edge between the same vertices.
+	 *
+	 * @param u The id of the source
+	 * @param w The id of the target
+	 * @param weight The cost of the edge
+	 * @param mid The vertex a shortcut skips, or -1 for an edge of the map
+	 */
+	private void addEdge(int u, int w, int weight, int mid) {
+		for(int i = 0; i < outCount[u]; i++) {
+			if(outTo[u][i] == w) {
+				if(weight < outWeight[u][i]) {
+					outWeight[u][i] = weight;
+					outMid[u][i] = mid;
+				}
+				return;
+			}
+		}
+
+		if(outCount[u] == outTo[u].length) {
+			int size = 2 * outCount[u];
+			outTo[u] = Arrays.copyOf(outTo[u], size);
+			outWeight[u] = Arrays.copyOf(outWeight[u], size);
+			outMid[u] = Arrays.copyOf(outMid[u], size);
+		}
+		outTo[u][outCount[u]] = w;
+		outWeight[u][outCount[u]] = weight;
+		outMid[u][outCount[u]++] = mid;
+
+		if(inCount[w] == inFrom[w].length)
+			inFrom[w] = Arrays.copyOf(inFrom[w], 2 * inCount[w]);
+		inFrom[w][inCount[w]++] = u;
+	}
+
+	/**
+	 * Returns the weight of the edge between two vertices.
+	 *
+	 * @param u The id of the source
+	 * @param w The id of the target
+	 * @return the weight of the edge
+	 */
+	private int weight(int u, int w) {
+		for(int i = 0; i < outCount[u]; i++) {
+			if(outTo[u][i] == w)
+				return outWeight[u][i];
+		}
+		throw new IllegalStateException("no edge " + u + " -> " + w);
+	}
+
+	/**
+	 * Splits the edges into the upward edges, stored at their source, and the downward edges,
+	 * stored at their target, and builds the ContractionHierarchy.
+	 *
+	 * @return the ContractionHierarchy
+	 */
+	private ContractionHierarchy export() {
+		int[] upOffsets = new int[n + 1];
+		int[] downOffsets = new int[n + 1];
+		for(int u = 0; u < n; u++) {
+			for(int i = 0; i < outCount[u]; i++) {
+				if(rank[outTo[u][i]] > rank[u])
+					upOffsets[u + 1]++;
+				else
+					downOffsets[outTo[u][i] + 1]++;
+			}
+		}
+		for(int v = 0; v < n; v++) {
+			upOffsets[v + 1] += upOffsets[v];
+			downOffsets[v + 1] += downOffsets[v];
+		}
+
+		int[] upTargets = new int[upOffsets[n]];
+		int[] upWeights = new int[upOffsets[n]];
+		int[] upMids = new int[upOffsets[n]];
+		int[] downSources = new int[downOffsets[n]];
+		int[] downWeights = new int[downOffsets[n]];
+		int[] downMids = new int[downOffsets[n]];
+		int[] nextDown = Arrays.copyOf(downOffsets, n);
+		for(int u = 0; u < n; u++) {
+			int nextUp = upOffsets[u];
+			for(int i = 0; i < outCount[u]; i++) {
+				int w = outTo[u][i];
+				if(rank[w] > rank[u]) {
+					upTargets[nextUp] = w;
+					upWeights[nextUp] = outWeight[u][i];
+					upMids[nextUp++] = outMid[u][i];
+				} else {
+					int slot = nextDown[w]++;
+					downSources[slot] = u;
+					downWeights[slot] = outWeight[u][i];
+					downMids[slot] = outMid[u][i];
+				}
+			}
+		}
+
+		return new ContractionHierarchy(csr, metric, GraphSnapshot.fingerprint(csr), rank, upOffsets, upTargets,
+				upWeights, upMids, downOffsets, downSources, downWeights, downMids);
+	}
+}
@@ -0,0 +1,257 @@
+package gps;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * This ContractionHierarchy class holds the result of contracting a CsrGraph for one Metric. Every
+ * vertex has a rank, the order it was contracted in, and the edges of the map plus the shortcuts
+ * added by the ContractionBuilder are split in two CSR structures:
+ * <ul>
+ * <li>upward edges u -> w with rank(w) &gt; rank(u), stored at u</li>
+ * <li>downward edges u -> w with rank(u) &gt; rank(w), stored at w so they can be followed backward</li>
+ * </ul>
+ * Every shortest path has a shortest path of the same cost that only goes up in rank and then only
+ * down, so HierarchyDijkstra only searches upward edges from the start and backward along downward
+ * edges from the end. Each shortcut remembers the vertex it skips, which is how a path is unpacked
+ * into the Edges of the map.
+ *
+ * A hierarchy is saved to a file next to the map and memory-mapped when loaded, like Landmarks.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class ContractionHierarchy {
+	//=================================================================== Properties
+	public static final int MAGIC = 0x47505343;
+	public static final int VERSION = 1;
+	public static final String EXTENSION = ".ch";
+	private static final int HEADER_BYTES = 32;
+	private final CsrGraph graph;
+	private final Metric metric;
+	private final long fingerprint;
+	private final IntBuffer rank;
+	private final IntBuffer upOffsets;
+	private final IntBuffer upTargets;
+	private final IntBuffer upWeights;
+	private final IntBuffer upMids;
+	private final IntBuffer downOffsets;
+	private final IntBuffer downSources;
+	private final IntBuffer downWeights;
+	private final IntBuffer downMids;
+
+	//=================================================================== Constructors
+	/**
+	 * Creates a ContractionHierarchy from the arrays of a ContractionBuilder.
+	 *
+	 * @param graph The CsrGraph that was contracted
+	 * @param metric The cost type of the hierarchy
+	 * @param fingerprint The GraphSnapshot fingerprint of the graph
+	 * @param rank The contraction order of each vertex
+	 * @param upOffsets The first upward edge of each vertex, with the count at the end
+	 * @param upTargets The higher ranked target of each upward edge
+	 * @param upWeights The cost of each upward edge
+	 * @param upMids The vertex each upward shortcut skips, or -1 for an edge of the map
+	 * @param downOffsets The first downward edge into each vertex, with the count at the end
+	 * @param downSources The higher ranked source of each downward edge
+	 * @param downWeights The cost of each downward edge
+	 * @param downMids The vertex each downward shortcut skips, or -1 for an edge of the map
+	 */
+	public ContractionHierarchy(CsrGraph graph, Metric metric, long fingerprint, int[] rank, int[] upOffsets,
+			int[] upTargets, int[] upWeights, int[] upMids, int[] downOffsets, int[] downSources, int[] downWeights,
+			int[] downMids) {
+		this(graph, metric, fingerprint, IntBuffer.wrap(rank), IntBuffer.wrap(upOffsets), IntBuffer.wrap(upTargets),
+				IntBuffer.wrap(upWeights), IntBuffer.wrap(upMids), IntBuffer.wrap(downOffsets),
+				IntBuffer.wrap(downSources), IntBuffer.wrap(downWeights), IntBuffer.wrap(downMids));
+	}
+
+	//-- Workhorse Constructor
+	/**
+	 * Creates a ContractionHierarchy from its buffers.
+	 *
+	 * @param graph The CsrGraph that was contracted
+	 * @param metric The cost type of the hierarchy
+	 * @param fingerprint The GraphSnapshot fingerprint of the graph
+	 * @param rank The contraction order of each vertex
+	 * @param upOffsets The first upward edge of each vertex, with the count at the end
+	 * @param upTargets The higher ranked target of each upward edge
+	 * @param upWeights The cost of each upward edge
+	 * @param upMids The vertex each upward shortcut skips, or -1 for an edge of the map
+	 * @param downOffsets The first downward edge into each vertex, with the count at the end
+	 * @param downSources The higher ranked source of each downward edge
+	 * @param downWeights The cost of each downward edge
+	 * @param downMids The vertex each downward shortcut skips, or -1 for an edge of the map
+	 */
+	private ContractionHierarchy(CsrGraph graph, Metric metric, long fingerprint, IntBuffer rank,
+			IntBuffer upOffsets, IntBuffer upTargets, IntBuffer upWeights, IntBuffer upMids, IntBuffer downOffsets,
+			IntBuffer downSources, IntBuffer downWeights, IntBuffer downMids) {
+		this.graph = graph;
+		this.metric = metric;
+		this.fingerprint = fingerprint;
+		this.rank = rank;
+		this.upOffsets = upOffsets;
+		this.upTargets = upTargets;
+		this.upWeights = upWeights;
+		this.upMids = upMids;
+		this.downOffsets = downOffsets;
+		this.downSources = downSources;
+		this.downWeights = downWeights;
+		this.downMids = downMids;
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Contracts a CsrGraph for one Metric.
+	 *
+	 * @param csr The CsrGraph to contract
+	 * @param metric The cost type of the hierarchy
+	 * @return the ContractionHierarchy
+	 */
+	public static ContractionHierarchy build(CsrGraph csr, Metric metric) {
+		return new ContractionBuilder(csr, metric).build();
+	}
+
+	/**
+	 * Loads a ContractionHierarchy from a file if it was built for this CsrGraph and Metric,
+	 * otherwise builds it and saves it to the file.
+	 *
+	 * @param csr The CsrGraph to contract
+	 * @param filename The name of the hierarchy file
+	 * @param metric The cost type of the hierarchy
+	 * @return the ContractionHierarchy
+	 * @throws IOException if a new hierarchy can not be saved
+	 */
+	public static ContractionHierarchy loadOrBuild(CsrGraph csr, String filename, Metric metric)
+			throws IOException {
+		if(new File(filename).isFile()) {
+			try {
+				ContractionHierarchy ret = load(csr, filename);
+				if(ret.metric == metric)
+					return ret;
+			} catch (IOException e) {
+				// stale or damaged file; it is rebuilt below
+			}
+		}
+		ContractionHierarchy ret = build(csr, metric);
+		ret.write(filename);
+		return ret;
+	}
+
+	/**
+	 * Memory-maps a ContractionHierarchy saved by write().
+	 *
+	 * @param csr The CsrGraph the hierarchy must belong to
+	 * @param filename The name of the hierarchy file
+	 * @return the ContractionHierarchy
+	 * @throws IOException if the file can not be read or was built for a different map
+	 */
+	public static ContractionHierarchy load(CsrGraph csr, String filename) throws IOException {
+		ByteBuffer map = GraphSnapshot.map(filename, MAGIC, VERSION, HEADER_BYTES);
+		int n = map.getInt(8);
+		int metric = map.getInt(12);
+		int up = map.getInt(16);
+		int down = map.getInt(20);
+		long fingerprint = map.getLong(24);
+		if(n < 0 || up < 0 || down < 0 || metric < 0 || metric >= Metric.values().length
+				|| map.limit() != HEADER_BYTES + 4L * (3L * n + 2) + 12L * up + 12L * down + 8)
+			throw new IOException(filename + " is truncated or corrupt");
+		if(n != csr.vertexCount() || fingerprint != GraphSnapshot.fingerprint(csr))
+			throw new IOException(filename + " was built for a different map");
+		GraphSnapshot.verify(filename, map);
+
+		int pos = HEADER_BYTES;
+		IntBuffer rank = GraphSnapshot.ints(map, pos, n);
+		IntBuffer upOffsets = GraphSnapshot.ints(map, pos += 4 * n, n + 1);
+		IntBuffer upTargets = GraphSnapshot.ints(map, pos += 4 * (n + 1), up);
+		IntBuffer upWeights = GraphSnapshot.ints(map, pos += 4 * up, up);
+		IntBuffer upMids = GraphSnapshot.ints(map, pos += 4 * up, up);
+		IntBuffer downOffsets = GraphSnapshot.ints(map, pos += 4 * up, n + 1);
+		IntBuffer downSources = GraphSnapshot.ints(map, pos += 4 * (n + 1), down);
+		IntBuffer downWeights = GraphSnapshot.ints(map, pos += 4 * down, down);
+		IntBuffer downMids = GraphSnapshot.ints(map, pos += 4 * down, down);
+		return new ContractionHierarchy(csr, Metric.values()[metric], fingerprint, rank, upOffsets, upTargets,
+				upWeights, upMids, downOffsets, downSources, downWeights, downMids);
+	}
+
+	/**
+	 * Saves the ContractionHierarchy to a file.
+	 *
+	 * @param filename The name of the hierarchy file
+	 * @throws IOException if the file can not be written
+	 */
+	public void write(String filename) throws IOException {
+		try(SnapshotWriter out = new SnapshotWriter(filename)) {
+			out.putInt(MAGIC);
+			out.putInt(VERSION);
+			out.putInt(graph.vertexCount());
+			out.putInt(metric.ordinal());
+			out.putInt(upTargets.limit());
+			out.putInt(downSources.limit());
+			out.putLong(fingerprint);
+			for(IntBuffer buf: new IntBuffer[] { rank, upOffsets, upTargets, upWeights, upMids, downOffsets,
+					downSources, downWeights, downMids }) {
+				for(int i = 0; i < buf.limit(); i++)
+					out.putInt(buf.get(i));
+			}
+			out.commit();
+		}
+	}
+
+	/**
+	 * Returns the index of the upward edge from one vertex to a higher ranked one, or -1.
+	 *
+	 * @param u The id of the source
+	 * @param w The id of the target
+	 * @return the upward edge index
+	 */
+	public int findUp(int u, int w) {
+		for(int e = firstUp(u); e < endUp(u); e++) {
+			if(upTargets.get(e) == w)
+				return e;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the index of the downward edge from one vertex to a lower ranked one, or -1.
+	 *
+	 * @param u The id of the source
+	 * @param w The id of the target
+	 * @return the downward edge index
+	 */
+	public int findDown(int u, int w) {
+		for(int e = firstDown(w); e < endDown(w); e++) {
+			if(downSources.get(e) == u)
+				return e;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the number of shortcuts and edges in the hierarchy.
+	 *
+	 * @return the edge count
+	 */
+	public int edgeCount() {
+		return upTargets.limit() + downSources.limit();
+	}
+
+	//=================================================================== Getters / Setters
+	public CsrGraph getGraph() 					{	return graph;					}
+	public Metric getMetric() 					{	return metric;					}
+	public long getFingerprint() 				{	return fingerprint;				}
+	public int getRank(int vertex) 				{	return rank.get(vertex);		}
+	public int firstUp(int vertex) 				{	return upOffsets.get(vertex);		}
+	public int endUp(int vertex) 				{	return upOffsets.get(vertex + 1);	}
+	public int getUpTarget(int edge) 			{	return upTargets.get(edge);		}
+	public int getUpWeight(int edge) 			{	return upWeights.get(edge);		}
+	public int getUpMid(int edge) 				{	return upMids.get(edge);		}
+	public int firstDown(int vertex) 			{	return downOffsets.get(vertex);		}
+	public int endDown(int vertex) 				{	return downOffsets.get(vertex + 1);	}
+	public int getDownSource(int edge) 			{	return downSources.get(edge);	}
+	public int getDownWeight(int edge) 			{	return downWeights.get(edge);	}
+	public int getDownMid(int edge) 			{	return downMids.get(edge);		}
+}
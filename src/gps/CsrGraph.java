@@ -0,0 +1,291 @@
+package gps;
+
+import java.nio.IntBuffer;
+
+/**
+ * This CsrGraph class is a compressed sparse row (CSR) copy of the Graph data structure. Every
+ * Vertex is given a dense int id and the outgoing Edges of a vertex v are stored in the index
+ * range firstEdge(v) up to (but not including) endEdge(v) of the target and cost arrays. There is
+ * one primitive array per cost type so Dijkstra can walk the adjacency without chasing Vertex and
+ * Edge references. The symbols and addresses are kept in SymbolIndex objects so either can be
+ * turned back into a vertex id in constant time. A CsrGraph is never changed after it has been
+ * built; withCosts makes a copy with some costs changed instead, sharing every other array.
+ *
+ * The incoming Edges of each vertex are kept in a second, reverse CSR whose entries point back at
+ * the forward edge index, so both directions share the same cost arrays. The reverse arrays are
+ * only built the first time a backward search calls buildReverse().
+ *
+ * The arrays are held as IntBuffers. A CsrGraph built from a parsed file wraps int arrays on the
+ * heap, while one loaded by GraphSnapshot reads straight from the memory-mapped snapshot file.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class CsrGraph {
+	//=================================================================== Properties
+	private final SymbolIndex symbols;
+	private final SymbolIndex addresses;
+	private final IntBuffer offsets;
+	private final IntBuffer targets;
+	private final IntBuffer timeCosts;
+	private final IntBuffer distanceCosts;
+	private final IntBuffer laneCosts;
+	private int[] inOffsets;
+	private int[] inEdges;
+	private int[] inSources;
+	private volatile boolean reverseBuilt;
+	private final int[] maxCosts = { -1, -1, -1 };
+
+	//=================================================================== Constructors
+	/**
+	 * Creates a CsrGraph from its arrays. The outgoing edges of vertex v are the indexes
+	 * offsets[v] up to offsets[v + 1] of the target and cost arrays.
+	 *
+	 * @param symbols The symbols of the vertices in id order
+	 * @param addresses The addresses of the vertices in id order
+	 * @param offsets The first edge of each vertex, with the edge count at the end
+	 * @param targets The destination vertex of each edge
+	 * @param timeCosts The time cost of each edge
+	 * @param distanceCosts The distance cost of each edge
+	 * @param laneCosts The lane cost of each edge
+	 */
+	public CsrGraph(SymbolIndex symbols, SymbolIndex addresses, int[] offsets, int[] targets, int[] timeCosts,
+			int[] distanceCosts, int[] laneCosts) {
+		this(symbols, addresses, IntBuffer.wrap(offsets), IntBuffer.wrap(targets), IntBuffer.wrap(timeCosts),
+				IntBuffer.wrap(distanceCosts), IntBuffer.wrap(laneCosts));
+	}
+
+	//-- Workhorse Constructor
+	/**
+	 * Creates a CsrGraph from its buffers. Index 0 of each buffer is its first element.
+	 *
+	 * @param symbols The symbols of the vertices in id order
+	 * @param addresses The addresses of the vertices in id order
+	 * @param offsets The first edge of each vertex, with the edge count at the end
+	 * @param targets The destination vertex of each edge
+	 * @param timeCosts The time cost of each edge
+	 * @param distanceCosts The distance cost of each edge
+	 * @param laneCosts The lane cost of each edge
+	 */
+	public CsrGraph(SymbolIndex symbols, SymbolIndex addresses, IntBuffer offsets, IntBuffer targets,
+			IntBuffer timeCosts, IntBuffer distanceCosts, IntBuffer laneCosts) {
+		int n = symbols.size();
+		int m = targets.limit();
+		if(addresses.size() != n || offsets.limit() != n + 1 || offsets.get(n) != m || timeCosts.limit() != m
+				|| distanceCosts.limit() != m || laneCosts.limit() != m)
+			throw new IllegalArgumentException("CSR arrays do not match");
+		this.symbols = symbols;
+		this.addresses = addresses;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.timeCosts = timeCosts;
+		this.distanceCosts = distanceCosts;
+		this.laneCosts = laneCosts;
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Returns the number of vertices in the CsrGraph.
+	 *
+	 * @return the vertex count
+	 */
+	public int vertexCount() {
+		return offsets.limit() - 1;
+	}
+
+	/**
+	 * Returns the number of edges in the CsrGraph.
+	 *
+	 * @return the edge count
+	 */
+	public int edgeCount() {
+		return targets.limit();
+	}
+
+	/**
+	 * Returns the index of the first outgoing edge of a vertex.
+	 *
+	 * @param vertex The id of the vertex
+	 * @return the first edge index
+	 */
+	public int firstEdge(int vertex) {
+		return offsets.get(vertex);
+	}
+
+	/**
+	 * Returns the index one past the last outgoing edge of a vertex.
+	 *
+	 * @param vertex The id of the vertex
+	 * @return the end edge index
+	 */
+	public int endEdge(int vertex) {
+		return offsets.get(vertex + 1);
+	}
+
+	/**
+	 * Builds the reverse adjacency if it has not been built yet. It must be called before the
+	 * incoming edge methods are used, and is cheap to call again once the arrays exist.
+	 */
+	public void buildReverse() {
+		if(reverseBuilt)	return;
+		synchronized(this) {
+			if(reverseBuilt)	return;
+			int n = vertexCount();
+			int[] in = new int[n + 1];
+			for(int e = 0; e < edgeCount(); e++)
+				in[targets.get(e) + 1]++;
+			for(int v = 0; v < n; v++)
+				in[v + 1] += in[v];
+
+			int[] next = new int[n];
+			System.arraycopy(in, 0, next, 0, n);
+			int[] edges = new int[edgeCount()];
+			int[] sources = new int[edgeCount()];
+			for(int v = 0; v < n; v++) {
+				for(int e = firstEdge(v); e < endEdge(v); e++) {
+					int slot = next[targets.get(e)]++;
+					edges[slot] = e;
+					sources[slot] = v;
+				}
+			}
+			inOffsets = in;
+			inEdges = edges;
+			inSources = sources;
+			reverseBuilt = true;
+		}
+	}
+
+	/**
+	 * Returns the index of the first incoming edge of a vertex in the reverse adjacency.
+	 *
+	 * @param vertex The id of the vertex
+	 * @return the first incoming edge index
+	 */
+	public int firstInEdge(int vertex) {
+		return inOffsets[vertex];
+	}
+
+	/**
+	 * Returns the index one past the last incoming edge of a vertex in the reverse adjacency.
+	 *
+	 * @param vertex The id of the vertex
+	 * @return the end incoming edge index
+	 */
+	public int endInEdge(int vertex) {
+		return inOffsets[vertex + 1];
+	}
+
+	/**
+	 * Returns a copy of the CsrGraph with new costs of one Metric on some edges. Only the cost
+	 * array of that Metric is copied; the vertices, edges, other costs and reverse adjacency are
+	 * shared with this CsrGraph.
+	 *
+	 * @param metric The cost type to change
+	 * @param edges The indexes of the edges to change
+	 * @param costs The new cost of each of those edges
+	 * @return the new CsrGraph
+	 */
+	public CsrGraph withCosts(Metric metric, int[] edges, int[] costs) {
+		if(edges.length != costs.length)	throw new IllegalArgumentException("edges and costs do not match");
+		IntBuffer old = metric == Metric.LANE ? laneCosts: metric == Metric.DISTANCE ? distanceCosts: timeCosts;
+		int[] next = new int[edgeCount()];
+		old.get(0, next);
+		for(int i = 0; i < edges.length; i++) {
+			if(costs[i] < 0)	throw new IllegalArgumentException("edge costs must not be negative");
+			next[edges[i]] = costs[i];
+		}
+
+		IntBuffer changed = IntBuffer.wrap(next);
+		CsrGraph ret = new CsrGraph(symbols, addresses, offsets, targets, metric == Metric.TIME ? changed: timeCosts,
+				metric == Metric.DISTANCE ? changed: distanceCosts, metric == Metric.LANE ? changed: laneCosts);
+		if(reverseBuilt) {
+			ret.inOffsets = inOffsets;
+			ret.inEdges = inEdges;
+			ret.inSources = inSources;
+			ret.reverseBuilt = true;
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the vertex an edge leaves from by searching the offsets.
+	 *
+	 * @param edge The index of the edge
+	 * @return the id of the source vertex
+	 */
+	public int edgeSource(int edge) {
+		int lo = 0;
+		int hi = vertexCount() - 1;
+		while(lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if(firstEdge(mid) <= edge)
+				lo = mid;
+			else
+				hi = mid - 1;
+		}
+		return lo;
+	}
+
+	/**
+	 * Returns the specified cost of an edge.
+	 *
+	 * @param metric The cost type
+	 * @param edge The index of the edge
+	 * @return The laneCost, distanceCost, or timeCost
+	 */
+	public int getCost(Metric metric, int edge) {
+		return metric == Metric.LANE ? laneCosts.get(edge): metric == Metric.DISTANCE ? distanceCosts.get(edge)
+				: timeCosts.get(edge);
+	}
+
+	/**
+	 * Returns the largest cost of any edge for a Metric, or 0 if there are no edges. It is found by
+	 * scanning the costs the first time it is asked for and remembered after that.
+	 *
+	 * @param metric The cost type
+	 * @return the largest edge cost
+	 */
+	public int maxCost(Metric metric) {
+		int ret = maxCosts[metric.ordinal()];
+		if(ret < 0) {
+			ret = 0;
+			for(int e = 0; e < edgeCount(); e++)
+				ret = Math.max(ret, getCost(metric, e));
+			maxCosts[metric.ordinal()] = ret;
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the id of the vertex with the symbol or -1 if there is none.
+	 *
+	 * @param symbol The symbol of the vertex
+	 * @return the vertex id
+	 */
+	public int indexOfSymbol(String symbol) {
+		return symbols.indexOf(symbol);
+	}
+
+	/**
+	 * Returns the id of the vertex with the address or -1 if there is none.
+	 *
+	 * @param address The address of the vertex
+	 * @return the vertex id
+	 */
+	public int indexOfAddress(String address) {
+		return addresses.indexOf(address);
+	}
+
+	//=================================================================== Getters / Setters
+	public SymbolIndex getSymbols() 			{	return symbols;					}
+	public SymbolIndex getAddresses() 			{	return addresses;				}
+	public String getSymbol(int vertex) 		{	return symbols.get(vertex);		}
+	public String getAddress(int vertex) 		{	return addresses.get(vertex);	}
+	public int getTarget(int edge) 				{	return targets.get(edge);		}
+	public int getTimeCost(int edge) 			{	return timeCosts.get(edge);		}
+	public int getDistanceCost(int edge) 		{	return distanceCosts.get(edge);	}
+	public int getLaneCost(int edge) 			{	return laneCosts.get(edge);		}
+	public int getInEdge(int inEdge) 			{	return inEdges[inEdge];			}
+	public int getSource(int inEdge) 			{	return inSources[inEdge];		}
+}
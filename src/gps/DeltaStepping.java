@@ -0,0 +1,347 @@
+package gps;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This DeltaStepping class computes whole shortest path trees with the delta-stepping algorithm of
+ * Meyer and Sanders, relaxing the edges of many vertices at once on a ForkJoinPool. It is meant
+ * for bulk work such as isochrones and precomputation, where Dijkstra settles every vertex one
+ * after another on a single core.
+ *
+ * Tentative distances are grouped into buckets of width delta. The vertices of the first non-empty
+ * bucket are all expanded together: their light edges (cost at most delta) are relaxed over and over
+ * until the bucket stops changing, and then their heavy edges are relaxed once, since those can only
+ * reach later buckets. A small delta does little wasted work but has few vertices per bucket to
+ * share between threads; a large one has the reverse. DEFAULT_DELTA lets the CsrGraph decide.
+ *
+ * The distance and parent of each vertex are packed into one long of an AtomicLongArray (distance in
+ * the high bits) and lowered with compareAndSet, so a parent always belongs to its distance. Each
+ * fork/join leaf lists the vertices it improved in its own buffer and the buffers are merged into
+ * the buckets between phases on the calling thread. A DeltaStepping keeps no state between calls
+ * and may be used by many threads at once.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class DeltaStepping {
+	//=================================================================== Properties
+	public static final int DEFAULT_DELTA = 0;
+	// Vertices expanded by one fork/join leaf
+	private static final int GRAIN = 256;
+	private static final long UNREACHED = ((long) Integer.MAX_VALUE << 32) | 0xFFFFFFFFL;
+	private final int delta;
+	private final ForkJoinPool pool;
+
+	//=================================================================== Constructors
+	/** Creates a DeltaStepping with DEFAULT_DELTA on the common ForkJoinPool. */
+	public DeltaStepping() {
+		this(DEFAULT_DELTA, ForkJoinPool.commonPool());
+	}
+
+	//-- Workhorse Constructor
+	/**
+	 * Creates a DeltaStepping.
+	 *
+	 * @param delta The width of a bucket, or DEFAULT_DELTA to derive it from each CsrGraph
+	 * @param pool The ForkJoinPool the relaxations run on
+	 */
+	public DeltaStepping(int delta, ForkJoinPool pool) {
+		if(delta < 0)	throw new IllegalArgumentException("delta must not be negative");
+		if(pool == null)	throw new NullPointerException();
+		this.delta = delta;
+		this.pool = pool;
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Returns the bucket width used when none is given: half the largest edge cost. On road maps
+	 * this keeps most edges light while the buckets still hold enough vertices to share out.
+	 *
+	 * @param csr The CsrGraph to search
+	 * @param metric The cost type to minimize
+	 * @return the bucket width, at least 1
+	 */
+	public static int defaultDelta(CsrGraph csr, Metric metric) {
+		return Math.max(1, csr.maxCost(metric) / 2);
+	}
+
+	/**
+	 * Computes the shortest path tree of the whole CsrGraph from one vertex, or to one vertex when
+	 * reverse is true, with the same results as Dijkstra.shortestPathTree. Parents may differ where
+	 * two paths cost the same.
+	 *
+	 * @param csr The CsrGraph for which this algorithms runs through
+	 * @param source The id of the root Vertex
+	 * @param metric The cost type to minimize
+	 * @param reverse True to search backward over incoming Edges
+	 * @param dist Filled with the distance of each vertex, Integer.MAX_VALUE if it is unreachable
+	 * @param parent Filled with the next vertex toward the root or -1; may be null
+	 */
+	public void shortestPathTree(CsrGraph csr, int source, Metric metric, boolean reverse, int[] dist, int[] parent) {
+		if(reverse)	csr.buildReverse();
+		Search search = new Search(csr, metric, reverse, delta == DEFAULT_DELTA ? defaultDelta(csr, metric): delta);
+		search.run(source);
+		for(int v = 0; v < csr.vertexCount(); v++) {
+			long entry = search.tentative.get(v);
+			dist[v] = (int) (entry >>> 32);
+			if(parent != null)	parent[v] = (int) entry;
+		}
+	}
+
+	/**
+	 * The state of one shortest path tree computation.
+	 */
+	private final class Search {
+		private final CsrGraph csr;
+		private final Metric metric;
+		private final boolean reverse;
+		private final int width;
+		private final AtomicLongArray tentative;
+		private final int[][] buckets;
+		private final int[] bucketSizes;
+		private final int[] queued;
+		private final int[] expanded;
+		private int[][] improved = new int[1][GRAIN];
+		private int[] improvedSizes = new int[1];
+		private int phase;
+
+		/**
+		 * Creates the state of a search with every vertex unreached.
+		 *
+		 * @param csr The CsrGraph to search
+		 * @param metric The cost type to minimize
+		 * @param reverse True to search backward over incoming Edges
+		 * @param width The width of a bucket
+		 */
+		Search(CsrGraph csr, Metric metric, boolean reverse, int width) {
+			int n = csr.vertexCount();
+			this.csr = csr;
+			this.metric = metric;
+			this.reverse = reverse;
+			this.width = width;
+			long[] unreached = new long[n];
+			Arrays.fill(unreached, UNREACHED);
+			tentative = new AtomicLongArray(unreached);
+			// Every tentative distance is less than maxCost + width above the current bucket
+			int slots = csr.maxCost(metric) / width + 2;
+			buckets = new int[slots][];
+			bucketSizes = new int[slots];
+			queued = new int[n];
+			expanded = new int[n];
+			Arrays.fill(expanded, -1);
+		}
+
+		/**
+		 * Runs the search, emptying the buckets in order.
+		 *
+		 * @param source The id of the root Vertex
+		 */
+		void run(int source) {
+			tentative.set(source, 0xFFFFFFFFL);
+			addToBucket(0, source);
+			int[] frontier = new int[GRAIN];
+			int[] removed = new int[GRAIN];
+
+			for(int bucket = 0, empty = 0; empty < buckets.length; bucket++) {
+				int slot = bucket % buckets.length;
+				if(bucketSizes[slot] == 0) {
+					empty++;
+					continue;
+				}
+				empty = 0;
+
+				// Vertices whose distance has since moved to an earlier bucket are skipped
+				phase++;
+				int count = 0;
+				for(int i = 0; i < bucketSizes[slot]; i++) {
+					int v = buckets[slot][i];
+					if(bucketOf(v) == bucket && queued[v] != phase) {
+						queued[v] = phase;
+						frontier = append(frontier, count++, v);
+					}
+				}
+				bucketSizes[slot] = 0;
+
+				int removedCount = 0;
+				while(count > 0) {
+					for(int i = 0; i < count; i++) {
+						if(expanded[frontier[i]] != bucket) {
+							expanded[frontier[i]] = bucket;
+							removed = append(removed, removedCount++, frontier[i]);
+						}
+					}
+					relax(frontier, count, true);
+
+					phase++;
+					int next = 0;
+					for(int leaf = 0; leaf < improvedSizes.length; leaf++) {
+						for(int i = 0; i < improvedSizes[leaf]; i++) {
+							int v = improved[leaf][i];
+							int b = bucketOf(v);
+							if(b != bucket)
+								addToBucket(b, v);
+							else if(queued[v] != phase) {
+								queued[v] = phase;
+								frontier = append(frontier, next++, v);
+							}
+						}
+					}
+					count = next;
+				}
+
+				relax(removed, removedCount, false);
+				for(int leaf = 0; leaf < improvedSizes.length; leaf++) {
+					for(int i = 0; i < improvedSizes[leaf]; i++)
+						addToBucket(bucketOf(improved[leaf][i]), improved[leaf][i]);
+				}
+			}
+		}
+
+		/**
+		 * Relaxes the light or the heavy edges of some vertices, on the ForkJoinPool when there are
+		 * more than one leaf's worth. The vertices each leaf improved are left in improved.
+		 *
+		 * @param vertices The vertices to expand
+		 * @param count The number of vertices
+		 * @param light True for edges costing at most the bucket width, false for the others
+		 */
+		private void relax(int[] vertices, int count, boolean light) {
+			int leaves = (count + GRAIN - 1) / GRAIN;
+			if(leaves > improved.length) {
+				int old = improved.length;
+				improved = Arrays.copyOf(improved, leaves);
+				for(int leaf = old; leaf < leaves; leaf++)
+					improved[leaf] = new int[GRAIN];
+			}
+			improvedSizes = new int[leaves];
+			if(leaves == 1)
+				relaxLeaf(vertices, 0, count, light);
+			else if(leaves > 1)
+				pool.invoke(new Relax(vertices, 0, leaves, count, light));
+		}
+
+		/**
+		 * Relaxes the light or heavy edges of one leaf's vertices.
+		 *
+		 * @param vertices The vertices to expand
+		 * @param leaf The leaf, which expands vertices leaf * GRAIN up to end
+		 * @param end One past the last vertex of the leaf
+		 * @param light True for light edges, false for heavy edges
+		 */
+		private void relaxLeaf(int[] vertices, int leaf, int end, boolean light) {
+			int[] out = improved[leaf];
+			int size = 0;
+			for(int i = leaf * GRAIN; i < end; i++) {
+				int u = vertices[i];
+				int base = (int) (tentative.get(u) >>> 32);
+				int last = reverse ? csr.endInEdge(u): csr.endEdge(u);
+				for(int j = reverse ? csr.firstInEdge(u): csr.firstEdge(u); j < last; j++) {
+					int cost = csr.getCost(metric, reverse ? csr.getInEdge(j): j);
+					if((cost <= width) != light)	continue;
+					int v = reverse ? csr.getSource(j): csr.getTarget(j);
+					if(lower(v, base + cost, u))
+						out = append(out, size++, v);
+				}
+			}
+			improved[leaf] = out;
+			improvedSizes[leaf] = size;
+		}
+
+		/**
+		 * Lowers the tentative distance of a vertex if a new one is smaller, keeping the parent
+		 * that gave it.
+		 *
+		 * @param v The id of the vertex
+		 * @param distance The new distance
+		 * @param from The id of the parent
+		 * @return true if the distance was lowered
+		 */
+		private boolean lower(int v, int distance, int from) {
+			long next = ((long) distance << 32) | (from & 0xFFFFFFFFL);
+			long current;
+			while(distance < (int) ((current = tentative.get(v)) >>> 32)) {
+				if(tentative.compareAndSet(v, current, next))
+					return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Returns the bucket of a vertex's tentative distance.
+		 *
+		 * @param v The id of the vertex
+		 * @return the bucket number
+		 */
+		private int bucketOf(int v) {
+			return (int) (tentative.get(v) >>> 32) / width;
+		}
+
+		/**
+		 * Adds a vertex to a bucket. A vertex may sit in several buckets; only the one matching its
+		 * distance counts.
+		 *
+		 * @param bucket The bucket number
+		 * @param v The id of the vertex
+		 */
+		private void addToBucket(int bucket, int v) {
+			int slot = bucket % buckets.length;
+			if(buckets[slot] == null)
+				buckets[slot] = new int[GRAIN];
+			buckets[slot] = append(buckets[slot], bucketSizes[slot]++, v);
+		}
+
+		/**
+		 * A fork/join task relaxing the vertices of a range of leaves.
+		 */
+		private final class Relax extends RecursiveAction {
+			private static final long serialVersionUID = 1L;
+			private final int[] vertices;
+			private final int firstLeaf;
+			private final int endLeaf;
+			private final int count;
+			private final boolean light;
+
+			Relax(int[] vertices, int firstLeaf, int endLeaf, int count, boolean light) {
+				this.vertices = vertices;
+				this.firstLeaf = firstLeaf;
+				this.endLeaf = endLeaf;
+				this.count = count;
+				this.light = light;
+			}
+
+			@Override
+			protected void compute() {
+				if(endLeaf - firstLeaf == 1) {
+					relaxLeaf(vertices, firstLeaf, Math.min(count, endLeaf * GRAIN), light);
+					return;
+				}
+				int middle = (firstLeaf + endLeaf) >>> 1;
+				invokeAll(new Relax(vertices, firstLeaf, middle, count, light),
+						new Relax(vertices, middle, endLeaf, count, light));
+			}
+		}
+	}
+
+	/**
+	 * Stores a value at an index of an array, doubling the array first if it is full.
+	 *
+	 * @param array The array
+	 * @param index The index, at most the array's length
+	 * @param value The value to store
+	 * @return the array, or its larger copy
+	 */
+	private static int[] append(int[] array, int index, int value) {
+		if(index == array.length)
+			array = Arrays.copyOf(array, 2 * array.length);
+		array[index] = value;
+		return array;
+	}
+
+	//=================================================================== Getters / Setters
+	public int getDelta() 				{	return delta;	}
+	public ForkJoinPool getPool() 		{	return pool;	}
+}
@@ -0,0 +1,230 @@
+package gps;
+
+import java.util.Arrays;
+
+/**
+ * This Dijkstra class is part of the Graph data structure. This class is based off of the
+ * Dijkstra algorithm and is used to calculate the shortest path from one Vertex to another and
+ * the shortest path tree of one Vertex. Alternative paths are found by KShortestPaths. Every
+ * method searches a CsrGraph using vertex ids with the Metric passed in and keeps no static
+ * state, so they can run on many threads at once.
+ * 
+ * Every search but DECREASE_KEY removes vertices in increasing cost order from a lazy queue, so
+ * when every edge cost is an int the heap can be replaced by a BucketPriorityQ or a
+ * RadixHeapPriorityQ. QueueType.AUTO picks one of them from the largest edge cost of the CsrGraph,
+ * and the shortest path tree always does.
+ * 
+ * The shortest path searches count their work in local variables and hand it to the active
+ * QueryMonitor as a QueryStats when they finish. With no QueryMonitor active the counts are
+ * simply dropped.
+ * 
+ * @author wyattcombs
+ *
+ */
+
+public class Dijkstra {
+	//=================================================================== Methods
+	/**
+	 * Returns the shortest path from one Vertex to another using the priority queue QueueType.AUTO
+	 * picks. Null is returned if no paths found.
+	 * 
+	 * @param csr The CsrGraph for which this algorithms runs through
+	 * @param start The id of the start Vertex
+	 * @param end The id of the end Vertex
+	 * @param metric The cost type to minimize
+	 * @return The shortest path as a Path object
+	 */
+	public static Path shortestPath(CsrGraph csr, int start, int end, Metric metric) {
+		return shortestPath(csr, start, end, metric, QueueType.AUTO);
+	}
+	
+	/**
+	 * Returns the shortest path from one Vertex to another. Null is returned if no paths found.
+	 * 
+	 * @param csr The CsrGraph for which this algorithms runs through
+	 * @param start The id of the start Vertex
+	 * @param end The id of the end Vertex
+	 * @param metric The cost type to minimize
+	 * @param queueType How the priority queue is managed
+	 * @return The shortest path as a Path object
+	 */
+	public static Path shortestPath(CsrGraph csr, int start, int end, Metric metric, QueueType queueType) {
+		if(queueType == QueueType.DECREASE_KEY)	return decreaseKeyPath(csr, start, end, metric);
+		return lazyPath(csr, start, end, metric, queueType.resolve(csr.maxCost(metric)));
+	}
+	
+	/**
+	 * Runs Dijkstra with a lazy priority queue of the thread's SearchContext. A vertex is added
+	 * again every time an Edge gives it a cheaper cost and entries for vertices that were already
+	 * settled are skipped when removed.
+	 * 
+	 * @param csr The CsrGraph being searched
+	 * @param start The id of the start Vertex
+	 * @param end The id of the end Vertex
+	 * @param metric The cost type to minimize
+	 * @param queueType LAZY, BUCKET or RADIX
+	 * @return The shortest path as a Path object
+	 */
+	private static Path lazyPath(CsrGraph csr, int start, int end, Metric metric, QueueType queueType) {
+		QueryMonitor monitor = QueryMonitor.active();
+		long begin = monitor == null ? 0: System.nanoTime();
+		int settled = 0, relaxed = 0, pushes = 1, pops = 0, peak = 1;
+		SearchContext ctx = SearchContext.current();
+		ctx.reset(csr.vertexCount());
+		LazyPriorityQueueInterface pq = ctx.getQueue(queueType, csr.maxCost(metric));
+		ctx.setDist(start, 0, -1);
+		pq.add(start, 0);
+		Path ret = null;
+		
+		while(!pq.isEmpty()) {
+			int currCost = pq.peekPriority();
+			int currVert = pq.remove();
+			pops++;
+			if(ctx.isSettled(currVert))	continue;
+			ctx.settle(currVert);
+			settled++;
+			
+			if(currVert == end) {
+				ret = toPath(csr, ctx, end, metric);
+				break;
+			}
+			
+			for(int e = csr.firstEdge(currVert); e < csr.endEdge(currVert); e++) {
+				int nextVert = csr.getTarget(e);
+				int nextCost = currCost + csr.getCost(metric, e);
+				relaxed++;
+				if(nextCost < ctx.getDist(nextVert)) {
+					ctx.setDist(nextVert, nextCost, currVert);
+					pq.add(nextVert, nextCost);
+					pushes++;
+					peak = Math.max(peak, pq.size());
+				}
+			}
+		}
+		
+		if(monitor != null)
+			monitor.record(new QueryStats(csr, start, end, metric, queueType, ret != null, settled, relaxed, pushes,
+					pops, peak, System.nanoTime() - begin));
+		return ret;
+	}
+	
+	/**
+	 * Runs Dijkstra with the IndexedHeapPriorityQ of the thread's SearchContext, which holds at
+	 * most one entry per vertex. When an Edge gives a cheaper cost the vertex's priority is
+	 * decreased and its parent is updated.
+	 * 
+	 * @param csr The CsrGraph being searched
+	 * @param start The id of the start Vertex
+	 * @param end The id of the end Vertex
+	 * @param metric The cost type to minimize
+	 * @return The shortest path as a Path object
+	 */
+	private static Path decreaseKeyPath(CsrGraph csr, int start, int end, Metric metric) {
+		QueryMonitor monitor = QueryMonitor.active();
+		long begin = monitor == null ? 0: System.nanoTime();
+		int settled = 0, relaxed = 0, pushes = 1, peak = 1;
+		SearchContext ctx = SearchContext.current();
+		ctx.reset(csr.vertexCount());
+		IndexedHeapPriorityQ pq = ctx.getIndexedQ();
+		ctx.setDist(start, 0, -1);
+		pq.add(start, 0);
+		Path ret = null;
+		
+		while(!pq.isEmpty()) {
+			int currVert = pq.remove();
+			int currCost = ctx.getDist(currVert);
+			ctx.settle(currVert);
+			settled++;
+			
+			if(currVert == end) {
+				ret = toPath(csr, ctx, end, metric);
+				break;
+			}
+			
+			for(int e = csr.firstEdge(currVert); e < csr.endEdge(currVert); e++) {
+				int nextVert = csr.getTarget(e);
+				if(ctx.isSettled(nextVert))	continue;
+				int nextCost = currCost + csr.getCost(metric, e);
+				relaxed++;
+				if(!ctx.isReached(nextVert)) {
+					ctx.setDist(nextVert, nextCost, currVert);
+					pq.add(nextVert, nextCost);
+					pushes++;
+					peak = Math.max(peak, pq.size());
+				} else if(nextCost < ctx.getDist(nextVert)) {
+					ctx.setDist(nextVert, nextCost, currVert);
+					pq.decreaseKey(nextVert, nextCost);
+				}
+			}
+		}
+		
+		if(monitor != null)
+			monitor.record(new QueryStats(csr, start, end, metric, QueueType.DECREASE_KEY, ret != null, settled,
+					relaxed, pushes, settled, peak, System.nanoTime() - begin));
+		return ret;
+	}
+	
+	/**
+	 * Builds the Path to a settled vertex by following the parents in the SearchContext.
+	 * 
+	 * @param csr The CsrGraph that was searched
+	 * @param ctx The SearchContext of the query
+	 * @param end The id of the end Vertex
+	 * @param metric The cost type that was minimized
+	 * @return The Path from the start Vertex to end
+	 */
+	static Path toPath(CsrGraph csr, SearchContext ctx, int end, Metric metric) {
+		int length = 0;
+		for(int v = end; v >= 0; v = ctx.getParent(v))
+			length++;
+		int[] vertices = new int[length];
+		int[] legCosts = new int[length - 1];
+		for(int v = end; v >= 0; v = ctx.getParent(v)) {
+			vertices[--length] = v;
+			if(length > 0)
+				legCosts[length - 1] = ctx.getDist(v) - ctx.getDist(ctx.getParent(v));
+		}
+		
+		return new Path(csr, vertices, legCosts, ctx.getDist(end), metric);
+	}
+	
+	/**
+	 * Computes the shortest path tree of the whole CsrGraph from one vertex, or to one vertex when
+	 * reverse is true, in which case incoming Edges are followed and each distance is the cost from
+	 * a vertex to the source.
+	 * 
+	 * @param csr The CsrGraph for which this algorithms runs through
+	 * @param source The id of the root Vertex
+	 * @param metric The cost type to minimize
+	 * @param reverse True to search backward over incoming Edges
+	 * @param dist Filled with the distance of each vertex, Integer.MAX_VALUE if it is unreachable
+	 * @param parent Filled with the next vertex toward the root or -1; may be null
+	 */
+	public static void shortestPathTree(CsrGraph csr, int source, Metric metric, boolean reverse, int[] dist,
+			int[] parent) {
+		if(reverse)	csr.buildReverse();
+		Arrays.fill(dist, 0, csr.vertexCount(), Integer.MAX_VALUE);
+		if(parent != null)	Arrays.fill(parent, 0, csr.vertexCount(), -1);
+		int maxCost = csr.maxCost(metric);
+		LazyPriorityQueueInterface pq = SearchContext.current().getQueue(QueueType.AUTO.resolve(maxCost), maxCost);
+		dist[source] = 0;
+		pq.add(source, 0);
+		
+		while(!pq.isEmpty()) {
+			int currCost = pq.peekPriority();
+			int currVert = pq.remove();
+			if(currCost > dist[currVert])	continue;
+			
+			int last = reverse ? csr.endInEdge(currVert): csr.endEdge(currVert);
+			for(int i = reverse ? csr.firstInEdge(currVert): csr.firstEdge(currVert); i < last; i++) {
+				int nextVert = reverse ? csr.getSource(i): csr.getTarget(i);
+				int nextCost = currCost + csr.getCost(metric, reverse ? csr.getInEdge(i): i);
+				if(nextCost < dist[nextVert]) {
+					dist[nextVert] = nextCost;
+					if(parent != null)	parent[nextVert] = currVert;
+					pq.add(nextVert, nextCost);
+				}
+			}
+		}
+	}
+}
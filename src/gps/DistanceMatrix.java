@@ -0,0 +1,301 @@
+package gps;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * This DistanceMatrix class holds the costs of the shortest paths from every source Vertex to every
+ * target Vertex in a flat int array, one row per source. It is filled by one search per source
+ * instead of one search per pair, and the rows are computed in parallel.
+ *
+ * On a CsrGraph each search is a Dijkstra that stops as soon as every target is settled. On a
+ * ContractionHierarchy the bucket method is used: an upward backward search from each target
+ * leaves its costs in a bucket at every vertex it settles, and an upward forward search from each
+ * source reads the buckets of the vertices it settles, so no search ever leaves the small upward
+ * search spaces.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class DistanceMatrix {
+	//=================================================================== Properties
+	public static final int UNREACHABLE = Integer.MAX_VALUE;
+	private final int rows;
+	private final int columns;
+	private final Metric metric;
+	private final int[] costs;
+
+	//=================================================================== Constructors
+	//-- Workhorse Constructor
+	/**
+	 * Creates a DistanceMatrix from its costs.
+	 *
+	 * @param rows The number of sources
+	 * @param columns The number of targets
+	 * @param metric The cost type of the matrix
+	 * @param costs The costs, row by row
+	 */
+	private DistanceMatrix(int rows, int columns, Metric metric, int[] costs) {
+		this.rows = rows;
+		this.columns = columns;
+		this.metric = metric;
+		this.costs = costs;
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Computes the matrix with one bounded Dijkstra search per source.
+	 *
+	 * @param csr The CsrGraph to search
+	 * @param sources The ids of the source vertices; a negative id gives a row of UNREACHABLE
+	 * @param targets The ids of the target vertices; a negative id gives a column of UNREACHABLE
+	 * @param metric The cost type to minimize
+	 * @return the DistanceMatrix
+	 */
+	public static DistanceMatrix compute(CsrGraph csr, int[] sources, int[] targets, Metric metric) {
+		int[] distinct = distinctTargets(targets);
+		boolean[] isTarget = new boolean[csr.vertexCount()];
+		for(int t: distinct)
+			isTarget[t] = true;
+
+		int[] costs = newCosts(sources.length, targets.length);
+		IntStream.range(0, sources.length).parallel().forEach(row -> {
+			Arrays.fill(costs, row * targets.length, (row + 1) * targets.length, UNREACHABLE);
+			if(sources[row] < 0 || distinct.length == 0)	return;
+			SearchContext ctx = SearchContext.current();
+			boundedSearch(csr, sources[row], metric, ctx, isTarget, distinct.length);
+			for(int col = 0; col < targets.length; col++) {
+				if(targets[col] >= 0)
+					costs[row * targets.length + col] = ctx.getDist(targets[col]);
+			}
+		});
+		return new DistanceMatrix(sources.length, targets.length, metric, costs);
+	}
+
+	/**
+	 * Computes the matrix with the bucket method on a ContractionHierarchy.
+	 *
+	 * @param ch The ContractionHierarchy to search
+	 * @param sources The ids of the source vertices; a negative id gives a row of UNREACHABLE
+	 * @param targets The ids of the target vertices; a negative id gives a column of UNREACHABLE
+	 * @return the DistanceMatrix in the Metric of the hierarchy
+	 */
+	public static DistanceMatrix compute(ContractionHierarchy ch, int[] sources, int[] targets) {
+		int n = ch.getGraph().vertexCount();
+		int[] distinct = distinctTargets(targets);
+		int[][] spaces = IntStream.range(0, distinct.length).parallel()
+				.mapToObj(i -> backwardSpace(ch, distinct[i])).toArray(int[][]::new);
+
+		int[] bucketOffsets = new int[n + 1];
+		for(int[] space: spaces) {
+			for(int i = 0; i < space.length; i += 2)
+				bucketOffsets[space[i] + 1]++;
+		}
+		for(int v = 0; v < n; v++)
+			bucketOffsets[v + 1] += bucketOffsets[v];
+		int[] bucketTargets = new int[bucketOffsets[n]];
+		int[] bucketCosts = new int[bucketOffsets[n]];
+		int[] next = Arrays.copyOf(bucketOffsets, n);
+		for(int t = 0; t < spaces.length; t++) {
+			for(int i = 0; i < spaces[t].length; i += 2) {
+				int slot = next[spaces[t][i]]++;
+				bucketTargets[slot] = t;
+				bucketCosts[slot] = spaces[t][i + 1];
+			}
+		}
+
+		int[] column = new int[targets.length];
+		for(int col = 0; col < targets.length; col++)
+			column[col] = targets[col] < 0 ? -1: Arrays.binarySearch(distinct, targets[col]);
+		int[] costs = newCosts(sources.length, targets.length);
+		IntStream.range(0, sources.length).parallel().forEach(row -> {
+			Arrays.fill(costs, row * targets.length, (row + 1) * targets.length, UNREACHABLE);
+			if(sources[row] < 0)	return;
+			int[] best = new int[distinct.length];
+			Arrays.fill(best, UNREACHABLE);
+			forwardScan(ch, sources[row], bucketOffsets, bucketTargets, bucketCosts, best);
+			for(int col = 0; col < targets.length; col++) {
+				if(column[col] >= 0)
+					costs[row * targets.length + col] = best[column[col]];
+			}
+		});
+		return new DistanceMatrix(sources.length, targets.length, ch.getMetric(), costs);
+	}
+
+	/**
+	 * Returns the sorted distinct ids of the targets, leaving out negative ids.
+	 *
+	 * @param targets The ids of the target vertices
+	 * @return the distinct target ids
+	 */
+	private static int[] distinctTargets(int[] targets) {
+		return Arrays.stream(targets).filter(t -> t >= 0).sorted().distinct().toArray();
+	}
+
+	/**
+	 * Runs Dijkstra from a source until every target is settled or nothing more can be reached.
+	 *
+	 * @param csr The CsrGraph to search
+	 * @param source The id of the start vertex
+	 * @param metric The cost type to minimize
+	 * @param ctx The SearchContext to search with
+	 * @param isTarget Whether each vertex is a target
+	 * @param targetCount The number of distinct targets
+	 */
+	private static void boundedSearch(CsrGraph csr, int source, Metric metric, SearchContext ctx, boolean[] isTarget,
+			int targetCount) {
+		ctx.reset(csr.vertexCount());
+		LazyHeapPriorityQ pq = ctx.getLazyQ();
+		ctx.setDist(source, 0, -1);
+		pq.add(source, 0);
+
+		int found = 0;
+		while(!pq.isEmpty()) {
+			int currCost = pq.peekPriority();
+			int currVert = pq.remove();
+			if(ctx.isSettled(currVert))	continue;
+			ctx.settle(currVert);
+			if(isTarget[currVert] && ++found == targetCount)	break;
+
+			for(int e = csr.firstEdge(currVert); e < csr.endEdge(currVert); e++) {
+				int nextVert = csr.getTarget(e);
+				int nextCost = currCost + csr.getCost(metric, e);
+				if(nextCost < ctx.getDist(nextVert)) {
+					ctx.setDist(nextVert, nextCost, currVert);
+					pq.add(nextVert, nextCost);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs the upward backward search from a target and returns the vertices it settles without
+	 * stalling, with their costs to the target.
+	 *
+	 * @param ch The ContractionHierarchy
+	 * @param target The id of the target vertex
+	 * @return pairs of vertex id and cost
+	 */
+	private static int[] backwardSpace(ContractionHierarchy ch, int target) {
+		SearchContext bwd = SearchContext.current();
+		bwd.reset(ch.getGraph().vertexCount());
+		LazyHeapPriorityQ pq = bwd.getLazyQ();
+		bwd.setDist(target, 0, -1);
+		pq.add(target, 0);
+
+		int[] space = new int[16];
+		int size = 0;
+		while(!pq.isEmpty()) {
+			int currCost = pq.peekPriority();
+			int currVert = pq.remove();
+			if(bwd.isSettled(currVert))	continue;
+			bwd.settle(currVert);
+			if(HierarchyDijkstra.stalledBackward(ch, bwd, currVert, currCost))	continue;
+
+			if(size == space.length)
+				space = Arrays.copyOf(space, 2 * size);
+			space[size++] = currVert;
+			space[size++] = currCost;
+			for(int e = ch.firstDown(currVert); e < ch.endDown(currVert); e++) {
+				int nextVert = ch.getDownSource(e);
+				int nextCost = currCost + ch.getDownWeight(e);
+				if(nextCost < bwd.getDist(nextVert)) {
+					bwd.setDist(nextVert, nextCost, currVert);
+					pq.add(nextVert, nextCost);
+				}
+			}
+		}
+		return Arrays.copyOf(space, size);
+	}
+
+	/**
+	 * Runs the upward forward search from a source and lowers the cost to every target whose
+	 * bucket holds a vertex it settles.
+	 *
+	 * @param ch The ContractionHierarchy
+	 * @param source The id of the source vertex
+	 * @param bucketOffsets Where the bucket of each vertex starts
+	 * @param bucketTargets The target index of each bucket entry
+	 * @param bucketCosts The cost to the target of each bucket entry
+	 * @param best The cheapest cost found to each target
+	 */
+	private static void forwardScan(ContractionHierarchy ch, int source, int[] bucketOffsets, int[] bucketTargets,
+			int[] bucketCosts, int[] best) {
+		SearchContext fwd = SearchContext.current();
+		fwd.reset(ch.getGraph().vertexCount());
+		LazyHeapPriorityQ pq = fwd.getLazyQ();
+		fwd.setDist(source, 0, -1);
+		pq.add(source, 0);
+
+		while(!pq.isEmpty()) {
+			int currCost = pq.peekPriority();
+			int currVert = pq.remove();
+			if(fwd.isSettled(currVert))	continue;
+			fwd.settle(currVert);
+			if(HierarchyDijkstra.stalledForward(ch, fwd, currVert, currCost))	continue;
+
+			for(int i = bucketOffsets[currVert]; i < bucketOffsets[currVert + 1]; i++) {
+				long cost = (long) currCost + bucketCosts[i];
+				if(cost < best[bucketTargets[i]])
+					best[bucketTargets[i]] = (int) cost;
+			}
+			for(int e = ch.firstUp(currVert); e < ch.endUp(currVert); e++) {
+				int nextVert = ch.getUpTarget(e);
+				int nextCost = currCost + ch.getUpWeight(e);
+				if(nextCost < fwd.getDist(nextVert)) {
+					fwd.setDist(nextVert, nextCost, currVert);
+					pq.add(nextVert, nextCost);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Allocates the costs of a matrix, failing rather than overflowing on a huge one.
+	 *
+	 * @param rows The number of sources
+	 * @param columns The number of targets
+	 * @return an array of rows * columns costs
+	 */
+	private static int[] newCosts(int rows, int columns) {
+		if((long) rows * columns > Integer.MAX_VALUE)
+			throw new IllegalArgumentException(rows + "x" + columns + " is too many cells for a matrix");
+		return new int[rows * columns];
+	}
+
+	/**
+	 * Returns the cost of the shortest path from a source to a target.
+	 *
+	 * @param row The index of the source
+	 * @param column The index of the target
+	 * @return the cost, or UNREACHABLE if there is no path
+	 */
+	public int getCost(int row, int column) {
+		if(row < 0 || row >= rows || column < 0 || column >= columns)
+			throw new IndexOutOfBoundsException("(" + row + ", " + column + ") is outside " + rows + "x" + columns);
+		return costs[row * columns + column];
+	}
+
+	/**
+	 * Returns the costs as one array per source.
+	 *
+	 * @return a copy of the matrix
+	 */
+	public int[][] toArray() {
+		int[][] ret = new int[rows][];
+		for(int row = 0; row < rows; row++)
+			ret[row] = Arrays.copyOfRange(costs, row * columns, (row + 1) * columns);
+		return ret;
+	}
+
+	@Override
+	public String toString() {
+		return rows + "x" + columns + " " + metric.getLabel() + " matrix";
+	}
+
+	//=================================================================== Getters / Setters
+	public int getRowCount() 					{	return rows;				}
+	public int getColumnCount() 				{	return columns;				}
+	public Metric getMetric() 					{	return metric;				}
+}
@@ -1,3 +1,5 @@
+package gps;
+
 /**
  * This Edge class is meant to be a property of a Vertex object. It is a part of the 
  * Graph data structure which has the path the Vertex to a different Vertex. An Edge
@@ -63,16 +65,28 @@ public class Edge {
 	/**
 	 * Returns the specified cost.
 	 * 
+	 * @param metric The cost type
 	 * @return The laneCost, distanceCost, or timeCost
 	 */
-	public int getCost() {
-		return Graph.useLaneCost ? laneCost: Graph.useDistCost ? distanceCost: timeCost;
+	public int getCost(Metric metric) {
+		return metric == Metric.LANE ? laneCost: metric == Metric.DISTANCE ? distanceCost: timeCost;
 		
 	}
 	
+	/**
+	 * Prints the destination and cost of the Edge.
+	 * 
+	 * @param useAddress True to print the destination address, false to print its symbol
+	 * @param metric The cost type printed
+	 * @return the Edge as a String
+	 */
+	public String toString(boolean useAddress, Metric metric) {
+		return "(" + destination.getReturnAddress(useAddress) + ", " + getCost(metric) + ")";
+	}
+	
 	@Override
 	public String toString() {
-		return "(" + destination.getReturnAddress() + ", " + getCost() + ")";
+		return toString(true, Metric.TIME);
 	}
 
 	//=================================================================== Getters / Setters
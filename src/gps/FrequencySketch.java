@@ -0,0 +1,93 @@
+package gps;
+
+/**
+ * This FrequencySketch class estimates how often keys have been seen, in a fixed amount of memory.
+ * It is a count-min sketch: each key hashes to one counter in each of four rows and its estimate
+ * is the smallest of those counters. Counters stop at 15, and once enough keys have been counted
+ * every counter is halved, so the estimates follow recent traffic rather than all traffic. It is
+ * used by the BoundedCache to decide whether a new entry is worth more than the one it would
+ * replace.
+ *
+ * A FrequencySketch is not thread-safe. The BoundedCache only changes it under its lock; an estimate
+ * read without the lock may miss the latest sightings but is never torn.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class FrequencySketch {
+	//=================================================================== Properties
+	private static final int MAX_COUNT = 15;
+	private static final int ROWS = 4;
+	private static final long[] SEEDS = { 0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L,
+			0xD6E8FEB86659FD93L };
+	private final byte[] counters;
+	private final int mask;
+	private final int sampleSize;
+	private int additions;
+
+	//=================================================================== Constructors
+	//-- Workhorse Constructor
+	/**
+	 * Creates a FrequencySketch sized for a number of cache entries.
+	 *
+	 * @param capacity The number of entries of the cache using it
+	 */
+	public FrequencySketch(int capacity) {
+		int width = Integer.highestOneBit(Math.max(16, (int) Math.min(1 << 26, 4L * capacity)) - 1) << 1;
+		counters = new byte[ROWS * width];
+		mask = width - 1;
+		sampleSize = 10 * Math.max(1, capacity);
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Counts one more sighting of a key.
+	 *
+	 * @param hash The hash code of the key
+	 */
+	public void increment(int hash) {
+		boolean added = false;
+		for(int row = 0; row < ROWS; row++) {
+			int index = index(hash, row);
+			if(counters[index] < MAX_COUNT) {
+				counters[index]++;
+				added = true;
+			}
+		}
+		if(added && ++additions == sampleSize)
+			reset();
+	}
+
+	/**
+	 * Returns the estimated number of recent sightings of a key.
+	 *
+	 * @param hash The hash code of the key
+	 * @return the estimate, at most 15
+	 */
+	public int frequency(int hash) {
+		int ret = MAX_COUNT;
+		for(int row = 0; row < ROWS; row++)
+			ret = Math.min(ret, counters[index(hash, row)]);
+		return ret;
+	}
+
+	/** Halves every counter so old sightings count for less. */
+	private void reset() {
+		for(int i = 0; i < counters.length; i++)
+			counters[i] >>= 1;
+		additions /= 2;
+	}
+
+	/**
+	 * Returns the counter of a key in one row.
+	 *
+	 * @param hash The hash code of the key
+	 * @param row The row
+	 * @return the index into the counters
+	 */
+	private int index(int hash, int row) {
+		long h = (hash + SEEDS[row]) * SEEDS[row];
+		return row * (mask + 1) + ((int) (h >>> 32) & mask);
+	}
+}
@@ -0,0 +1,709 @@
+package gps;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * This Graph class is a data structure built to help aid in creating a basic GPS based off file
+ * input. The file is read by the MapFileParser into a CsrGraph, which numbers the vertices, keeps
+ * their edges in primitive arrays for Dijkstra to search, and indexes the symbols and addresses so
+ * start and end locations are found without scanning the vertices. The linked Vertex and Edge
+ * objects are only created if something asks for them.
+ * 
+ * The Graph has no static state. The cost type and whether locations are symbols or addresses
+ * come with each RouteQuery, so many queries can share one loaded Graph across threads.
+ * 
+ * Edge costs can change while queries run. updateEdgeCosts builds a new CsrGraph that shares
+ * everything but the changed cost array and swaps it in at once; a query keeps the CsrGraph it
+ * started with and never waits for an update.
+ * 
+ * @author wyattcombs
+ *
+ */
+public class Graph {
+	//=================================================================== Properties
+	private Vertex vertices;
+	private volatile CsrGraph csr;
+	private volatile Landmarks landmarks;
+	private volatile ContractionHierarchy[] hierarchies = new ContractionHierarchy[Metric.values().length];
+	private volatile GraphPartition partition;
+	private volatile OverlayWeights[] overlays = new OverlayWeights[Metric.values().length];
+	private String source;
+	private volatile long version;
+	private volatile RouteCache cache;
+	private final Object updateLock = new Object();
+	
+	//=================================================================== Constructors
+	//-- Workhorse Constructor
+	/**
+	 * Creates a new Graph object.
+	 * 
+	 * @param filename The name of the file being read
+	 * @throws IOException if the file can not be read or has a malformed line
+	 */
+	public Graph(String filename) throws IOException {
+		clear();
+		addData(filename);
+	}
+	
+	/**
+	 * Creates a Graph over an already built CsrGraph, such as one loaded from a GraphSnapshot.
+	 * 
+	 * @param csr The CsrGraph of the map
+	 */
+	public Graph(CsrGraph csr) {
+		this.csr = csr;
+	}
+	
+	/**
+	 * Creates a Graph from a binary snapshot written by saveSnapshot. The snapshot is memory-mapped
+	 * rather than parsed, so the Graph is ready almost at once however large the map is.
+	 * 
+	 * @param filename The name of the snapshot file
+	 * @return the Graph of the snapshot
+	 * @throws IOException if the file can not be read or is not a valid snapshot
+	 */
+	public static Graph fromSnapshot(String filename) throws IOException {
+		Graph ret = new Graph(GraphSnapshot.load(filename));
+		ret.source = filename;
+		return ret;
+	}
+	
+	//=================================================================== Methods
+	/** Clears the Graph object; used for constructor. */
+	public void clear() {
+		vertices = null;
+		csr = null;
+		landmarks = null;
+		hierarchies = new ContractionHierarchy[Metric.values().length];
+		partition = null;
+		overlays = new OverlayWeights[Metric.values().length];
+		source = null;
+		version++;
+	}
+	
+	/**
+	 * Populates the Graph object with the Vertices and Edges of a MapInformation file. The
+	 * <Nodes> and <Edges> sections are parsed in parallel by the MapFileParser.
+	 * 
+	 * @param filename The name of the file being read
+	 * @throws IOException if the file can not be read or has a malformed line
+	 */
+	public void addData(String filename) throws IOException {
+		CsrGraph parsed = MapFileParser.parse(filename);
+		synchronized(updateLock) {
+			synchronized(this) {
+				vertices = null;
+				csr = parsed;
+				landmarks = null;
+				hierarchies = new ContractionHierarchy[Metric.values().length];
+				partition = null;
+				overlays = new OverlayWeights[Metric.values().length];
+				source = filename;
+				version++;
+			}
+		}
+	}
+	
+	/**
+	 * Prepares Landmarks for ALT queries using the avoid heuristic.
+	 * 
+	 * @param count The number of landmarks
+	 * @throws IOException if the landmark file can not be written
+	 * @see #prepareLandmarks(int, LandmarkSelection)
+	 */
+	public void prepareLandmarks(int count) throws IOException {
+		prepareLandmarks(count, LandmarkSelection.AVOID);
+	}
+	
+	/**
+	 * Prepares Landmarks for ALT queries. The tables are kept in a file named after the map file
+	 * with Landmarks.EXTENSION added; a matching file is memory-mapped and any other is rebuilt and
+	 * overwritten. A Graph not read from a file keeps its Landmarks in memory only.
+	 * 
+	 * @param count The number of landmarks; more use more memory and give faster queries
+	 * @param selection How the landmarks are chosen
+	 * @throws IOException if the landmark file can not be written
+	 */
+	public void prepareLandmarks(int count, LandmarkSelection selection) throws IOException {
+		CsrGraph snapshot;
+		String file;
+		synchronized(this) {
+			snapshot = csr;
+			file = source == null ? null: source + Landmarks.EXTENSION;
+		}
+		Landmarks prepared = file == null ? Landmarks.build(snapshot, count, selection)
+				: Landmarks.loadOrBuild(snapshot, file, count, selection);
+		synchronized(this) {
+			if(csr == snapshot)
+				landmarks = prepared;
+		}
+	}
+	
+	/**
+	 * Prepares a ContractionHierarchy for CH queries in one Metric. The hierarchy is kept in a file
+	 * named after the map file with ContractionHierarchy.EXTENSION and the Metric added; a matching
+	 * file is memory-mapped and any other is rebuilt and overwritten. A Graph not read from a file
+	 * keeps its hierarchies in memory only.
+	 * 
+	 * @param metric The cost type of the hierarchy
+	 * @throws IOException if the hierarchy file can not be written
+	 */
+	public void prepareHierarchy(Metric metric) throws IOException {
+		CsrGraph snapshot;
+		String file;
+		synchronized(this) {
+			snapshot = csr;
+			file = source == null ? null
+					: source + ContractionHierarchy.EXTENSION + "." + metric.name().toLowerCase();
+		}
+		ContractionHierarchy prepared = file == null ? ContractionHierarchy.build(snapshot, metric)
+				: ContractionHierarchy.loadOrBuild(snapshot, file, metric);
+		synchronized(this) {
+			if(csr == snapshot) {
+				ContractionHierarchy[] next = hierarchies.clone();
+				next[metric.ordinal()] = prepared;
+				hierarchies = next;
+			}
+		}
+	}
+	
+	/**
+	 * Prepares an overlay for OVERLAY queries with cells of GraphPartition.DEFAULT_CELL_SIZE.
+	 * 
+	 * @see #prepareOverlay(int)
+	 */
+	public void prepareOverlay() {
+		prepareOverlay(GraphPartition.DEFAULT_CELL_SIZE);
+	}
+	
+	/**
+	 * Prepares an overlay for OVERLAY queries. The map is partitioned once, which does not depend
+	 * on any cost, and the partition is then customized for every Metric.
+	 * 
+	 * @param maxCellSize The most vertices in one cell
+	 */
+	public void prepareOverlay(int maxCellSize) {
+		CsrGraph snapshot = csr;
+		GraphPartition prepared = GraphPartition.build(snapshot, maxCellSize);
+		OverlayWeights[] customized = new OverlayWeights[Metric.values().length];
+		for(Metric metric: Metric.values())
+			customized[metric.ordinal()] = OverlayWeights.customize(prepared, metric);
+		synchronized(this) {
+			if(csr == snapshot) {
+				partition = prepared;
+				overlays = customized;
+			}
+		}
+	}
+	
+	/**
+	 * Customizes the prepared overlay for one Metric again, reusing the partition. This is all that
+	 * is needed after the costs of that Metric change.
+	 * 
+	 * @param metric The cost type to customize
+	 * @throws IllegalStateException if no overlay has been prepared
+	 */
+	public void customizeOverlay(Metric metric) {
+		CsrGraph snapshot;
+		GraphPartition current;
+		synchronized(this) {
+			snapshot = csr;
+			current = partition;
+		}
+		if(current == null)	throw new IllegalStateException("no overlay has been prepared");
+		OverlayWeights customized = OverlayWeights.customize(current, snapshot, metric);
+		synchronized(this) {
+			if(csr == snapshot && partition == current) {
+				OverlayWeights[] next = overlays.clone();
+				next[metric.ordinal()] = customized;
+				overlays = next;
+			}
+		}
+	}
+	
+	/**
+	 * Changes the costs of one Metric on some edges while queries keep running. Updates are applied
+	 * one at a time; queries never wait for them and see either all or none of an update. The
+	 * overlays are recustomized for the changed cells only, and the RouteCache keeps the paths of
+	 * the other Metrics and repairs its shortest path trees rather than dropping them. Landmarks
+	 * and hierarchies belong to the old costs, so ALT and CH queries fall back to Dijkstra until
+	 * they are prepared again.
+	 * 
+	 * @param metric The cost type to change
+	 * @param edges The indexes of the edges in the CsrGraph
+	 * @param costs The new cost of each of those edges
+	 * @throws IllegalArgumentException if an edge does not exist or a cost is negative
+	 */
+	public void updateEdgeCosts(Metric metric, int[] edges, int[] costs) {
+		synchronized(updateLock) {
+			CsrGraph current;
+			OverlayWeights[] currentOverlays;
+			long currentVersion;
+			synchronized(this) {
+				current = csr;
+				currentOverlays = overlays;
+				currentVersion = version;
+			}
+			for(int e: edges) {
+				if(e < 0 || e >= current.edgeCount())	throw new IllegalArgumentException("no edge " + e);
+			}
+			CsrGraph next = current.withCosts(metric, edges, costs);
+			
+			OverlayWeights[] nextOverlays = new OverlayWeights[currentOverlays.length];
+			for(Metric m: Metric.values()) {
+				OverlayWeights overlay = currentOverlays[m.ordinal()];
+				if(overlay != null && overlay.getGraph() == current)
+					nextOverlays[m.ordinal()] = overlay.recustomize(next, m == metric ? edges: new int[0]);
+			}
+			RouteCache routeCache = cache;
+			if(routeCache != null)
+				routeCache.update(currentVersion + 1, next, metric, edges);
+			
+			synchronized(this) {
+				if(csr != current)	return;
+				vertices = null;
+				overlays = nextOverlays;
+				csr = next;
+				version++;
+			}
+		}
+	}
+	
+	/**
+	 * Changes one cost of every Edge from one Vertex to another.
+	 * 
+	 * @param from The symbol or address of the Vertex the edges leave
+	 * @param to The symbol or address of the Vertex the edges enter
+	 * @param useAddress True if the locations are addresses, false if they are symbols
+	 * @param metric The cost type to change
+	 * @param cost The new cost
+	 * @return the number of edges changed; 0 if there is no such Edge
+	 * @see #updateEdgeCosts(Metric, int[], int[])
+	 */
+	public int updateEdgeCost(String from, String to, boolean useAddress, Metric metric, int cost) {
+		synchronized(updateLock) {
+			CsrGraph snapshot = csr;
+			int beg = findVertexId(snapshot, from, useAddress);
+			int goal = findVertexId(snapshot, to, useAddress);
+			if(beg < 0 || goal < 0)	return 0;
+			
+			int count = 0;
+			int[] edges = new int[snapshot.endEdge(beg) - snapshot.firstEdge(beg)];
+			for(int e = snapshot.firstEdge(beg); e < snapshot.endEdge(beg); e++) {
+				if(snapshot.getTarget(e) == goal)
+					edges[count++] = e;
+			}
+			if(count == 0)	return 0;
+			int[] costs = new int[count];
+			Arrays.fill(costs, cost);
+			updateEdgeCosts(metric, Arrays.copyOf(edges, count), costs);
+			return count;
+		}
+	}
+	
+	/**
+	 * Turns on caching of shortest path answers. A cache already in use is replaced.
+	 * 
+	 * @param routeCapacity The most paths kept
+	 * @param treeCapacity The most shortest path trees of hot sources kept, or 0 for none
+	 * @see RouteCache
+	 */
+	public void enableCache(int routeCapacity, int treeCapacity) {
+		cache = new RouteCache(routeCapacity, treeCapacity);
+	}
+	
+	/** Turns off caching of shortest path answers. */
+	public void disableCache() {
+		cache = null;
+	}
+	
+	/**
+	 * Saves the Graph as a binary snapshot that fromSnapshot can memory-map on the next start.
+	 * 
+	 * @param filename The name of the snapshot file
+	 * @throws IOException if the file can not be written
+	 */
+	public void saveSnapshot(String filename) throws IOException {
+		GraphSnapshot.write(csr, filename);
+	}
+	
+	/**
+	 * Creates the linked Vertex and Edge objects from the CsrGraph.
+	 * 
+	 * @param snapshot The CsrGraph to copy
+	 * @return the first Vertex of the chain
+	 */
+	private static Vertex buildVertices(CsrGraph snapshot) {
+		int n = snapshot.vertexCount();
+		Vertex[] ret = new Vertex[n];
+		for(int v = n - 1; v >= 0; v--) {
+			ret[v] = new Vertex(snapshot.getSymbol(v), snapshot.getAddress(v));
+			ret[v].setId(v);
+			if(v + 1 < n)
+				ret[v].setNextVert(ret[v + 1]);
+		}
+		for(int v = 0; v < n; v++) {
+			for(int e = snapshot.firstEdge(v); e < snapshot.endEdge(v); e++) {
+				Edge tmpEdge = new Edge(ret[snapshot.getTarget(e)], snapshot.getTimeCost(e),
+						snapshot.getDistanceCost(e), 0);
+				tmpEdge.setLaneCost(snapshot.getLaneCost(e));
+				ret[v].addEdge(tmpEdge);
+			}
+		}
+		
+		return n == 0 ? null: ret[0];
+	}
+	
+	/**
+	 * Finds the id of the Vertex in question or -1 if the Vertex can not be found. Searches
+	 * by address or symbol.
+	 * 
+	 * @param snapshot The CsrGraph being searched
+	 * @param location The symbol or address of the Vertex in question
+	 * @param useAddress True if location is an address, false if it is a symbol
+	 * @return the Vertex id if found
+	 */
+	private static int findVertexId(CsrGraph snapshot, String location, boolean useAddress) {
+		return !useAddress ? snapshot.indexOfSymbol(location): snapshot.indexOfAddress(location);
+	}
+	
+	/**
+	 * Finds the shortest path inside the Graph data structure from symbol start to symbol
+	 * end using the time cost.
+	 * 
+	 * @param start The symbol of the beginning Vertex
+	 * @param end The symbol of the ending Vertex
+	 * @return the shortest path as a Path object or null if either location is unknown
+	 */
+	public Path findShortestPath(String start, String end) {
+		return findShortestPath(new RouteQuery(start, end));
+	}
+	
+	/**
+	 * Finds the shortest path inside the Graph data structure for a RouteQuery.
+	 * 
+	 * @param query The start, end, cost type, algorithm and queue type of the search
+	 * @return the shortest path as a Path object or null if either location is unknown
+	 */
+	public Path findShortestPath(RouteQuery query) {
+		long current = version;
+		CsrGraph snapshot = csr;
+		int beg = findVertexId(snapshot, query.getStart(), query.isUseAddress());
+		int goal = findVertexId(snapshot, query.getEnd(), query.isUseAddress());
+		if(beg < 0 || goal < 0)	return null;
+		
+		RouteCache routeCache = cache;
+		if(routeCache != null)
+			return routeCache.find(current, snapshot, beg, goal, query.getMetric(),
+					() -> search(snapshot, query, beg, goal));
+		return search(snapshot, query, beg, goal);
+	}
+	
+	/**
+	 * Runs the search chosen by a RouteQuery, falling back to Dijkstra when the structure it needs
+	 * has not been prepared for the CsrGraph.
+	 * 
+	 * @param snapshot The CsrGraph being searched
+	 * @param query The cost type, algorithm and queue type of the search
+	 * @param beg The id of the start Vertex
+	 * @param goal The id of the end Vertex
+	 * @return the shortest path as a Path object or null if there is none
+	 */
+	private Path search(CsrGraph snapshot, RouteQuery query, int beg, int goal) {
+		if(query.getAlgorithm() == SearchAlgorithm.BIDIRECTIONAL)
+			return BidirectionalDijkstra.shortestPath(snapshot, beg, goal, query.getMetric());
+		Landmarks prepared = landmarks;
+		if(query.getAlgorithm() == SearchAlgorithm.ALT && prepared != null && prepared.getGraph() == snapshot)
+			return AltDijkstra.shortestPath(prepared, beg, goal, query.getMetric());
+		ContractionHierarchy ch = hierarchies[query.getMetric().ordinal()];
+		if(query.getAlgorithm() == SearchAlgorithm.CH && ch != null && ch.getGraph() == snapshot)
+			return HierarchyDijkstra.shortestPath(ch, beg, goal);
+		OverlayWeights overlay = overlays[query.getMetric().ordinal()];
+		if(query.getAlgorithm() == SearchAlgorithm.OVERLAY && overlay != null && overlay.getGraph() == snapshot)
+			return OverlayDijkstra.shortestPath(overlay, beg, goal);
+		return Dijkstra.shortestPath(snapshot, beg, goal, query.getMetric(), query.getQueueType());
+	}
+
+	/**
+	 * Computes the costs of the shortest paths from every source to every target. A prepared
+	 * ContractionHierarchy for the Metric is used when there is one; otherwise each source runs
+	 * one Dijkstra search that stops once all targets are settled. Sources run in parallel.
+	 * 
+	 * @param sources The symbols or addresses of the source vertices
+	 * @param targets The symbols or addresses of the target vertices
+	 * @param metric The cost type to minimize
+	 * @param useAddress True if the locations are addresses, false if they are symbols
+	 * @return the DistanceMatrix, with DistanceMatrix.UNREACHABLE for unknown locations and
+	 *         unreachable pairs
+	 */
+	public DistanceMatrix findDistanceMatrix(String[] sources, String[] targets, Metric metric, boolean useAddress) {
+		CsrGraph snapshot = csr;
+		int[] from = new int[sources.length];
+		for(int i = 0; i < sources.length; i++)
+			from[i] = findVertexId(snapshot, sources[i], useAddress);
+		int[] to = new int[targets.length];
+		for(int i = 0; i < targets.length; i++)
+			to[i] = findVertexId(snapshot, targets[i], useAddress);
+		
+		ContractionHierarchy ch = hierarchies[metric.ordinal()];
+		if(ch != null && ch.getGraph() == snapshot)
+			return DistanceMatrix.compute(ch, from, to);
+		return DistanceMatrix.compute(snapshot, from, to, metric);
+	}
+	
+	/**
+	 * Computes the cost of the shortest path from one location to every Vertex, for isochrones and
+	 * other bulk jobs. The edges are relaxed in parallel by DeltaStepping on the common ForkJoinPool.
+	 *
+	 * @param source The symbol or address of the start Vertex
+	 * @param metric The cost type to minimize
+	 * @param useAddress True if source is an address, false if it is a symbol
+	 * @return the cost to each vertex id, Integer.MAX_VALUE where there is no path, or null if the
+	 *         location is unknown
+	 */
+	public int[] findDistances(String source, Metric metric, boolean useAddress) {
+		CsrGraph snapshot = csr;
+		int from = findVertexId(snapshot, source, useAddress);
+		if(from < 0)	return null;
+		int[] ret = new int[snapshot.vertexCount()];
+		new DeltaStepping().shortestPathTree(snapshot, from, metric, false, ret, null);
+		return ret;
+	}
+
+	/**
+	 * Finds the trade-off front of a RouteQuery with ParetoSearch.DEFAULT_LABEL_CAP labels per
+	 * vertex.
+	 * 
+	 * @param query The start and end of the search; its Metric orders the routes
+	 * @return the Pareto-optimal routes
+	 * @see #findParetoRoutes(RouteQuery, int)
+	 */
+	public List<ParetoRoute> findParetoRoutes(RouteQuery query) {
+		return findParetoRoutes(query, ParetoSearch.DEFAULT_LABEL_CAP);
+	}
+	
+	/**
+	 * Finds every route of a RouteQuery that no other route beats in time, distance and lane cost
+	 * together, with one ParetoSearch rather than a search per Metric.
+	 * 
+	 * @param query The start and end of the search; its Metric orders the routes
+	 * @param labelCap The most labels kept at one vertex, at least one per Metric
+	 * @return the Pareto-optimal routes, cheapest in the query's Metric first; empty if either
+	 *         location is unknown
+	 */
+	public List<ParetoRoute> findParetoRoutes(RouteQuery query, int labelCap) {
+		CsrGraph snapshot = csr;
+		int beg = findVertexId(snapshot, query.getStart(), query.isUseAddress());
+		int goal = findVertexId(snapshot, query.getEnd(), query.isUseAddress());
+		if(beg < 0 || goal < 0)	return new ArrayList<>();
+		
+		List<ParetoRoute> ret = ParetoSearch.search(snapshot, beg, goal, labelCap);
+		ret.sort(Comparator.comparingInt(route -> route.getCost(query.getMetric())));
+		return ret;
+	}
+	
+	/**
+	 * Finds up to a number of the cheapest loopless paths inside the Graph data structure from
+	 * symbol start to symbol end using the time cost.
+	 * 
+	 * @param start The symbol of the beginning Vertex
+	 * @param end The symbol of the ending Vertex
+	 * @param maxPaths The most paths to return
+	 * @return the paths in order of cost as a LinkedList of Path objects
+	 */
+	public LinkedList<Path> findPaths(String start, String end, int maxPaths) {
+		return findPaths(new RouteQuery(start, end), maxPaths);
+	}
+	
+	/**
+	 * Finds up to a number of the cheapest loopless paths inside the Graph data structure for a
+	 * RouteQuery.
+	 * 
+	 * @param query The start, end and cost type of the search
+	 * @param maxPaths The most paths to return
+	 * @return the paths in order of cost as a LinkedList of Path objects
+	 */
+	public LinkedList<Path> findPaths(RouteQuery query, int maxPaths) {
+		LinkedList<Path> ret = new LinkedList<>();
+		pathIterator(query, maxPaths, KShortestPaths.UNLIMITED).forEachRemaining(ret::add);
+		return ret;
+	}
+	
+	/**
+	 * Returns an Iterator over the loopless paths of a RouteQuery in order of cost. Each path is
+	 * only searched for when the Iterator is advanced, so a caller can stop at any time.
+	 * 
+	 * @param query The start, end and cost type of the search
+	 * @param maxPaths The most paths to return, or KShortestPaths.UNLIMITED
+	 * @param costCeiling The highest cost of a returned path, or KShortestPaths.UNLIMITED
+	 * @return the paths; empty if either location is unknown
+	 */
+	public Iterator<Path> pathIterator(RouteQuery query, int maxPaths, int costCeiling) {
+		CsrGraph snapshot = csr;
+		int beg = findVertexId(snapshot, query.getStart(), query.isUseAddress());
+		int goal = findVertexId(snapshot, query.getEnd(), query.isUseAddress());
+		if(beg < 0 || goal < 0)	return Collections.emptyIterator();
+		
+		return new KShortestPaths(snapshot, beg, goal, query.getMetric(), maxPaths, costCeiling);
+	}
+	
+	/**
+	 * Returns the symbols or addresses that start with a prefix, ignoring case, for type-ahead.
+	 * The PrefixIndex is built the first time it is needed.
+	 * 
+	 * @param prefix The start of the locations
+	 * @param useAddress True for addresses, false for symbols
+	 * @param limit The most locations returned
+	 * @return the locations in alphabetical order
+	 */
+	public String[] complete(String prefix, boolean useAddress, int limit) {
+		CsrGraph snapshot = csr;
+		SymbolIndex names = useAddress ? snapshot.getAddresses(): snapshot.getSymbols();
+		return names.getPrefixIndex().complete(prefix, limit);
+	}
+	
+	/**
+	 * Creates an array of all Vertex addresses or symbols.
+	 * 
+	 * @param useAddress True for addresses, false for symbols
+	 * @return an array of all symbols or addresses of the vertices
+	 */
+	public String[] toArray(boolean useAddress) {
+		return useAddress ? toAddressArray(): toSymbolsArray();
+	}
+	
+	/**
+	 * Creates an array of all Vertex symbols.
+	 * 
+	 * @return an array of all symbols of the vertices
+	 */
+	public String[] toSymbolsArray() {
+		return csr.getSymbols().toArray();
+	}
+	
+	/**
+	 * Creates an array of all Vertex addresses.
+	 * 
+	 * @return an array of all addresses of the vertices
+	 */
+	public String[] toAddressArray() {
+		return csr.getAddresses().toArray();
+	}
+	
+	/**
+	 * Returns the CsrGraph built from the vertices and edges.
+	 * 
+	 * @return the CsrGraph of this Graph
+	 */
+	public CsrGraph getCsr() {
+		return csr;
+	}
+	
+	/**
+	 * Returns the version of the Graph, which changes every time its CsrGraph is replaced.
+	 * 
+	 * @return the version
+	 */
+	public long getVersion() {
+		return version;
+	}
+	
+	/**
+	 * Returns the RouteCache answering shortest path queries, or null if caching is off.
+	 * 
+	 * @return the RouteCache
+	 */
+	public RouteCache getCache() {
+		return cache;
+	}
+	
+	/**
+	 * Returns the Landmarks used for ALT queries, or null if they have not been prepared.
+	 * 
+	 * @return the Landmarks
+	 */
+	public Landmarks getLandmarks() {
+		return landmarks;
+	}
+	
+	/**
+	 * Returns the ContractionHierarchy used for CH queries in a Metric, or null if it has not been
+	 * prepared.
+	 * 
+	 * @param metric The cost type of the hierarchy
+	 * @return the ContractionHierarchy
+	 */
+	public ContractionHierarchy getHierarchy(Metric metric) {
+		return hierarchies[metric.ordinal()];
+	}
+	
+	/**
+	 * Returns the GraphPartition used for OVERLAY queries, or null if it has not been prepared.
+	 * 
+	 * @return the GraphPartition
+	 */
+	public GraphPartition getPartition() {
+		return partition;
+	}
+	
+	/**
+	 * Returns the OverlayWeights used for OVERLAY queries in a Metric, or null if they have not
+	 * been prepared.
+	 * 
+	 * @param metric The cost type of the overlay
+	 * @return the OverlayWeights
+	 */
+	public OverlayWeights getOverlay(Metric metric) {
+		return overlays[metric.ordinal()];
+	}
+	
+	/**
+	 * Returns the first Vertex of the Vertex chain.
+	 * 
+	 * @return the first Vertex
+	 */
+	public synchronized Vertex getVertices() {
+		if(vertices == null)
+			vertices = buildVertices(csr);
+		return vertices;
+	}
+	
+	/**
+	 * Lists every Vertex with its Edges.
+	 * 
+	 * @param useAddress True to print addresses, false to print symbols
+	 * @param metric The cost type printed for each Edge
+	 * @return the Graph as a String
+	 */
+	public String toString(boolean useAddress, Metric metric) {
+		StringBuilder ret = new StringBuilder();
+		Vertex tmp = getVertices();
+		while(tmp != null) {
+			ret.append(tmp.toString(useAddress, metric)).append("\n");
+			tmp = tmp.getNextVert();
+		}
+		
+		return ret.toString();
+	}
+	
+	@Override
+	public String toString() {
+		return toString(true, Metric.TIME);
+	}
+	
+	//=================================================================== Class Testing
+	public static void main(String[] args) throws IOException {
+		// Test Graph object below //
+		
+		Graph test = new Graph("MapInformation-1.txt");
+		System.out.println(test);
+
+	}
+}
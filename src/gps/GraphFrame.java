@@ -1,9 +1,14 @@
+package gps;
+
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.LinkedList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.BorderFactory;
 import javax.swing.ButtonGroup;
@@ -16,9 +21,14 @@ import javax.swing.JPanel;
 import javax.swing.JRadioButton;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import javax.swing.border.EtchedBorder;
 import javax.swing.border.LineBorder;
 import javax.swing.border.TitledBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 /**
  * This GraphFrame class is a basic GUI to allow for user interaction of the Graph data
@@ -30,6 +40,15 @@ import javax.swing.border.TitledBorder;
  * instructions(both in the same text box). There are listeners in place for the buttons and
  * radio button choices. This GraphFrame class extends the JFrame class.
  * 
+ * Paths are calculated by a RouteWorker off the event dispatch thread, so the window stays
+ * responsive on large maps. The shortest path is shown as soon as it is found and each
+ * alternative path is added to the text box as it is found. Changing the start or end location
+ * or calculating again cancels the calculation that is running.
+ * 
+ * The location boxes are type-ahead fields: they only hold the locations that start with what has
+ * been typed, found with the map's PrefixIndex, so they stay quick on maps with hundreds of
+ * thousands of locations.
+ * 
  * @author wyattcombs
  *
  */
@@ -39,11 +58,15 @@ public class GraphFrame extends JFrame {
 	// Window size constants
 	private static final int FRAME_WIDTH = 775;
 	private static final int FRAME_HEIGHT = 435;
+	// Most alternative paths listed
+	private static final int MAX_PATHS = 10;
+	// Most locations suggested while typing
+	private static final int MAX_SUGGESTIONS = 20;
 	public Graph map;
 	
-	// Arrays of symbols and addresses
-	private String[] symbolArr;
-	private String[] addressArr;
+	// User choices passed to every RouteQuery
+	private Metric metric;
+	private boolean useAddress;
 	
 	// Window Elements
 	private JPanel panel;
@@ -62,10 +85,6 @@ public class GraphFrame extends JFrame {
 	private JTextArea pathInfo;
 	private JComboBox<String> startLocation;
 	private JComboBox<String> endLocation;
-	private DefaultComboBoxModel<String> option1;
-	private DefaultComboBoxModel<String> option2;
-	private DefaultComboBoxModel<String> option3;
-	private DefaultComboBoxModel<String> option4;
 	private JLabel radioInfo;
 	private ButtonGroup returnAddressGroup;
 	private ButtonGroup useDistGroup;
@@ -74,6 +93,11 @@ public class GraphFrame extends JFrame {
 	private JRadioButton timeCost;
 	private JRadioButton distCost;
 	private JRadioButton laneCost;
+	
+	// The calculation running in the background, if any
+	private RouteWorker worker;
+	// True while the suggestions of a location box are being replaced
+	private boolean suggesting;
 
 	//=================================================================== Constructors
 	/**
@@ -84,6 +108,8 @@ public class GraphFrame extends JFrame {
 	//-- Workhorse Constructor
 	public GraphFrame(Graph map) {
 		this.map = map;
+		metric = Metric.TIME;
+		useAddress = false;
 		createComponents();
 		
 		setName("GPS V1.0");
@@ -103,14 +129,10 @@ public class GraphFrame extends JFrame {
 		pathInfo = new JTextArea("Click Instructions", 10, 18);
 		pathInfo.setEditable(false);
 		scrollPaths = new JScrollPane(pathInfo);
-		symbolArr = map.toSymbolsArray();
-		addressArr = map.toAddressArray();
-		option1 = new DefaultComboBoxModel<>(addressArr);
-		option2 = new DefaultComboBoxModel<>(symbolArr);
-		option3 = new DefaultComboBoxModel<>(addressArr);
-		option4 = new DefaultComboBoxModel<>(symbolArr);
-		startLocation = new JComboBox<>(Graph.returnAddress ? addressArr: symbolArr);
-		endLocation = new JComboBox<>(Graph.returnAddress ? addressArr: symbolArr);
+		startLocation = new JComboBox<>(map.complete("", useAddress, MAX_SUGGESTIONS));
+		endLocation = new JComboBox<>(map.complete("", useAddress, MAX_SUGGESTIONS));
+		addTypeAhead(startLocation);
+		addTypeAhead(endLocation);
 		
 		radioInfo = new JLabel("Options:");
 		returnAddressGroup = new ButtonGroup();
@@ -141,6 +163,75 @@ public class GraphFrame extends JFrame {
 		laneCost.addActionListener(new useDistCostListener());
 		symbols.addActionListener(new returnAddressListener());
 		addresses.addActionListener(new returnAddressListener());
+		startLocation.addActionListener(new locationListener());
+		endLocation.addActionListener(new locationListener());
+	}
+	
+	/**
+	 * Makes a location box editable and suggests the locations that start with what has been
+	 * typed, looked up in the map's PrefixIndex on every keystroke, so the box never holds more
+	 * than MAX_SUGGESTIONS locations however large the map is.
+	 * 
+	 * @param box The start or end location box
+	 */
+	private void addTypeAhead(JComboBox<String> box) {
+		box.setEditable(true);
+		JTextField editor = (JTextField) box.getEditor().getEditorComponent();
+		editor.getDocument().addDocumentListener(new DocumentListener() {
+			
+			@Override
+			public void insertUpdate(DocumentEvent e) {
+				if(!suggesting)
+					SwingUtilities.invokeLater(() -> suggest(box, editor));
+			}
+			
+			@Override
+			public void removeUpdate(DocumentEvent e) {
+				if(!suggesting)
+					SwingUtilities.invokeLater(() -> suggest(box, editor));
+			}
+			
+			@Override
+			public void changedUpdate(DocumentEvent e) {
+				// Attribute changes do not change the text
+			}
+			
+		});
+	}
+	
+	/**
+	 * Replaces the suggestions of a location box with the locations that start with its text,
+	 * keeping the text and caret where the user left them. Nothing changes when the text is just
+	 * the box's selection, as after a suggestion is picked.
+	 * 
+	 * @param box The start or end location box
+	 * @param editor The text field of the box
+	 */
+	private void suggest(JComboBox<String> box, JTextField editor) {
+		String text = editor.getText();
+		if(suggesting || text.equals(box.getSelectedItem()))	return;
+		int caret = editor.getCaretPosition();
+		suggesting = true;
+		box.setModel(new DefaultComboBoxModel<>(map.complete(text, useAddress, MAX_SUGGESTIONS)));
+		box.setSelectedItem(text);
+		editor.setCaretPosition(Math.min(caret, text.length()));
+		suggesting = false;
+		if(editor.hasFocus() && box.isShowing()) {
+			box.hidePopup();
+			box.showPopup();
+		}
+	}
+	
+	/**
+	 * Cancels the running calculation, if any.
+	 * 
+	 * @return true if a calculation was cancelled
+	 */
+	private boolean cancelWorker() {
+		if(worker == null || worker.isDone())	return false;
+		worker.cancel(true);
+		worker = null;
+		return true;
 	}
 	
 	/** Creates panels needed to design the GUI and incorporate all elements. */
@@ -242,19 +333,76 @@ public class GraphFrame extends JFrame {
 			String startChoice = (String) startLocation.getSelectedItem();
 			String endChoice = (String) endLocation.getSelectedItem();
 			
-			StringBuilder ret = new StringBuilder();
-			Path shortPath = map.findShortestPath(startChoice, endChoice);
-			ret.append("Shortest Path:\n").append((shortPath == null) ? "No Path": shortPath.toString());
-			ret.append("\n\n").append("Possible Paths:\n");
+			cancelWorker();
+			pathInfo.setText("Calculating...");
+			worker = new RouteWorker(new RouteQuery(startChoice, endChoice, metric, useAddress));
+			worker.execute();
+		}
+		
+	}
+	
+	class locationListener implements ActionListener {
+
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			if(cancelWorker())
+				pathInfo.setText("Calculation cancelled");
+		}
+		
+	}
+	
+	/**
+	 * Finds the shortest path and then the alternative paths of a RouteQuery in the background,
+	 * publishing the text of each as soon as it is known. Only the RouteWorker the frame is
+	 * waiting for writes to pathInfo, so a cancelled one that is still finishing a search can not
+	 * mix its paths into the new ones.
+	 */
+	class RouteWorker extends SwingWorker<Void, String> {
+		private final RouteQuery query;
+		private boolean first = true;
+		
+		RouteWorker(RouteQuery query) {
+			this.query = query;
+		}
+
+		@Override
+		protected Void doInBackground() {
+			Path shortPath = map.findShortestPath(query);
+			if(isCancelled())	return null;
+			publish("Shortest Path:\n" + ((shortPath == null) ? "No Path": shortPath.toString()) + "\n\n"
+					+ "Possible Paths:\n");
 			
-			LinkedList<Path> paths = map.findAllPaths(startChoice, endChoice);
-			if(paths.isEmpty())
-				ret.append("No Path\n");
-			for(Path p: paths) {
-				ret.append(p.toString()).append("\n");
+			Iterator<Path> paths = map.pathIterator(query, MAX_PATHS, KShortestPaths.UNLIMITED);
+			if(!paths.hasNext())
+				publish("No Path\n");
+			while(!isCancelled() && paths.hasNext())
+				publish(paths.next().toString() + "\n");
+			return null;
+		}
+		
+		@Override
+		protected void process(List<String> chunks) {
+			if(worker != this)	return;
+			for(String chunk: chunks) {
+				if(first)
+					pathInfo.setText(chunk);
+				else
+					pathInfo.append(chunk);
+				first = false;
+			}
+		}
+		
+		@Override
+		protected void done() {
+			if(worker != this)	return;
+			worker = null;
+			try {
+				get();
+			} catch (CancellationException | InterruptedException e) {
+				// Replaced by a newer calculation
+			} catch (ExecutionException e) {
+				pathInfo.setText("Calculation failed: " + e.getCause());
 			}
-			
-			pathInfo.setText(ret.toString());
 		}
 		
 	}
@@ -263,14 +411,12 @@ public class GraphFrame extends JFrame {
 
 		@Override
 		public void actionPerformed(ActionEvent e) {
-			if(distCost.isSelected()) {
-				Graph.useDistCost = true;
-				Graph.useLaneCost = false;
-			} else if(timeCost.isSelected()) {
-				Graph.useDistCost = false;
-				Graph.useLaneCost = false;
-			} else
-				Graph.useLaneCost = true;
+			if(distCost.isSelected())
+				metric = Metric.DISTANCE;
+			else if(timeCost.isSelected())
+				metric = Metric.TIME;
+			else
+				metric = Metric.LANE;
 		}
 		
 	}
@@ -280,12 +426,15 @@ public class GraphFrame extends JFrame {
 		@Override
 		public void actionPerformed(ActionEvent e) {
 			if(symbols.isSelected())
-				Graph.returnAddress = false;
+				useAddress = false;
 			else if(addresses.isSelected())
-				Graph.returnAddress = true;
+				useAddress = true;
 			
-			startLocation.setModel(Graph.returnAddress ? option1: option2);
-			endLocation.setModel(Graph.returnAddress ? option3: option4);
+			// The new models rewrite the editors' text, which must not start a suggestion
+			suggesting = true;
+			startLocation.setModel(new DefaultComboBoxModel<>(map.complete("", useAddress, MAX_SUGGESTIONS)));
+			endLocation.setModel(new DefaultComboBoxModel<>(map.complete("", useAddress, MAX_SUGGESTIONS)));
+			suggesting = false;
 		}
 		
 	}
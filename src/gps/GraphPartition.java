@@ -0,0 +1,550 @@
+package gps;
+
+import java.util.Arrays;
+
+/**
+ * This GraphPartition class is the metric-independent half of customizable route planning. The
+ * vertices of a CsrGraph are split into nested cells on several levels: every cell of a level is
+ * made of whole cells of the level below, and each level's cells are a fixed factor larger than
+ * the ones below them. Only the shape of the map is used, never its costs, so one GraphPartition
+ * serves all three Metric types and stays valid when costs change.
+ *
+ * The cells come from recursive bisection with small cuts. A breadth-first search from a vertex
+ * at the edge of the part being cut orders its vertices by how far they are from that edge; the
+ * nearest quarter and the farthest quarter are then separated by a minimum cut, found as a
+ * maximum flow with every road of capacity one. The map file has no coordinates, so the search
+ * stands in for the projection that inertial flow partitioners use. Both halves keep at least a
+ * quarter of the vertices, and of the two extreme minimum cuts the more balanced one is kept.
+ *
+ * A boundary vertex of a level has an Edge to or from another cell of that level; it is then a
+ * boundary vertex of every lower level too. The overlay of a level is a clique between the
+ * boundary vertices of each cell; OverlayWeights fills in the clique costs for one Metric.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class GraphPartition {
+	//=================================================================== Properties
+	public static final int DEFAULT_CELL_SIZE = 256;
+	public static final int LEVEL_FACTOR = 8;
+	private final CsrGraph graph;
+	private final int[] cellSizes;
+	private final int[][] cellOf;
+	private final int[] cellCounts;
+	private final int[][] boundaryOffsets;
+	private final int[][] boundary;
+	private final int[][] boundaryIndex;
+	private final int[][] cliqueOffsets;
+
+	//=================================================================== Constructors
+	//-- Workhorse Constructor
+	/**
+	 * Creates a GraphPartition from the cell of each vertex on each level and finds the boundary
+	 * vertices. Level 0 has the smallest cells.
+	 *
+	 * @param graph The CsrGraph that was partitioned
+	 * @param cellSizes The most vertices in one cell of each level
+	 * @param cellOf The cell of each vertex on each level
+	 * @param cellCounts The number of cells on each level
+	 */
+	public GraphPartition(CsrGraph graph, int[] cellSizes, int[][] cellOf, int[] cellCounts) {
+		int n = graph.vertexCount();
+		int levels = cellSizes.length;
+		if(levels < 1 || cellOf.length != levels || cellCounts.length != levels)
+			throw new IllegalArgumentException("every level needs its cells");
+		this.graph = graph;
+		this.cellSizes = cellSizes.clone();
+		this.cellOf = cellOf;
+		this.cellCounts = cellCounts.clone();
+		boundaryOffsets = new int[levels][];
+		boundary = new int[levels][];
+		boundaryIndex = new int[levels][];
+		cliqueOffsets = new int[levels][];
+
+		for(int level = 0; level < levels; level++) {
+			int[] cells = cellOf[level];
+			if(cells.length != n)	throw new IllegalArgumentException("cellOf does not match the graph");
+			boolean[] isBoundary = new boolean[n];
+			for(int v = 0; v < n; v++) {
+				for(int e = graph.firstEdge(v); e < graph.endEdge(v); e++) {
+					int w = graph.getTarget(e);
+					if(cells[w] != cells[v]) {
+						isBoundary[v] = true;
+						isBoundary[w] = true;
+					}
+				}
+			}
+
+			int cellCount = cellCounts[level];
+			int[] offsets = new int[cellCount + 1];
+			for(int v = 0; v < n; v++) {
+				if(isBoundary[v])	offsets[cells[v] + 1]++;
+			}
+			for(int c = 0; c < cellCount; c++)
+				offsets[c + 1] += offsets[c];
+			int[] vertices = new int[offsets[cellCount]];
+			int[] index = new int[n];
+			int[] next = new int[cellCount];
+			for(int v = 0; v < n; v++) {
+				index[v] = -1;
+				if(isBoundary[v]) {
+					int c = cells[v];
+					index[v] = next[c];
+					vertices[offsets[c] + next[c]++] = v;
+				}
+			}
+
+			int[] cliques = new int[cellCount + 1];
+			for(int c = 0; c < cellCount; c++) {
+				long size = offsets[c + 1] - offsets[c];
+				cliques[c + 1] = Math.toIntExact(cliques[c] + size * size);
+			}
+			boundaryOffsets[level] = offsets;
+			boundary[level] = vertices;
+			boundaryIndex[level] = index;
+			cliqueOffsets[level] = cliques;
+		}
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Partitions a CsrGraph into cells of at most a number of vertices, with further levels of
+	 * cells LEVEL_FACTOR times larger than the ones below for as long as a level has more than one
+	 * cell.
+	 *
+	 * @param csr The CsrGraph to partition
+	 * @param maxCellSize The most vertices in one cell of the lowest level
+	 * @return the GraphPartition
+	 */
+	public static GraphPartition build(CsrGraph csr, int maxCellSize) {
+		if(maxCellSize < 1)	throw new IllegalArgumentException("maxCellSize must be at least 1");
+		int levels = 1;
+		for(long size = (long) maxCellSize * LEVEL_FACTOR; size < csr.vertexCount(); size *= LEVEL_FACTOR)
+			levels++;
+		int[] cellSizes = new int[levels];
+		cellSizes[0] = maxCellSize;
+		for(int level = 1; level < levels; level++)
+			cellSizes[level] = cellSizes[level - 1] * LEVEL_FACTOR;
+		return build(csr, cellSizes);
+	}
+
+	/**
+	 * Partitions a CsrGraph into nested levels of cells by recursive bisection. A part is cut in
+	 * two until it fits in a cell of the lowest level, and on every level each vertex belongs to
+	 * the largest part holding it that fits in a cell of that level.
+	 *
+	 * @param csr The CsrGraph to partition
+	 * @param cellSizes The most vertices in one cell of each level, smallest first
+	 * @return the GraphPartition
+	 */
+	public static GraphPartition build(CsrGraph csr, int[] cellSizes) {
+		if(cellSizes.length == 0 || cellSizes[0] < 1)
+			throw new IllegalArgumentException("cell sizes must be at least 1");
+		for(int level = 1; level < cellSizes.length; level++) {
+			if(cellSizes[level] <= cellSizes[level - 1])
+				throw new IllegalArgumentException("cell sizes must increase from level to level");
+		}
+		csr.buildReverse();
+		int n = csr.vertexCount();
+		int levels = cellSizes.length;
+		int[] order = new int[n];
+		for(int v = 0; v < n; v++)
+			order[v] = v;
+		int[][] cellOf = new int[levels][n];
+		int[] cellCounts = new int[levels];
+		Bisection bisection = new Bisection(csr);
+
+		// Each part on the stack is its range of order and the size of the part it was cut from
+		int[] stack = new int[96];
+		int top = 0;
+		stack[top++] = 0;
+		stack[top++] = n;
+		stack[top++] = Integer.MAX_VALUE;
+		while(top > 0) {
+			int parent = stack[--top];
+			int hi = stack[--top];
+			int lo = stack[--top];
+			int size = hi - lo;
+			for(int level = 0; level < levels; level++) {
+				if(size <= cellSizes[level] && parent > cellSizes[level]) {
+					for(int i = lo; i < hi; i++)
+						cellOf[level][order[i]] = cellCounts[level];
+					cellCounts[level]++;
+				}
+			}
+			if(size <= cellSizes[0])	continue;
+
+			int mid = bisection.cut(order, lo, hi);
+			if(top + 6 > stack.length)
+				stack = Arrays.copyOf(stack, 2 * stack.length);
+			stack[top++] = lo;
+			stack[top++] = mid;
+			stack[top++] = size;
+			stack[top++] = mid;
+			stack[top++] = hi;
+			stack[top++] = size;
+		}
+		return new GraphPartition(csr, cellSizes, cellOf, cellCounts);
+	}
+
+	/**
+	 * Returns the number of boundary vertices of a cell.
+	 *
+	 * @param level The level of the cell
+	 * @param cell The cell
+	 * @return the boundary vertex count
+	 */
+	public int boundarySize(int level, int cell) {
+		return boundaryOffsets[level][cell + 1] - boundaryOffsets[level][cell];
+	}
+
+	/**
+	 * Returns a boundary vertex of a cell.
+	 *
+	 * @param level The level of the cell
+	 * @param cell The cell
+	 * @param index The index of the vertex among the cell's boundary vertices
+	 * @return the vertex id
+	 */
+	public int getBoundary(int level, int cell, int index) {
+		return boundary[level][boundaryOffsets[level][cell] + index];
+	}
+
+	/**
+	 * Returns the number of boundary vertices of all cells of a level.
+	 *
+	 * @param level The level
+	 * @return the boundary vertex count
+	 */
+	public int boundaryCount(int level) {
+		return boundary[level].length;
+	}
+
+	/**
+	 * Returns where the clique of a cell starts in the arrays of OverlayWeights. The cost from
+	 * boundary vertex i to boundary vertex j of the cell is at cliqueStart(level, cell) + i * size
+	 * + j.
+	 *
+	 * @param level The level of the cell
+	 * @param cell The cell
+	 * @return the first clique index
+	 */
+	public int cliqueStart(int level, int cell) {
+		return cliqueOffsets[level][cell];
+	}
+
+	/**
+	 * Returns the total size of all cliques of a level.
+	 *
+	 * @param level The level
+	 * @return the number of overlay edges
+	 */
+	public int cliqueSize(int level) {
+		return cliqueOffsets[level][cellCounts[level]];
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder ret = new StringBuilder();
+		for(int level = 0; level < getLevelCount(); level++) {
+			ret.append(level == 0 ? "": "; ").append("level ").append(level).append(": ")
+					.append(cellCounts[level]).append(" cells of at most ").append(cellSizes[level])
+					.append(", ").append(boundaryCount(level)).append(" boundary vertices");
+		}
+		return ret.toString();
+	}
+
+	//=================================================================== Getters / Setters
+	public CsrGraph getGraph() 								{	return graph;							}
+	public int getLevelCount() 								{	return cellSizes.length;				}
+	public int getCellSize(int level) 						{	return cellSizes[level];				}
+	public int getCellCount(int level) 						{	return cellCounts[level];				}
+	public int getCell(int level, int vertex) 				{	return cellOf[level][vertex];			}
+	public int getBoundaryIndex(int level, int vertex) 		{	return boundaryIndex[level][vertex];	}
+
+	//=================================================================== Bisection
+	/**
+	 * The scratch arrays of the recursive bisection, which cuts one part at a time. Roads are
+	 * treated as undirected with a capacity of one each way, so the flow of an edge runs from -1
+	 * (from its target to its source) to 1.
+	 */
+	private static final class Bisection {
+		private static final int MIDDLE = 0;
+		private static final int SOURCE = 1;
+		private static final int SINK = 2;
+		private final CsrGraph csr;
+		private final int[] part;
+		private final int[] visited;
+		private final int[] role;
+		private final int[] distance;
+		private final int[] arc;
+		private final int[] queue;
+		private final int[] path;
+		private final byte[] flow;
+		private int stamp;
+
+		/**
+		 * Creates the scratch arrays for a CsrGraph whose reverse adjacency is built.
+		 *
+		 * @param csr The CsrGraph to partition
+		 */
+		Bisection(CsrGraph csr) {
+			int n = csr.vertexCount();
+			this.csr = csr;
+			part = new int[n];
+			visited = new int[n];
+			role = new int[n];
+			distance = new int[n];
+			arc = new int[n];
+			queue = new int[n];
+			path = new int[n];
+			flow = new byte[csr.edgeCount()];
+		}
+
+		/**
+		 * Cuts a part in two and reorders it so that the first half comes first.
+		 *
+		 * @param order The vertices of all parts; the part is order[lo] up to order[hi]
+		 * @param lo The first index of the part
+		 * @param hi One past the last index of the part
+		 * @return the index where the second half starts
+		 */
+		int cut(int[] order, int lo, int hi) {
+			int size = hi - lo;
+			int partStamp = ++stamp;
+			for(int i = lo; i < hi; i++) {
+				int v = order[i];
+				part[v] = partStamp;
+				for(int e = csr.firstEdge(v); e < csr.endEdge(v); e++)
+					flow[e] = 0;
+			}
+
+			// A vertex at the far end of the first vertex's component starts the ordering search
+			int far = queue[bfs(order[lo], ++stamp, 0) - 1];
+			int visitStamp = ++stamp;
+			int reached = bfs(far, visitStamp, 0);
+			for(int i = lo; i < hi && reached < size; i++) {
+				if(visited[order[i]] != visitStamp)
+					reached = bfs(order[i], visitStamp, reached);
+			}
+
+			int terminals = Math.max(1, size / 4);
+			for(int i = 0; i < size; i++)
+				role[queue[i]] = i < terminals ? SOURCE: i >= size - terminals ? SINK: MIDDLE;
+			while(layer(order, lo, hi))
+				blockingFlow(order, lo, hi);
+
+			// The vertices the last layering reached are the source side of the smallest minimum cut
+			int sourceSide = 0;
+			for(int i = lo; i < hi; i++) {
+				if(distance[order[i]] >= 0)	sourceSide++;
+			}
+			int sinkSide = markSinkSide(order, lo, hi);
+			boolean fromSink = Math.abs(size - sinkSide - size / 2) < Math.abs(sourceSide - size / 2);
+			int first = 0;
+			int second = size;
+			for(int i = lo; i < hi; i++) {
+				int v = order[i];
+				boolean sourceHalf = fromSink ? visited[v] != stamp: distance[v] >= 0;
+				if(sourceHalf)
+					queue[first++] = v;
+				else
+					queue[--second] = v;
+			}
+			System.arraycopy(queue, 0, order, lo, size);
+			return lo + first;
+		}
+
+		/**
+		 * Runs a breadth-first search over Edges in both directions inside the part, appending the
+		 * vertices it reaches to the queue.
+		 *
+		 * @param source The id of the first vertex
+		 * @param visitStamp Marks the vertices reached by this and earlier searches of one ordering
+		 * @param tail The number of vertices already in the queue
+		 * @return the new number of vertices in the queue
+		 */
+		private int bfs(int source, int visitStamp, int tail) {
+			int head = tail;
+			queue[tail++] = source;
+			visited[source] = visitStamp;
+			int partStamp = part[source];
+			while(head < tail) {
+				int v = queue[head++];
+				int degree = degree(v);
+				for(int a = 0; a < degree; a++) {
+					int w = neighbor(v, a);
+					if(part[w] == partStamp && visited[w] != visitStamp) {
+						visited[w] = visitStamp;
+						queue[tail++] = w;
+					}
+				}
+			}
+			return tail;
+		}
+
+		/**
+		 * Layers the part by residual distance from the sources. Sinks end a layer path.
+		 *
+		 * @param order The vertices of all parts
+		 * @param lo The first index of the part
+		 * @param hi One past the last index of the part
+		 * @return whether a sink was reached, so more flow can be sent
+		 */
+		private boolean layer(int[] order, int lo, int hi) {
+			int head = 0;
+			int tail = 0;
+			for(int i = lo; i < hi; i++) {
+				int v = order[i];
+				distance[v] = -1;
+				if(role[v] == SOURCE) {
+					distance[v] = 0;
+					queue[tail++] = v;
+				}
+			}
+			int partStamp = part[order[lo]];
+			boolean ret = false;
+			while(head < tail) {
+				int v = queue[head++];
+				if(role[v] == SINK) {
+					ret = true;
+					continue;
+				}
+				int degree = degree(v);
+				for(int a = 0; a < degree; a++) {
+					int w = neighbor(v, a);
+					if(part[w] == partStamp && distance[w] < 0 && residual(v, a) > 0) {
+						distance[w] = distance[v] + 1;
+						queue[tail++] = w;
+					}
+				}
+			}
+			return ret;
+		}
+
+		/**
+		 * Sends flow along layered paths from the sources to the sinks until every such path is
+		 * saturated. Each vertex remembers the next arc to try, so no arc is tried twice in vain.
+		 *
+		 * @param order The vertices of all parts
+		 * @param lo The first index of the part
+		 * @param hi One past the last index of the part
+		 */
+		private void blockingFlow(int[] order, int lo, int hi) {
+			for(int i = lo; i < hi; i++)
+				arc[order[i]] = 0;
+			int partStamp = part[order[lo]];
+			for(int i = lo; i < hi; i++) {
+				int source = order[i];
+				if(role[source] != SOURCE)	continue;
+				int depth = 0;
+				path[0] = source;
+				while(depth >= 0) {
+					int v = path[depth];
+					if(role[v] == SINK) {
+						for(int d = 0; d < depth; d++)
+							push(path[d], arc[path[d]]);
+						depth = 0;
+						continue;
+					}
+					int degree = degree(v);
+					while(arc[v] < degree) {
+						int w = neighbor(v, arc[v]);
+						if(part[w] == partStamp && distance[w] == distance[v] + 1 && residual(v, arc[v]) > 0)
+							break;
+						arc[v]++;
+					}
+					if(arc[v] < degree) {
+						path[++depth] = neighbor(v, arc[v]);
+					} else {
+						distance[v] = -1;
+						if(--depth >= 0)	arc[path[depth]]++;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Marks the vertices that can still send flow to a sink with the current stamp and counts
+		 * them. The rest of the part is the source side of the most balanced other minimum cut.
+		 *
+		 * @param order The vertices of all parts
+		 * @param lo The first index of the part
+		 * @param hi One past the last index of the part
+		 * @return the number of vertices on the sink side
+		 */
+		private int markSinkSide(int[] order, int lo, int hi) {
+			int sinkStamp = ++stamp;
+			int tail = 0;
+			for(int i = lo; i < hi; i++) {
+				int v = order[i];
+				if(role[v] == SINK) {
+					visited[v] = sinkStamp;
+					queue[tail++] = v;
+				}
+			}
+			int partStamp = part[order[lo]];
+			for(int head = 0; head < tail; head++) {
+				int v = queue[head];
+				int degree = degree(v);
+				for(int a = 0; a < degree; a++) {
+					int w = neighbor(v, a);
+					if(part[w] == partStamp && visited[w] != sinkStamp && 2 - residual(v, a) > 0) {
+						visited[w] = sinkStamp;
+						queue[tail++] = w;
+					}
+				}
+			}
+			return tail;
+		}
+
+		/**
+		 * Returns the number of arcs of a vertex: its outgoing Edges, then its incoming ones.
+		 *
+		 * @param v The id of the vertex
+		 * @return the arc count
+		 */
+		private int degree(int v) {
+			return csr.endEdge(v) - csr.firstEdge(v) + csr.endInEdge(v) - csr.firstInEdge(v);
+		}
+
+		/**
+		 * Returns the vertex at the other end of an arc.
+		 *
+		 * @param v The id of the vertex
+		 * @param a The arc
+		 * @return the id of the neighbor
+		 */
+		private int neighbor(int v, int a) {
+			int out = csr.endEdge(v) - csr.firstEdge(v);
+			return a < out ? csr.getTarget(csr.firstEdge(v) + a): csr.getSource(csr.firstInEdge(v) + a - out);
+		}
+
+		/**
+		 * Returns how much more flow an arc can carry away from its vertex, from 0 to 2.
+		 *
+		 * @param v The id of the vertex
+		 * @param a The arc
+		 * @return the residual capacity
+		 */
+		private int residual(int v, int a) {
+			int out = csr.endEdge(v) - csr.firstEdge(v);
+			return a < out ? 1 - flow[csr.firstEdge(v) + a]: 1 + flow[csr.getInEdge(csr.firstInEdge(v) + a - out)];
+		}
+
+		/**
+		 * Sends one unit of flow along an arc, away from its vertex.
+		 *
+		 * @param v The id of the vertex
+		 * @param a The arc
+		 */
+		private void push(int v, int a) {
+			int out = csr.endEdge(v) - csr.firstEdge(v);
+			if(a < out)
+				flow[csr.firstEdge(v) + a]++;
+			else
+				flow[csr.getInEdge(csr.firstInEdge(v) + a - out)]--;
+		}
+	}
+}
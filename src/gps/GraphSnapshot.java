@@ -0,0 +1,392 @@
+package gps;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * This GraphSnapshot class saves a CsrGraph to a binary file and loads it back by memory-mapping
+ * the file. A loaded CsrGraph reads its adjacency, costs, names and name hash tables straight from
+ * the mapping, so loading takes milliseconds no matter how large the map is, no Vertex or Edge
+ * objects are created, and several JVMs on one host share the same pages of the file.
+ *
+ * The file is little-endian and laid out as:
+ * <pre>
+ * int magic, int version, int vertexCount, int edgeCount
+ * int symbolPoolBytes, int symbolSlots, int addressPoolBytes, int addressSlots
+ * int[vertexCount + 1] offsets
+ * int[edgeCount] targets, timeCosts, distanceCosts, laneCosts
+ * for symbols then addresses:
+ *     int[vertexCount + 1] poolOffsets, int[slots] hash table, byte[poolBytes] UTF-8 pool (padded to 4)
+ * long CRC32 of everything before it
+ * </pre>
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class GraphSnapshot {
+	//=================================================================== Properties
+	public static final int MAGIC = 0x47505347;
+	public static final int VERSION = 1;
+	private static final int HEADER_INTS = 8;
+
+	//=================================================================== Constructors
+	/** GraphSnapshot only has static methods. */
+	private GraphSnapshot() {
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Writes a CsrGraph to a snapshot file.
+	 *
+	 * @param csr The CsrGraph to save
+	 * @param filename The name of the snapshot file
+	 * @throws IOException if the file can not be written
+	 */
+	public static void write(CsrGraph csr, String filename) throws IOException {
+		int n = csr.vertexCount();
+		int m = csr.edgeCount();
+		byte[][] symbols = encode(csr.getSymbols());
+		byte[][] addresses = encode(csr.getAddresses());
+		int symbolPoolBytes = poolBytes(symbols);
+		int addressPoolBytes = poolBytes(addresses);
+
+		try(SnapshotWriter out = new SnapshotWriter(filename)) {
+			out.putInt(MAGIC);
+			out.putInt(VERSION);
+			out.putInt(n);
+			out.putInt(m);
+			out.putInt(symbolPoolBytes);
+			out.putInt(csr.getSymbols().slotCount());
+			out.putInt(addressPoolBytes);
+			out.putInt(csr.getAddresses().slotCount());
+
+			for(int v = 0; v < n; v++)
+				out.putInt(csr.firstEdge(v));
+			out.putInt(m);
+			for(int e = 0; e < m; e++)
+				out.putInt(csr.getTarget(e));
+			for(int e = 0; e < m; e++)
+				out.putInt(csr.getTimeCost(e));
+			for(int e = 0; e < m; e++)
+				out.putInt(csr.getDistanceCost(e));
+			for(int e = 0; e < m; e++)
+				out.putInt(csr.getLaneCost(e));
+
+			writeNames(out, csr.getSymbols(), symbols);
+			writeNames(out, csr.getAddresses(), addresses);
+			out.commit();
+		}
+	}
+
+	/**
+	 * Memory-maps a snapshot file and checks its checksum.
+	 *
+	 * @param filename The name of the snapshot file
+	 * @return the CsrGraph of the snapshot
+	 * @throws IOException if the file can not be read or is not a valid snapshot
+	 */
+	public static CsrGraph load(String filename) throws IOException {
+		return load(filename, true);
+	}
+
+	/**
+	 * Memory-maps a snapshot file.
+	 *
+	 * @param filename The name of the snapshot file
+	 * @param verify True to check the CRC32 of the whole file, which reads every page once
+	 * @return the CsrGraph of the snapshot
+	 * @throws IOException if the file can not be read or is not a valid snapshot
+	 */
+	public static CsrGraph load(String filename, boolean verify) throws IOException {
+		ByteBuffer map = map(filename, MAGIC, VERSION, 4 * HEADER_INTS);
+		int n = map.getInt(8);
+		int m = map.getInt(12);
+		int symbolPoolBytes = map.getInt(16);
+		int symbolSlots = map.getInt(20);
+		int addressPoolBytes = map.getInt(24);
+		int addressSlots = map.getInt(28);
+
+		long expected = 4L * HEADER_INTS + 4L * (n + 1) + 16L * m + namesBytes(n, symbolSlots, symbolPoolBytes)
+				+ namesBytes(n, addressSlots, addressPoolBytes) + 8;
+		if(n < 0 || m < 0 || expected != map.limit())
+			throw new IOException(filename + " is truncated or corrupt");
+		if(verify)
+			verify(filename, map);
+
+		int pos = 4 * HEADER_INTS;
+		IntBuffer offsets = ints(map, pos, n + 1);
+		pos += 4 * (n + 1);
+		IntBuffer targets = ints(map, pos, m);
+		IntBuffer timeCosts = ints(map, pos += 4 * m, m);
+		IntBuffer distanceCosts = ints(map, pos += 4 * m, m);
+		IntBuffer laneCosts = ints(map, pos += 4 * m, m);
+		pos += 4 * m;
+		SymbolIndex symbols = readNames(map, pos, n, symbolSlots, symbolPoolBytes);
+		pos += namesBytes(n, symbolSlots, symbolPoolBytes);
+		SymbolIndex addresses = readNames(map, pos, n, addressSlots, addressPoolBytes);
+
+		return new CsrGraph(symbols, addresses, offsets, targets, timeCosts, distanceCosts, laneCosts);
+	}
+
+	/**
+	 * Memory-maps a binary file written with a SnapshotWriter and checks its magic number and
+	 * version.
+	 *
+	 * @param filename The name of the file
+	 * @param magic The magic number the file must start with
+	 * @param version The version the file must have
+	 * @param headerBytes The size of the header, which the file must be larger than
+	 * @return the little-endian mapping of the whole file
+	 * @throws IOException if the file can not be read or is of the wrong kind
+	 */
+	static ByteBuffer map(String filename, int magic, int version, int headerBytes) throws IOException {
+		ByteBuffer map;
+		try(FileChannel channel = open(filename)) {
+			if(channel.size() > Integer.MAX_VALUE)
+				throw new IOException(filename + " is larger than 2 GB");
+			map = map(channel, filename, 0, channel.size());
+		}
+		checkHeader(filename, map, magic, version, headerBytes);
+		return map;
+	}
+
+	/**
+	 * Opens a binary file for reading, for files that are mapped in parts.
+	 *
+	 * @param filename The name of the file
+	 * @return the FileChannel
+	 * @throws IOException if the file can not be opened
+	 */
+	static FileChannel open(String filename) throws IOException {
+		File file = new File(filename);
+		if(!file.isFile())	throw new FileNotFoundException(filename);
+		return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+	}
+
+	/**
+	 * Memory-maps part of a file. One mapping holds at most 2 GB, so larger files are mapped a
+	 * part at a time. The mapping stays valid after the channel is closed.
+	 *
+	 * @param channel The open file
+	 * @param filename The name of the file, for the error message
+	 * @param pos The byte position of the part
+	 * @param length The number of bytes in the part
+	 * @return the little-endian mapping of the part
+	 * @throws IOException if the part is larger than 2 GB or can not be mapped
+	 */
+	static ByteBuffer map(FileChannel channel, String filename, long pos, long length) throws IOException {
+		if(length > Integer.MAX_VALUE)
+			throw new IOException(filename + " has a part larger than 2 GB");
+		MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, pos, length);
+		map.order(ByteOrder.LITTLE_ENDIAN);
+		return map;
+	}
+
+	/**
+	 * Checks the magic number and version at the start of a mapped file.
+	 *
+	 * @param filename The name of the file, for the error message
+	 * @param map The mapping of the start of the file, header and CRC32 included if that long
+	 * @param magic The magic number the file must start with
+	 * @param version The version the file must have
+	 * @param headerBytes The size of the header, which the file must be larger than
+	 * @throws IOException if the file is of the wrong kind
+	 */
+	static void checkHeader(String filename, ByteBuffer map, int magic, int version, int headerBytes)
+			throws IOException {
+		if(map.limit() < headerBytes + 8 || map.getInt(0) != magic)
+			throw new IOException(filename + " is not the expected kind of file");
+		if(map.getInt(4) != version)
+			throw new IOException(filename + " has version " + map.getInt(4) + ", expected " + version);
+	}
+
+	/**
+	 * Checks the CRC32 at the end of a mapped file.
+	 *
+	 * @param filename The name of the file, for the error message
+	 * @param map The mapping of the whole file
+	 * @throws IOException if the checksum does not match
+	 */
+	static void verify(String filename, ByteBuffer map) throws IOException {
+		verify(filename, new ByteBuffer[] {slice(map, 0, map.limit() - 8)}, map.getLong(map.limit() - 8));
+	}
+
+	/**
+	 * Checks the CRC32 of a file mapped in parts.
+	 *
+	 * @param filename The name of the file, for the error message
+	 * @param parts The mappings of everything before the CRC32, in file order
+	 * @param checksum The CRC32 stored at the end of the file
+	 * @throws IOException if the checksum does not match
+	 */
+	static void verify(String filename, ByteBuffer[] parts, long checksum) throws IOException {
+		CRC32 crc = new CRC32();
+		for(ByteBuffer part: parts)
+			crc.update(part.duplicate());
+		if(crc.getValue() != checksum)
+			throw new IOException(filename + " failed its checksum");
+	}
+
+	/**
+	 * Returns a CRC32 of the adjacency and costs of a CsrGraph. Tables computed from a CsrGraph
+	 * store it so they are not used with a different map.
+	 *
+	 * @param csr The CsrGraph
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(CsrGraph csr) {
+		CRC32 crc = new CRC32();
+		ByteBuffer buf = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+		buf.putInt(csr.vertexCount());
+		for(int v = 0; v < csr.vertexCount(); v++) {
+			if(buf.remaining() < 4)	update(crc, buf);
+			buf.putInt(csr.endEdge(v));
+		}
+		for(int e = 0; e < csr.edgeCount(); e++) {
+			if(buf.remaining() < 16)	update(crc, buf);
+			buf.putInt(csr.getTarget(e));
+			buf.putInt(csr.getTimeCost(e));
+			buf.putInt(csr.getDistanceCost(e));
+			buf.putInt(csr.getLaneCost(e));
+		}
+		update(crc, buf);
+		return crc.getValue();
+	}
+
+	/**
+	 * Adds the contents of a buffer to a CRC32 and empties the buffer.
+	 *
+	 * @param crc The CRC32
+	 * @param buf The buffer being filled
+	 */
+	private static void update(CRC32 crc, ByteBuffer buf) {
+		buf.flip();
+		crc.update(buf);
+		buf.clear();
+	}
+
+	/**
+	 * Reads one SymbolIndex out of the mapping.
+	 *
+	 * @param map The mapped file
+	 * @param pos The position of the pool offsets
+	 * @param n The number of names
+	 * @param slots The size of the hash table
+	 * @param poolBytes The size of the pool
+	 * @return the SymbolIndex
+	 */
+	private static SymbolIndex readNames(ByteBuffer map, int pos, int n, int slots, int poolBytes) {
+		IntBuffer poolOffsets = ints(map, pos, n + 1);
+		IntBuffer table = ints(map, pos + 4 * (n + 1), slots);
+		ByteBuffer pool = slice(map, pos + 4 * (n + 1) + 4 * slots, poolBytes);
+		return new SymbolIndex(pool, poolOffsets, table);
+	}
+
+	/**
+	 * Writes the pool offsets, hash table and pool of one SymbolIndex.
+	 *
+	 * @param out The SnapshotWriter
+	 * @param index The SymbolIndex
+	 * @param encoded The UTF-8 bytes of every name
+	 * @throws IOException if the file can not be written
+	 */
+	private static void writeNames(SnapshotWriter out, SymbolIndex index, byte[][] encoded) throws IOException {
+		int next = 0;
+		for(byte[] name: encoded) {
+			out.putInt(next);
+			next += name.length;
+		}
+		out.putInt(next);
+		for(int i = 0; i < index.slotCount(); i++)
+			out.putInt(index.getSlot(i));
+		for(byte[] name: encoded)
+			out.putBytes(name);
+		for(int i = next; i < padded(next); i++)
+			out.putBytes(new byte[] { 0 });
+	}
+
+	/**
+	 * Encodes every name of a SymbolIndex as UTF-8.
+	 *
+	 * @param index The SymbolIndex
+	 * @return the bytes of each name
+	 */
+	private static byte[][] encode(SymbolIndex index) {
+		byte[][] ret = new byte[index.size()][];
+		for(int i = 0; i < ret.length; i++)
+			ret[i] = index.get(i).getBytes(StandardCharsets.UTF_8);
+		return ret;
+	}
+
+	/**
+	 * Returns the total length of encoded names.
+	 *
+	 * @param encoded The bytes of each name
+	 * @return the pool length
+	 */
+	private static int poolBytes(byte[][] encoded) {
+		long ret = 0;
+		for(byte[] name: encoded)
+			ret += name.length;
+		if(ret > Integer.MAX_VALUE)	throw new IllegalArgumentException("names are larger than 2 GB");
+		return (int) ret;
+	}
+
+	/**
+	 * Returns the size in the file of one SymbolIndex.
+	 *
+	 * @param n The number of names
+	 * @param slots The size of the hash table
+	 * @param poolBytes The size of the pool
+	 * @return the number of bytes
+	 */
+	private static long namesBytes(int n, int slots, int poolBytes) {
+		return 4L * (n + 1) + 4L * slots + padded(poolBytes);
+	}
+
+	/**
+	 * Rounds a byte count up to a multiple of 4 so the next int section stays aligned.
+	 *
+	 * @param bytes The byte count
+	 * @return the padded count
+	 */
+	private static int padded(int bytes) {
+		return (bytes + 3) & ~3;
+	}
+
+	/**
+	 * Returns a little-endian IntBuffer over part of the mapping.
+	 *
+	 * @param map The mapped file
+	 * @param pos The byte position of the first int
+	 * @param count The number of ints
+	 * @return the IntBuffer
+	 */
+	static IntBuffer ints(ByteBuffer map, int pos, int count) {
+		return slice(map, pos, 4 * count).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+	}
+
+	/**
+	 * Returns a ByteBuffer over part of the mapping.
+	 *
+	 * @param map The mapped file
+	 * @param pos The byte position of the first byte
+	 * @param length The number of bytes
+	 * @return the ByteBuffer
+	 */
+	static ByteBuffer slice(ByteBuffer map, int pos, int length) {
+		ByteBuffer ret = map.duplicate();
+		ret.position(pos).limit(pos + length);
+		return ret.slice();
+	}
+}
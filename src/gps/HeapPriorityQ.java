@@ -1,10 +1,11 @@
+package gps;
+
 import java.util.Arrays;
 import java.util.NoSuchElementException;
 
 /**
- * This HeapPriorityQ class is part of the Graph data structure. It is used by the Dijkstra class
- * to help determine the shortest path from one Vertex to another and all possible paths found
- * while using the Dijkstra algorithm.
+ * This HeapPriorityQ class is part of the Graph data structure. It is used by the KShortestPaths
+ * class to keep its candidate paths in order of cost.
  * 
  * @author wyattcombs
  *
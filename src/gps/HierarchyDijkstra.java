@@ -0,0 +1,200 @@
+package gps;
+
+import java.util.Arrays;
+
+/**
+ * This HierarchyDijkstra class is part of the Graph data structure. It answers shortest path
+ * queries on a ContractionHierarchy with a bidirectional search that only moves up in rank: the
+ * forward search from the start follows upward edges and the backward search from the end follows
+ * downward edges in reverse. The cheapest vertex settled by both searches is the top of the path.
+ * A side stops once its queue holds nothing cheaper than the best path found.
+ *
+ * A vertex is stalled, and its edges not followed, when a higher ranked vertex already reached by
+ * the same search gives it a cheaper cost, since it can then not be on a shortest up path. The
+ * shortcuts of the resulting path are unpacked into the Edges of the map before it is returned.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class HierarchyDijkstra {
+	//=================================================================== Properties
+	private static final long NONE = Long.MAX_VALUE;
+
+	//=================================================================== Methods
+	/**
+	 * Returns the shortest path from one Vertex to another. Null is returned if no paths found.
+	 *
+	 * @param ch The ContractionHierarchy of the CsrGraph being searched
+	 * @param start The id of the start Vertex
+	 * @param end The id of the end Vertex
+	 * @return The shortest path as a Path object in the Metric of the hierarchy
+	 */
+	public static Path shortestPath(ContractionHierarchy ch, int start, int end) {
+		CsrGraph csr = ch.getGraph();
+		SearchContext fwd = SearchContext.current();
+		SearchContext bwd = fwd.getBackward();
+		fwd.reset(csr.vertexCount());
+		bwd.reset(csr.vertexCount());
+		LazyHeapPriorityQ fwdQ = fwd.getLazyQ();
+		LazyHeapPriorityQ bwdQ = bwd.getLazyQ();
+		fwd.setDist(start, 0, -1);
+		fwdQ.add(start, 0);
+		bwd.setDist(end, 0, -1);
+		bwdQ.add(end, 0);
+
+		long best = NONE;
+		int meet = -1;
+		while(true) {
+			boolean fwdOpen = !fwdQ.isEmpty() && fwdQ.peekPriority() < best;
+			boolean bwdOpen = !bwdQ.isEmpty() && bwdQ.peekPriority() < best;
+			if(!fwdOpen && !bwdOpen)	break;
+			boolean forward = fwdOpen && (!bwdOpen || fwdQ.peekPriority() <= bwdQ.peekPriority());
+
+			SearchContext ctx = forward ? fwd: bwd;
+			SearchContext other = forward ? bwd: fwd;
+			LazyHeapPriorityQ pq = forward ? fwdQ: bwdQ;
+			int currCost = pq.peekPriority();
+			int currVert = pq.remove();
+			if(ctx.isSettled(currVert))	continue;
+			ctx.settle(currVert);
+
+			if(other.isReached(currVert) && (long) currCost + other.getDist(currVert) < best) {
+				best = (long) currCost + other.getDist(currVert);
+				meet = currVert;
+			}
+
+			if(forward) {
+				if(stalledForward(ch, fwd, currVert, currCost))	continue;
+				for(int e = ch.firstUp(currVert); e < ch.endUp(currVert); e++)
+					relax(fwd, fwdQ, currVert, ch.getUpTarget(e), currCost + ch.getUpWeight(e));
+			} else {
+				if(stalledBackward(ch, bwd, currVert, currCost))	continue;
+				for(int e = ch.firstDown(currVert); e < ch.endDown(currVert); e++)
+					relax(bwd, bwdQ, currVert, ch.getDownSource(e), currCost + ch.getDownWeight(e));
+			}
+		}
+
+		return meet < 0 ? null: unpack(ch, fwd, bwd, start, meet, (int) best);
+	}
+
+	/**
+	 * Gives a vertex a cheaper cost if the new one is lower.
+	 *
+	 * @param ctx The SearchContext of the side
+	 * @param pq The queue of the side
+	 * @param currVert The id of the vertex being settled
+	 * @param nextVert The id of the neighbor
+	 * @param nextCost The cost of reaching the neighbor through currVert
+	 */
+	private static void relax(SearchContext ctx, LazyHeapPriorityQ pq, int currVert, int nextVert, int nextCost) {
+		if(nextCost < ctx.getDist(nextVert)) {
+			ctx.setDist(nextVert, nextCost, currVert);
+			pq.add(nextVert, nextCost);
+		}
+	}
+
+	/**
+	 * Returns true if a higher ranked vertex reached by the forward search has a downward edge
+	 * into the vertex that makes it cheaper than its current cost.
+	 *
+	 * @param ch The ContractionHierarchy
+	 * @param fwd The SearchContext of the forward search
+	 * @param vertex The id of the vertex
+	 * @param cost The cost of the vertex
+	 * @return whether the vertex is stalled
+	 */
+	static boolean stalledForward(ContractionHierarchy ch, SearchContext fwd, int vertex, int cost) {
+		for(int e = ch.firstDown(vertex); e < ch.endDown(vertex); e++) {
+			int higher = ch.getDownSource(e);
+			if(fwd.isReached(higher) && (long) fwd.getDist(higher) + ch.getDownWeight(e) < cost)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if a higher ranked vertex reached by the backward search has an upward edge
+	 * from the vertex that makes it cheaper than its current cost.
+	 *
+	 * @param ch The ContractionHierarchy
+	 * @param bwd The SearchContext of the backward search
+	 * @param vertex The id of the vertex
+	 * @param cost The cost of the vertex
+	 * @return whether the vertex is stalled
+	 */
+	static boolean stalledBackward(ContractionHierarchy ch, SearchContext bwd, int vertex, int cost) {
+		for(int e = ch.firstUp(vertex); e < ch.endUp(vertex); e++) {
+			int higher = ch.getUpTarget(e);
+			if(bwd.isReached(higher) && (long) bwd.getDist(higher) + ch.getUpWeight(e) < cost)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Builds the Path through the top vertex and replaces every shortcut with the two edges it
+	 * skips until only Edges of the map are left.
+	 *
+	 * @param ch The ContractionHierarchy that was searched
+	 * @param fwd The SearchContext of the forward search
+	 * @param bwd The SearchContext of the backward search
+	 * @param start The id of the start Vertex
+	 * @param meet The id of the top vertex of the path
+	 * @param cost The cost of the path
+	 * @return The Path from the start Vertex to the end Vertex
+	 */
+	private static Path unpack(ContractionHierarchy ch, SearchContext fwd, SearchContext bwd, int start, int meet,
+			int cost) {
+		int hops = 0;
+		for(int v = meet; fwd.getParent(v) >= 0; v = fwd.getParent(v))
+			hops++;
+		for(int v = meet; bwd.getParent(v) >= 0; v = bwd.getParent(v))
+			hops++;
+
+		int[] stack = new int[Math.max(2, 2 * hops)];
+		int top = 0;
+		for(int v = meet; bwd.getParent(v) >= 0; v = bwd.getParent(v))
+			top++;
+		int i = top;
+		for(int v = meet; bwd.getParent(v) >= 0; v = bwd.getParent(v)) {
+			stack[2 * --i] = bwd.getParent(v);
+			stack[2 * i + 1] = v;
+		}
+		for(int v = meet; fwd.getParent(v) >= 0; v = fwd.getParent(v)) {
+			stack[2 * top] = v;
+			stack[2 * top++ + 1] = fwd.getParent(v);
+		}
+
+		int[] vertices = new int[hops + 1];
+		int[] legCosts = new int[hops];
+		int length = 0;
+		vertices[length] = start;
+		while(top > 0) {
+			top--;
+			int to = stack[2 * top];
+			int from = stack[2 * top + 1];
+			int up = ch.getRank(from) < ch.getRank(to) ? ch.findUp(from, to): -1;
+			int down = up < 0 ? ch.findDown(from, to): -1;
+			int mid = up >= 0 ? ch.getUpMid(up): ch.getDownMid(down);
+			if(mid < 0) {
+				if(length == legCosts.length) {
+					vertices = Arrays.copyOf(vertices, 2 * length + 2);
+					legCosts = Arrays.copyOf(legCosts, 2 * length + 1);
+				}
+				legCosts[length++] = up >= 0 ? ch.getUpWeight(up): ch.getDownWeight(down);
+				vertices[length] = to;
+				continue;
+			}
+			if(2 * top + 4 > stack.length)
+				stack = Arrays.copyOf(stack, 2 * stack.length);
+			stack[2 * top] = to;
+			stack[2 * top++ + 1] = mid;
+			stack[2 * top] = mid;
+			stack[2 * top++ + 1] = from;
+		}
+
+		return new Path(ch.getGraph(), Arrays.copyOf(vertices, length + 1), Arrays.copyOf(legCosts, length), cost,
+				ch.getMetric());
+	}
+}
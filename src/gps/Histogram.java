@@ -0,0 +1,121 @@
+package gps;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This Histogram class counts non-negative long values, such as latencies in nanoseconds, in a
+ * fixed number of buckets so percentiles can be read at any time. Buckets are laid out like an HDR
+ * histogram: values below 128 have a bucket each, and every power of two above that is split into
+ * 64 buckets, so any value is known to within 1/64 of itself whatever its size. About 3,700
+ * buckets cover every long.
+ *
+ * Recording is thread-safe and never blocks, so many threads can record into one Histogram.
+ * Reading while others record gives a view that may miss the latest values.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class Histogram {
+	//=================================================================== Properties
+	private static final int SUB_BUCKETS = 64;
+	private static final int LINEAR = 2 * SUB_BUCKETS;
+	private static final int BUCKETS = LINEAR + (64 - 8) * SUB_BUCKETS;
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	//=================================================================== Methods
+	/**
+	 * Counts one value.
+	 *
+	 * @param value The value; negative values are counted as 0
+	 */
+	public void record(long value) {
+		if(value < 0)	value = 0;
+		counts.incrementAndGet(index(value));
+		count.increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	/**
+	 * Returns the value at or below which a share of the recorded values lie. The answer is the
+	 * highest value of the bucket the percentile falls in, and never more than the largest value
+	 * recorded.
+	 *
+	 * @param percentile The share, from 0 to 100
+	 * @return the value, or 0 if nothing has been recorded
+	 */
+	public long percentile(double percentile) {
+		long total = 0;
+		for(int i = 0; i < BUCKETS; i++)
+			total += counts.get(i);
+		if(total == 0)	return 0;
+		long rank = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * total));
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if(seen >= rank)	return Math.min(highestValue(i), getMax());
+		}
+		return getMax();
+	}
+
+	/**
+	 * Returns the mean of the recorded values.
+	 *
+	 * @return the mean, or 0 if nothing has been recorded
+	 */
+	public double getMean() {
+		long n = count.sum();
+		return n == 0 ? 0: (double) sum.sum() / n;
+	}
+
+	/** Forgets every recorded value. */
+	public void reset() {
+		for(int i = 0; i < BUCKETS; i++)
+			counts.set(i, 0);
+		count.reset();
+		sum.reset();
+		max.reset();
+	}
+
+	/**
+	 * Returns the bucket of a value.
+	 *
+	 * @param value The non-negative value
+	 * @return the index of its bucket
+	 */
+	private static int index(long value) {
+		if(value < LINEAR)	return (int) value;
+		int shift = 63 - Long.numberOfLeadingZeros(value) - 6;
+		return LINEAR + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+	}
+
+	/**
+	 * Returns the highest value that falls in a bucket.
+	 *
+	 * @param index The index of the bucket
+	 * @return the highest value
+	 */
+	private static long highestValue(int index) {
+		if(index < LINEAR)	return index;
+		int shift = (index - LINEAR) / SUB_BUCKETS + 1;
+		long top = (index - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+		return (top << shift) + (1L << shift) - 1;
+	}
+
+	@Override
+	public String toString() {
+		return "count " + getCount() + ", mean " + String.format("%.1f", getMean()) + ", p50 " + percentile(50)
+				+ ", p90 " + percentile(90) + ", p99 " + percentile(99) + ", p99.9 " + percentile(99.9) + ", max "
+				+ getMax();
+	}
+
+	//=================================================================== Getters / Setters
+	public long getCount() 					{	return count.sum();		}
+	public long getMax() 					{	return max.get();		}
+}
@@ -0,0 +1,202 @@
+package gps;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * This IndexedHeapPriorityQ class is part of the Graph data structure. It is a d-ary min heap of
+ * vertex ids with int priorities, used by the Dijkstra class when a query asks for decrease-key.
+ * The heap position of every id is tracked so an id already in the Queue can have its priority
+ * lowered in place instead of being added a second time. Ids must be in the range 0 to capacity-1.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class IndexedHeapPriorityQ implements IndexedPriorityQueueInterface {
+	//=================================================================== Properties
+	private int[] ids;
+	private int[] priorities;
+	private int[] positions;
+	private int size;
+	private final int arity;
+	private static final int DEFAULT_ARITY = 4;
+
+	//=================================================================== Constructors
+	/**
+	 * Creates an empty IndexedHeapPriorityQ with the default arity.
+	 *
+	 * @param capacity The number of ids the IndexedHeapPriorityQ can hold
+	 */
+	public IndexedHeapPriorityQ(int capacity) {
+		this(capacity, DEFAULT_ARITY);
+	}
+
+	//-- Workhorse Constructor
+	/**
+	 * Creates an empty IndexedHeapPriorityQ.
+	 *
+	 * @param capacity The number of ids the IndexedHeapPriorityQ can hold
+	 * @param arity The number of children of each heap node
+	 */
+	public IndexedHeapPriorityQ(int capacity, int arity) {
+		if(arity < 2)	throw new IllegalArgumentException("arity must be at least 2");
+		this.arity = arity;
+		ids = new int[capacity];
+		priorities = new int[capacity];
+		positions = new int[capacity];
+		Arrays.fill(positions, -1);
+		size = 0;
+	}
+
+	//=================================================================== Methods
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public boolean isFull() {
+		return size == ids.length;
+	}
+
+	@Override
+	public void clear() {
+		for(int i = 0; i < size; i++)
+			positions[ids[i]] = -1;
+		size = 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void add(int id, int priority) {
+		if(positions[id] >= 0)	throw new IllegalArgumentException("id already in queue: " + id);
+		ids[size] = id;
+		priorities[size] = priority;
+		positions[id] = size;
+		reheapUp(size++);
+	}
+
+	@Override
+	public boolean contains(int id) {
+		return positions[id] >= 0;
+	}
+
+	@Override
+	public void decreaseKey(int id, int priority) {
+		int index = positions[id];
+		if(index < 0)	throw new NoSuchElementException();
+		if(priority > priorities[index])
+			throw new IllegalArgumentException("priority is larger than current priority");
+		priorities[index] = priority;
+		reheapUp(index);
+	}
+
+	@Override
+	public int priorityOf(int id) {
+		int index = positions[id];
+		if(index < 0)	throw new NoSuchElementException();
+		return priorities[index];
+	}
+
+	@Override
+	public int peek() {
+		return isEmpty() ? -1: ids[0];
+	}
+
+	@Override
+	public int remove() {
+		if(isEmpty())	throw new NoSuchElementException();
+
+		int ret = ids[0];
+		positions[ret] = -1;
+		if(--size > 0) {
+			ids[0] = ids[size];
+			priorities[0] = priorities[size];
+			positions[ids[0]] = 0;
+			reheapDown(0);
+		}
+		return ret;
+	}
+
+	/**
+	 * Moves an element up until its parent has a smaller or equal priority. The element is held
+	 * aside and parents are shifted down instead of swapping at every level.
+	 *
+	 * @param index The index of the item to be reheaped
+	 */
+	private void reheapUp(int index) {
+		int id = ids[index];
+		int priority = priorities[index];
+		while(index > 0) {
+			int parentIndex = (index - 1) / arity;
+			if(priorities[parentIndex] <= priority)	break;
+			move(parentIndex, index);
+			index = parentIndex;
+		}
+		place(id, priority, index);
+	}
+
+	/**
+	 * Moves an element down until all of its children have larger or equal priorities.
+	 *
+	 * @param index The index of the item to be reheaped
+	 */
+	private void reheapDown(int index) {
+		int id = ids[index];
+		int priority = priorities[index];
+		while(true) {
+			int firstChild = arity * index + 1;
+			if(firstChild >= size)	break;
+			int minChild = firstChild;
+			int lastChild = Math.min(firstChild + arity, size);
+			for(int child = firstChild + 1; child < lastChild; child++) {
+				if(priorities[child] < priorities[minChild])
+					minChild = child;
+			}
+			if(priorities[minChild] >= priority)	break;
+			move(minChild, index);
+			index = minChild;
+		}
+		place(id, priority, index);
+	}
+
+	/**
+	 * Copies the element at one index to another index.
+	 *
+	 * @param from The index of the element
+	 * @param to The index it is copied to
+	 */
+	private void move(int from, int to) {
+		ids[to] = ids[from];
+		priorities[to] = priorities[from];
+		positions[ids[to]] = to;
+	}
+
+	/**
+	 * Stores an element at an index.
+	 *
+	 * @param id The id of the element
+	 * @param priority The priority of the element
+	 * @param index The index it is stored at
+	 */
+	private void place(int id, int priority, int index) {
+		ids[index] = id;
+		priorities[index] = priority;
+		positions[id] = index;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder ret = new StringBuilder("[");
+		for(int i = 0; i < size; i++) {
+			if(i > 0)	ret.append(", ");
+			ret.append(ids[i]).append("=").append(priorities[i]);
+		}
+		return ret.append("]").toString();
+	}
+}
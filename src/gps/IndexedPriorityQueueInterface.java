@@ -0,0 +1,15 @@
+package gps;
+
+
+public interface IndexedPriorityQueueInterface {
+	boolean isEmpty();
+    boolean isFull();
+    void clear();
+    int size();
+    void add(int id, int priority);
+    boolean contains(int id);
+    void decreaseKey(int id, int priority);
+    int priorityOf(int id);     // throws NoSuchElementException if not contained
+    int peek();      // returns -1 if empty
+    int remove();    // throws NoSuchElementException if empty
+}
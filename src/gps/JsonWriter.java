@@ -0,0 +1,224 @@
+package gps;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * This JsonWriter class writes JSON straight to a Writer as values are produced, so a response is
+ * never built up as one String. Commas are placed by the JsonWriter; the caller only opens and
+ * closes objects and arrays in order and names each member of an object before its value.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class JsonWriter {
+	//=================================================================== Properties
+	private final Writer out;
+	private boolean[] hasMembers = new boolean[8];
+	private int depth;
+	private boolean afterName;
+
+	//=================================================================== Constructors
+	//-- Workhorse Constructor
+	/**
+	 * Creates a JsonWriter.
+	 *
+	 * @param out Where the JSON is written
+	 */
+	public JsonWriter(Writer out) {
+		this.out = out;
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Opens an object.
+	 *
+	 * @return this JsonWriter
+	 * @throws IOException if the Writer fails
+	 */
+	public JsonWriter beginObject() throws IOException {
+		return open('{');
+	}
+
+	/**
+	 * Closes the innermost object.
+	 *
+	 * @return this JsonWriter
+	 * @throws IOException if the Writer fails
+	 */
+	public JsonWriter endObject() throws IOException {
+		return close('}');
+	}
+
+	/**
+	 * Opens an array.
+	 *
+	 * @return this JsonWriter
+	 * @throws IOException if the Writer fails
+	 */
+	public JsonWriter beginArray() throws IOException {
+		return open('[');
+	}
+
+	/**
+	 * Closes the innermost array.
+	 *
+	 * @return this JsonWriter
+	 * @throws IOException if the Writer fails
+	 */
+	public JsonWriter endArray() throws IOException {
+		return close(']');
+	}
+
+	/**
+	 * Writes the name of the next member of an object.
+	 *
+	 * @param name The member name
+	 * @return this JsonWriter
+	 * @throws IOException if the Writer fails
+	 */
+	public JsonWriter name(String name) throws IOException {
+		separate();
+		string(name);
+		out.write(':');
+		afterName = true;
+		return this;
+	}
+
+	/**
+	 * Writes a string value, or null.
+	 *
+	 * @param value The value
+	 * @return this JsonWriter
+	 * @throws IOException if the Writer fails
+	 */
+	public JsonWriter value(String value) throws IOException {
+		separate();
+		if(value == null)
+			out.write("null");
+		else
+			string(value);
+		return this;
+	}
+
+	/**
+	 * Writes a number value.
+	 *
+	 * @param value The value
+	 * @return this JsonWriter
+	 * @throws IOException if the Writer fails
+	 */
+	public JsonWriter value(long value) throws IOException {
+		separate();
+		out.write(Long.toString(value));
+		return this;
+	}
+
+	/**
+	 * Writes a boolean value.
+	 *
+	 * @param value The value
+	 * @return this JsonWriter
+	 * @throws IOException if the Writer fails
+	 */
+	public JsonWriter value(boolean value) throws IOException {
+		separate();
+		out.write(value ? "true": "false");
+		return this;
+	}
+
+	/**
+	 * Writes a null value.
+	 *
+	 * @return this JsonWriter
+	 * @throws IOException if the Writer fails
+	 */
+	public JsonWriter nullValue() throws IOException {
+		separate();
+		out.write("null");
+		return this;
+	}
+
+	/**
+	 * Sends what has been written so far on to the client.
+	 *
+	 * @throws IOException if the Writer fails
+	 */
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	/**
+	 * Opens an object or array.
+	 *
+	 * @param bracket The opening character
+	 * @return this JsonWriter
+	 * @throws IOException if the Writer fails
+	 */
+	private JsonWriter open(char bracket) throws IOException {
+		separate();
+		out.write(bracket);
+		if(++depth == hasMembers.length)
+			hasMembers = Arrays.copyOf(hasMembers, 2 * depth);
+		hasMembers[depth] = false;
+		return this;
+	}
+
+	/**
+	 * Closes an object or array.
+	 *
+	 * @param bracket The closing character
+	 * @return this JsonWriter
+	 * @throws IOException if the Writer fails
+	 */
+	private JsonWriter close(char bracket) throws IOException {
+		if(depth == 0)	throw new IllegalStateException("nothing to close");
+		depth--;
+		out.write(bracket);
+		return this;
+	}
+
+	/**
+	 * Writes the comma before a value unless it is the first in its object or array or follows
+	 * its name.
+	 *
+	 * @throws IOException if the Writer fails
+	 */
+	private void separate() throws IOException {
+		if(afterName) {
+			afterName = false;
+			return;
+		}
+		if(hasMembers[depth])
+			out.write(',');
+		hasMembers[depth] = true;
+	}
+
+	/**
+	 * Writes a quoted, escaped string.
+	 *
+	 * @param value The string
+	 * @throws IOException if the Writer fails
+	 */
+	private void string(String value) throws IOException {
+		out.write('"');
+		for(int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch(c) {
+				case '"':	out.write("\\\"");	break;
+				case '\\':	out.write("\\\\");	break;
+				case '\n':	out.write("\\n");	break;
+				case '\r':	out.write("\\r");	break;
+				case '\t':	out.write("\\t");	break;
+				default:
+					if(c < 0x20)
+						out.write(String.format("\\u%04x", (int) c));
+					else
+						out.write(c);
+			}
+		}
+		out.write('"');
+	}
+}
@@ -0,0 +1,301 @@
+package gps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This KShortestPaths class is part of the Graph data structure. It is an Iterator over the
+ * loopless paths from one Vertex to another in order of cost, found with Yen's algorithm. Each
+ * path is only computed when next() asks for it: the path after P is found by leaving P at each of
+ * its vertices (the spur) with a Dijkstra search that may not reuse the vertices before the spur
+ * or any Edge already taken from the same prefix by an earlier path. Every spur path is a
+ * candidate and the cheapest candidate is the next path.
+ *
+ * A path only spurs from where it left the path it was found from, since earlier spurs were
+ * already tried. The iteration ends after a number of paths or once the next path would cost more
+ * than a ceiling, and candidates that can no longer be returned are dropped, so memory grows with
+ * the number of paths asked for rather than with the size of the map.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class KShortestPaths implements Iterator<Path> {
+	//=================================================================== Properties
+	public static final int UNLIMITED = Integer.MAX_VALUE;
+	private final CsrGraph csr;
+	private final int start;
+	private final int end;
+	private final Metric metric;
+	private final int maxPaths;
+	private final int costCeiling;
+	private final ArrayList<Candidate> found;
+	private final HeapPriorityQ<Candidate> candidates;
+	private final HashSet<Candidate> seen;
+	private final int[] blocked;
+	private int blockStamp;
+	private Candidate next;
+	private boolean done;
+
+	//=================================================================== Constructors
+	/**
+	 * Creates a KShortestPaths over every loopless path.
+	 *
+	 * @param csr The CsrGraph to search
+	 * @param start The id of the start Vertex
+	 * @param end The id of the end Vertex
+	 * @param metric The cost type to minimize
+	 */
+	public KShortestPaths(CsrGraph csr, int start, int end, Metric metric) {
+		this(csr, start, end, metric, UNLIMITED, UNLIMITED);
+	}
+
+	//-- Workhorse Constructor
+	/**
+	 * Creates a KShortestPaths that stops after a number of paths or past a cost.
+	 *
+	 * @param csr The CsrGraph to search
+	 * @param start The id of the start Vertex
+	 * @param end The id of the end Vertex
+	 * @param metric The cost type to minimize
+	 * @param maxPaths The most paths to return, or UNLIMITED
+	 * @param costCeiling The highest cost of a returned path, or UNLIMITED
+	 */
+	public KShortestPaths(CsrGraph csr, int start, int end, Metric metric, int maxPaths, int costCeiling) {
+		if(maxPaths < 0)	throw new IllegalArgumentException("maxPaths must not be negative");
+		this.csr = csr;
+		this.start = start;
+		this.end = end;
+		this.metric = metric;
+		this.maxPaths = maxPaths;
+		this.costCeiling = costCeiling;
+		found = new ArrayList<>();
+		candidates = new HeapPriorityQ<>();
+		seen = new HashSet<>();
+		blocked = new int[csr.vertexCount()];
+	}
+
+	//=================================================================== Methods
+	@Override
+	public boolean hasNext() {
+		if(next == null && !done) {
+			next = advance();
+			done = next == null;
+		}
+		return next != null;
+	}
+
+	@Override
+	public Path next() {
+		if(!hasNext())	throw new NoSuchElementException();
+		Candidate ret = next;
+		next = null;
+		found.add(ret);
+		return ret.path;
+	}
+
+	/**
+	 * Finds the next path, or null if the iteration is over.
+	 *
+	 * @return the next Candidate
+	 */
+	private Candidate advance() {
+		if(found.size() >= maxPaths)	return null;
+		if(found.isEmpty()) {
+			Path first = Dijkstra.shortestPath(csr, start, end, metric);
+			if(first == null || first.getCost() > costCeiling)	return null;
+			Candidate ret = new Candidate(first, 0);
+			seen.add(ret);
+			return ret;
+		}
+
+		spur(found.get(found.size() - 1));
+		trim(maxPaths - found.size());
+		if(candidates.isEmpty())	return null;
+		return candidates.remove();
+	}
+
+	/**
+	 * Adds a candidate for every spur vertex of a path from its deviation on.
+	 *
+	 * @param last The path last returned
+	 */
+	private void spur(Candidate last) {
+		Path path = last.path;
+		int rootCost = 0;
+		for(int i = 0; i < last.deviation; i++)
+			rootCost += path.getLegCost(i);
+
+		SearchContext ctx = SearchContext.current();
+		for(int i = last.deviation; i < path.length() - 1; i++) {
+			blockStamp++;
+			for(int j = 0; j < i; j++)
+				blocked[path.getVertex(j)] = blockStamp;
+			int[] avoid = takenEdges(path, i);
+
+			int spurVert = path.getVertex(i);
+			if(spurSearch(ctx, spurVert, avoid, costCeiling - rootCost))
+				offer(path, i, rootCost, ctx);
+			rootCost += path.getLegCost(i);
+		}
+	}
+
+	/**
+	 * Returns the vertices reached from the spur vertex by the paths returned so far that share
+	 * the path's prefix up to the spur.
+	 *
+	 * @param path The path being spurred
+	 * @param spur The index of the spur vertex
+	 * @return the targets of the Edges that may not be taken from the spur
+	 */
+	private int[] takenEdges(Path path, int spur) {
+		int[] ret = new int[found.size()];
+		int count = 0;
+		for(Candidate other: found) {
+			Path taken = other.path;
+			if(taken.length() <= spur + 1)	continue;
+			boolean same = true;
+			for(int j = 0; j <= spur && same; j++)
+				same = taken.getVertex(j) == path.getVertex(j);
+			if(same)	ret[count++] = taken.getVertex(spur + 1);
+		}
+		return Arrays.copyOf(ret, count);
+	}
+
+	/**
+	 * Runs Dijkstra from the spur vertex to the end Vertex without blocked vertices or the avoided
+	 * Edges out of the spur.
+	 *
+	 * @param ctx The SearchContext to search with
+	 * @param spurVert The id of the spur vertex
+	 * @param avoid The targets of the Edges out of the spur that may not be taken
+	 * @param limit The highest cost worth reaching the end Vertex with
+	 * @return whether the end Vertex was reached within the limit
+	 */
+	private boolean spurSearch(SearchContext ctx, int spurVert, int[] avoid, int limit) {
+		ctx.reset(csr.vertexCount());
+		LazyHeapPriorityQ pq = ctx.getLazyQ();
+		ctx.setDist(spurVert, 0, -1);
+		pq.add(spurVert, 0);
+
+		while(!pq.isEmpty()) {
+			int currCost = pq.peekPriority();
+			int currVert = pq.remove();
+			if(ctx.isSettled(currVert))	continue;
+			if(currCost > limit)	return false;
+			ctx.settle(currVert);
+			if(currVert == end)	return true;
+
+			for(int e = csr.firstEdge(currVert); e < csr.endEdge(currVert); e++) {
+				int nextVert = csr.getTarget(e);
+				if(blocked[nextVert] == blockStamp)	continue;
+				if(currVert == spurVert && contains(avoid, nextVert))	continue;
+				int nextCost = currCost + csr.getCost(metric, e);
+				if(nextCost < ctx.getDist(nextVert)) {
+					ctx.setDist(nextVert, nextCost, currVert);
+					pq.add(nextVert, nextCost);
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Joins the prefix of a path with the spur path in the SearchContext and adds it as a
+	 * candidate unless it was seen before.
+	 *
+	 * @param path The path being spurred
+	 * @param spur The index of the spur vertex
+	 * @param rootCost The cost of the prefix
+	 * @param ctx The SearchContext of the spur search
+	 */
+	private void offer(Path path, int spur, int rootCost, SearchContext ctx) {
+		int spurLength = 0;
+		for(int v = end; v != path.getVertex(spur); v = ctx.getParent(v))
+			spurLength++;
+		int[] vertices = new int[spur + 1 + spurLength];
+		int[] legCosts = new int[spur + spurLength];
+		for(int j = 0; j <= spur; j++)
+			vertices[j] = path.getVertex(j);
+		for(int j = 0; j < spur; j++)
+			legCosts[j] = path.getLegCost(j);
+		int i = vertices.length - 1;
+		for(int v = end; v != path.getVertex(spur); v = ctx.getParent(v), i--) {
+			vertices[i] = v;
+			legCosts[i - 1] = ctx.getDist(v) - ctx.getDist(ctx.getParent(v));
+		}
+
+		Candidate candidate = new Candidate(new Path(csr, vertices, legCosts, rootCost + ctx.getDist(end), metric),
+				spur);
+		if(seen.add(candidate))
+			candidates.add(candidate);
+	}
+
+	/**
+	 * Drops all but the cheapest candidates once there are well over as many as can still be
+	 * returned.
+	 *
+	 * @param keep The number of paths that can still be returned
+	 */
+	private void trim(int keep) {
+		if(keep >= candidates.size() / 2)	return;
+		ArrayList<Candidate> best = new ArrayList<>(keep);
+		for(int i = 0; i < keep; i++)
+			best.add(candidates.remove());
+		while(!candidates.isEmpty())
+			seen.remove(candidates.remove());
+		for(Candidate c: best)
+			candidates.add(c);
+	}
+
+	/**
+	 * Returns true if an array holds a value.
+	 *
+	 * @param values The array
+	 * @param value The value to look for
+	 * @return whether the value is in the array
+	 */
+	private static boolean contains(int[] values, int value) {
+		for(int v: values) {
+			if(v == value)	return true;
+		}
+		return false;
+	}
+
+	//=================================================================== Candidate
+	/**
+	 * A candidate path with the index of the vertex where it leaves the path it was spurred from.
+	 * Candidates are ordered by cost and equal when they visit the same vertices.
+	 */
+	private static class Candidate implements Comparable<Candidate> {
+		private final Path path;
+		private final int deviation;
+		private final int[] vertices;
+		private final int hash;
+
+		private Candidate(Path path, int deviation) {
+			this.path = path;
+			this.deviation = deviation;
+			this.vertices = path.getVertices();
+			this.hash = Arrays.hashCode(vertices);
+		}
+
+		@Override
+		public int compareTo(Candidate other) {
+			return path.compareTo(other.path);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Candidate && Arrays.equals(vertices, ((Candidate) other).vertices);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
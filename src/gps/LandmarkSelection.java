@@ -0,0 +1,16 @@
+package gps;
+
+/**
+ * This LandmarkSelection enum lists the ways Landmarks can be chosen. FARTHEST picks each new
+ * landmark as far as possible from the landmarks already chosen. AVOID grows a shortest path tree
+ * from a random vertex and follows it toward the region whose distances the current landmarks
+ * bound worst, which usually gives tighter bounds for the same number of landmarks.
+ * 
+ * @author wyattcombs
+ *
+ */
+
+public enum LandmarkSelection {
+	FARTHEST,
+	AVOID
+}
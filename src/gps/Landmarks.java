@@ -0,0 +1,435 @@
+package gps;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * This Landmarks class is the preprocessing behind ALT (A*, landmarks and the triangle inequality)
+ * search. A few vertices are picked as landmarks and the cost from every landmark to every vertex
+ * and from every vertex back to every landmark is stored for each Metric. For any landmark L the
+ * triangle inequality gives two lower bounds on the cost from v to t:
+ * <pre>
+ * d(L, t) - d(L, v)    and    d(v, L) - d(t, L)
+ * </pre>
+ * The largest of these bounds steers AltDijkstra toward the end Vertex without needing
+ * coordinates, which the map file does not have.
+ *
+ * The tables take 24 bytes per vertex per landmark, so the landmark count trades memory for query
+ * speed. They can be saved to a file next to the map, which is memory-mapped when loaded and
+ * rebuilt if it was computed for a different map, count or selection. Each table is mapped on its
+ * own, so the file may be larger than 2 GB as long as no single table is.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class Landmarks {
+	//=================================================================== Properties
+	public static final int MAGIC = 0x4750534C;
+	public static final int VERSION = 1;
+	public static final String EXTENSION = ".alt";
+	public static final int DEFAULT_COUNT = 16;
+	private static final int HEADER_BYTES = 28;
+	private static final long SEED = 0x5EED;
+	private static final int UNREACHABLE = Integer.MAX_VALUE;
+	private final CsrGraph graph;
+	private final int[] ids;
+	private final LandmarkSelection selection;
+	private final long fingerprint;
+	private final IntBuffer[] from;
+	private final IntBuffer[] to;
+
+	//=================================================================== Constructors
+	//-- Workhorse Constructor
+	/**
+	 * Creates Landmarks from their distance tables. Entry v * count + i of a table is the distance
+	 * for vertex v and landmark i.
+	 *
+	 * @param graph The CsrGraph the distances belong to
+	 * @param ids The vertex ids of the landmarks
+	 * @param selection How the landmarks were chosen
+	 * @param fingerprint The GraphSnapshot fingerprint of the graph
+	 * @param from The distances from each landmark to each vertex, indexed by Metric ordinal
+	 * @param to The distances from each vertex to each landmark, indexed by Metric ordinal
+	 */
+	private Landmarks(CsrGraph graph, int[] ids, LandmarkSelection selection, long fingerprint, IntBuffer[] from,
+			IntBuffer[] to) {
+		this.graph = graph;
+		this.ids = ids;
+		this.selection = selection;
+		this.fingerprint = fingerprint;
+		this.from = from;
+		this.to = to;
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Chooses landmarks and computes their distance tables for all three Metric types. The shortest
+	 * path trees are computed in parallel.
+	 *
+	 * @param csr The CsrGraph to preprocess
+	 * @param count The number of landmarks; at most the number of vertices is used
+	 * @param selection How the landmarks are chosen
+	 * @return the Landmarks
+	 */
+	public static Landmarks build(CsrGraph csr, int count, LandmarkSelection selection) {
+		if(count < 1)	throw new IllegalArgumentException("count must be at least 1");
+		int n = csr.vertexCount();
+		int[] ids;
+		if(n == 0)
+			ids = new int[0];
+		else if(selection == LandmarkSelection.AVOID)
+			ids = selectAvoid(csr, Math.min(count, n));
+		else
+			ids = selectFarthest(csr, Math.min(count, n));
+		int k = ids.length;
+		Metric[] metrics = Metric.values();
+		int[][] fromTables = new int[metrics.length][n * k];
+		int[][] toTables = new int[metrics.length][n * k];
+
+		IntStream.range(0, 2 * metrics.length * k).parallel().forEach(task -> {
+			int i = task % k;
+			int metric = task / k % metrics.length;
+			boolean reverse = task / k / metrics.length == 1;
+			int[] dist = new int[n];
+			Dijkstra.shortestPathTree(csr, ids[i], metrics[metric], reverse, dist, null);
+			int[] table = reverse ? toTables[metric]: fromTables[metric];
+			for(int v = 0; v < n; v++)
+				table[v * k + i] = dist[v];
+		});
+
+		IntBuffer[] from = new IntBuffer[metrics.length];
+		IntBuffer[] to = new IntBuffer[metrics.length];
+		for(int metric = 0; metric < metrics.length; metric++) {
+			from[metric] = IntBuffer.wrap(fromTables[metric]);
+			to[metric] = IntBuffer.wrap(toTables[metric]);
+		}
+		return new Landmarks(csr, ids, selection, GraphSnapshot.fingerprint(csr), from, to);
+	}
+
+	/**
+	 * Loads Landmarks from a file if it was computed for this CsrGraph with the same count and
+	 * selection, otherwise builds them and saves them to the file.
+	 *
+	 * @param csr The CsrGraph to preprocess
+	 * @param filename The name of the landmark file
+	 * @param count The number of landmarks
+	 * @param selection How the landmarks are chosen
+	 * @return the Landmarks
+	 * @throws IOException if new Landmarks can not be saved, or a table would be too large to map
+	 */
+	public static Landmarks loadOrBuild(CsrGraph csr, String filename, int count, LandmarkSelection selection)
+			throws IOException {
+		checkTableSize(filename, csr.vertexCount(), Math.min(count, csr.vertexCount()));
+		if(new File(filename).isFile()) {
+			try {
+				Landmarks ret = load(csr, filename);
+				if(ret.getCount() == Math.min(count, csr.vertexCount()) && ret.selection == selection)
+					return ret;
+			} catch (IOException e) {
+				// stale or damaged file; it is rebuilt below
+			}
+		}
+		Landmarks ret = build(csr, count, selection);
+		ret.write(filename);
+		return ret;
+	}
+
+	/**
+	 * Memory-maps Landmarks saved by write().
+	 *
+	 * @param csr The CsrGraph the Landmarks must belong to
+	 * @param filename The name of the landmark file
+	 * @return the Landmarks
+	 * @throws IOException if the file can not be read or was computed for a different map
+	 */
+	public static Landmarks load(CsrGraph csr, String filename) throws IOException {
+		try(FileChannel channel = GraphSnapshot.open(filename)) {
+			long size = channel.size();
+			ByteBuffer header = GraphSnapshot.map(channel, filename, 0, Math.min(size, HEADER_BYTES + 8));
+			GraphSnapshot.checkHeader(filename, header, MAGIC, VERSION, HEADER_BYTES);
+			int n = header.getInt(8);
+			int k = header.getInt(12);
+			int selection = header.getInt(16);
+			long fingerprint = header.getLong(20);
+			int metrics = Metric.values().length;
+			long tableBytes = 4L * n * k;
+			if(n < 0 || k < Math.min(1, n) || k > n || selection < 0
+					|| selection >= LandmarkSelection.values().length
+					|| size != HEADER_BYTES + 4L * k + 2 * metrics * tableBytes + 8)
+				throw new IOException(filename + " is truncated or corrupt");
+			if(n != csr.vertexCount() || fingerprint != GraphSnapshot.fingerprint(csr))
+				throw new IOException(filename + " was computed for a different map");
+
+			// The ids, then a from and a to table per Metric, each mapped on its own
+			ByteBuffer[] parts = new ByteBuffer[1 + 2 * metrics];
+			parts[0] = GraphSnapshot.map(channel, filename, 0, HEADER_BYTES + 4L * k);
+			long pos = HEADER_BYTES + 4L * k;
+			for(int i = 1; i < parts.length; i++, pos += tableBytes)
+				parts[i] = GraphSnapshot.map(channel, filename, pos, tableBytes);
+			GraphSnapshot.verify(filename, parts, GraphSnapshot.map(channel, filename, pos, 8).getLong(0));
+
+			int[] ids = new int[k];
+			GraphSnapshot.ints(parts[0], HEADER_BYTES, k).get(ids);
+			IntBuffer[] from = new IntBuffer[metrics];
+			IntBuffer[] to = new IntBuffer[metrics];
+			for(int metric = 0; metric < metrics; metric++) {
+				from[metric] = GraphSnapshot.ints(parts[1 + 2 * metric], 0, n * k);
+				to[metric] = GraphSnapshot.ints(parts[2 + 2 * metric], 0, n * k);
+			}
+			return new Landmarks(csr, ids, LandmarkSelection.values()[selection], fingerprint, from, to);
+		}
+	}
+
+	/**
+	 * Saves the Landmarks to a file.
+	 *
+	 * @param filename The name of the landmark file
+	 * @throws IOException if the file can not be written, or a table would be too large to map
+	 */
+	public void write(String filename) throws IOException {
+		int n = graph.vertexCount();
+		checkTableSize(filename, n, ids.length);
+		try(SnapshotWriter out = new SnapshotWriter(filename)) {
+			out.putInt(MAGIC);
+			out.putInt(VERSION);
+			out.putInt(n);
+			out.putInt(ids.length);
+			out.putInt(selection.ordinal());
+			out.putLong(fingerprint);
+			for(int id: ids)
+				out.putInt(id);
+			for(int metric = 0; metric < from.length; metric++) {
+				for(int i = 0; i < n * ids.length; i++)
+					out.putInt(from[metric].get(i));
+				for(int i = 0; i < n * ids.length; i++)
+					out.putInt(to[metric].get(i));
+			}
+			out.commit();
+		}
+	}
+
+	/**
+	 * Fails if one distance table of a landmark file would be larger than a single mapping can
+	 * hold, before anything is built or written.
+	 *
+	 * @param filename The name of the landmark file, for the error message
+	 * @param n The number of vertices
+	 * @param k The number of landmarks
+	 * @throws IOException if a table would be larger than 2 GB
+	 */
+	private static void checkTableSize(String filename, int n, int k) throws IOException {
+		if(4L * n * k > Integer.MAX_VALUE)
+			throw new IOException(filename + ": a table of " + n + " vertices and " + k
+					+ " landmarks is larger than 2 GB and can not be saved; use fewer landmarks");
+	}
+
+	/**
+	 * Picks landmarks one at a time, each as far as possible from the ones before. The first is the
+	 * vertex farthest from a random vertex.
+	 *
+	 * @param csr The CsrGraph
+	 * @param count The number of landmarks
+	 * @return the vertex ids of the landmarks
+	 */
+	private static int[] selectFarthest(CsrGraph csr, int count) {
+		int n = csr.vertexCount();
+		int[] ret = new int[count];
+		int[] nearest = new int[n];
+		int[] dist = new int[n];
+		Dijkstra.shortestPathTree(csr, new Random(SEED).nextInt(n), Metric.TIME, false, nearest, null);
+
+		for(int i = 0; i < count; i++) {
+			ret[i] = farthest(nearest);
+			Dijkstra.shortestPathTree(csr, ret[i], Metric.TIME, false, dist, null);
+			if(i == 0)	Arrays.fill(nearest, UNREACHABLE);
+			for(int v = 0; v < n; v++)
+				nearest[v] = Math.min(nearest[v], dist[v]);
+			nearest[ret[i]] = -1;
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the vertex with the largest finite distance, or an unreachable vertex if no vertex has
+	 * a positive finite distance.
+	 *
+	 * @param dist The distance of each vertex
+	 * @return the id of the farthest vertex
+	 */
+	private static int farthest(int[] dist) {
+		int ret = -1;
+		int unreached = -1;
+		for(int v = 0; v < dist.length; v++) {
+			if(dist[v] == UNREACHABLE) {
+				if(unreached < 0)	unreached = v;
+			} else if(ret < 0 || dist[v] > dist[ret]) {
+				ret = v;
+			}
+		}
+		return ret >= 0 && dist[ret] > 0 || unreached < 0 ? ret: unreached;
+	}
+
+	/**
+	 * Picks landmarks with the avoid heuristic. For each new landmark a shortest path tree is grown
+	 * from a random root and every vertex is weighted by how much its tree distance exceeds the
+	 * lower bound of the landmarks chosen so far. Subtrees holding a landmark are dropped, and the
+	 * new landmark is the leaf reached by always stepping into the heaviest subtree.
+	 *
+	 * @param csr The CsrGraph
+	 * @param count The number of landmarks
+	 * @return the vertex ids of the landmarks
+	 */
+	private static int[] selectAvoid(CsrGraph csr, int count) {
+		int n = csr.vertexCount();
+		Random random = new Random(SEED);
+		int[] ret = new int[count];
+		int[][] fromDist = new int[count][];
+		int[][] toDist = new int[count][];
+		boolean[] isLandmark = new boolean[n];
+		int[] dist = new int[n];
+		int[] parent = new int[n];
+		long[] size = new long[n];
+		int[] childStart = new int[n + 1];
+		int[] children = new int[n];
+		int[] order = new int[n];
+
+		for(int i = 0; i < count; i++) {
+			int root = random.nextInt(n);
+			Dijkstra.shortestPathTree(csr, root, Metric.TIME, false, dist, parent);
+			int pick;
+			if(i == 0) {
+				pick = farthest(dist);
+			} else {
+				Arrays.fill(childStart, 0);
+				for(int v = 0; v < n; v++) {
+					if(parent[v] >= 0)	childStart[parent[v] + 1]++;
+				}
+				for(int v = 0; v < n; v++)
+					childStart[v + 1] += childStart[v];
+				int[] next = Arrays.copyOf(childStart, n);
+				for(int v = 0; v < n; v++) {
+					if(parent[v] >= 0)	children[next[parent[v]]++] = v;
+				}
+
+				int reached = 0;
+				order[reached++] = root;
+				for(int j = 0; j < reached; j++) {
+					for(int c = childStart[order[j]]; c < childStart[order[j] + 1]; c++)
+						order[reached++] = children[c];
+				}
+				for(int j = reached - 1; j >= 0; j--) {
+					int v = order[j];
+					long weight = (long) dist[v] - bound(fromDist, toDist, i, root, v);
+					size[v] = isLandmark[v] ? -1: weight;
+					for(int c = childStart[v]; c < childStart[v + 1] && size[v] >= 0; c++)
+						size[v] = size[children[c]] < 0 ? -1: size[v] + size[children[c]];
+				}
+
+				pick = root;
+				while(true) {
+					int heaviest = -1;
+					for(int c = childStart[pick]; c < childStart[pick + 1]; c++) {
+						if(size[children[c]] > 0 && (heaviest < 0 || size[children[c]] > size[heaviest]))
+							heaviest = children[c];
+					}
+					if(heaviest < 0)	break;
+					pick = heaviest;
+				}
+				if(isLandmark[pick])
+					pick = unusedFarthest(fromDist, i, isLandmark);
+			}
+
+			ret[i] = pick;
+			isLandmark[pick] = true;
+			fromDist[i] = new int[n];
+			toDist[i] = new int[n];
+			Dijkstra.shortestPathTree(csr, pick, Metric.TIME, false, fromDist[i], null);
+			Dijkstra.shortestPathTree(csr, pick, Metric.TIME, true, toDist[i], null);
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the vertex, other than a landmark, whose nearest landmark is farthest away. Used when
+	 * the avoid heuristic finds no vertex left to improve.
+	 *
+	 * @param fromDist The distances from each landmark chosen so far
+	 * @param chosen The number of landmarks chosen so far
+	 * @param isLandmark Which vertices are landmarks
+	 * @return the id of the vertex
+	 */
+	private static int unusedFarthest(int[][] fromDist, int chosen, boolean[] isLandmark) {
+		int ret = -1;
+		int retDist = -1;
+		for(int v = 0; v < isLandmark.length; v++) {
+			if(isLandmark[v])	continue;
+			int nearest = UNREACHABLE;
+			for(int i = 0; i < chosen; i++)
+				nearest = Math.min(nearest, fromDist[i][v]);
+			if(nearest > retDist) {
+				ret = v;
+				retDist = nearest;
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the landmark lower bound on the cost from one vertex to another during selection.
+	 *
+	 * @param fromDist The distances from each landmark chosen so far
+	 * @param toDist The distances to each landmark chosen so far
+	 * @param chosen The number of landmarks chosen so far
+	 * @param v The id of the first vertex
+	 * @param t The id of the second vertex
+	 * @return the lower bound, at least 0
+	 */
+	private static int bound(int[][] fromDist, int[][] toDist, int chosen, int v, int t) {
+		int ret = 0;
+		for(int i = 0; i < chosen; i++) {
+			if(fromDist[i][t] != UNREACHABLE && fromDist[i][v] != UNREACHABLE)
+				ret = Math.max(ret, fromDist[i][t] - fromDist[i][v]);
+			if(toDist[i][v] != UNREACHABLE && toDist[i][t] != UNREACHABLE)
+				ret = Math.max(ret, toDist[i][v] - toDist[i][t]);
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the distance from a landmark to a vertex.
+	 *
+	 * @param metric The cost type
+	 * @param landmark The index of the landmark
+	 * @param vertex The id of the vertex
+	 * @return the distance or Integer.MAX_VALUE if the vertex is unreachable
+	 */
+	public int getFrom(Metric metric, int landmark, int vertex) {
+		return from[metric.ordinal()].get(vertex * ids.length + landmark);
+	}
+
+	/**
+	 * Returns the distance from a vertex to a landmark.
+	 *
+	 * @param metric The cost type
+	 * @param landmark The index of the landmark
+	 * @param vertex The id of the vertex
+	 * @return the distance or Integer.MAX_VALUE if the landmark is unreachable
+	 */
+	public int getTo(Metric metric, int landmark, int vertex) {
+		return to[metric.ordinal()].get(vertex * ids.length + landmark);
+	}
+
+	//=================================================================== Getters / Setters
+	public CsrGraph getGraph() 					{	return graph;				}
+	public int getCount() 						{	return ids.length;			}
+	public int getLandmark(int index) 			{	return ids[index];			}
+	public LandmarkSelection getSelection() 	{	return selection;			}
+	public long getFingerprint() 				{	return fingerprint;			}
+}
@@ -0,0 +1,127 @@
+package gps;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * This LazyHeapPriorityQ class is part of the Graph data structure. It is a binary min heap of
+ * vertex ids with int priorities, used by the Dijkstra class for lazy queries. The same id may be
+ * added many times; Dijkstra skips the stale entries when they are removed. Each entry is packed
+ * into one long (priority in the high bits, id in the low bits) so adding and removing never
+ * creates objects. Priorities and ids must not be negative.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class LazyHeapPriorityQ implements LazyPriorityQueueInterface {
+	//=================================================================== Properties
+	private long[] elements;
+	private int size;
+	private static final int DEFAULT_CAPACITY = 16;
+
+	//=================================================================== Constructors
+	/** Creates an empty LazyHeapPriorityQ with a default capacity. */
+	public LazyHeapPriorityQ() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	//-- Workhorse Constructor
+	/**
+	 * Creates an empty LazyHeapPriorityQ with an initial capacity.
+	 *
+	 * @param initialCapacity The capacity of the LazyHeapPriorityQ
+	 */
+	public LazyHeapPriorityQ(int initialCapacity) {
+		elements = new long[Math.max(initialCapacity, 1)];
+		size = 0;
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Returns true if there are no entries.
+	 *
+	 * @return whether the LazyHeapPriorityQ is empty
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/** Removes all entries but keeps the capacity for the next query. */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Returns the number of entries.
+	 *
+	 * @return the size of the LazyHeapPriorityQ
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Adds an id with a priority.
+	 *
+	 * @param id The vertex id
+	 * @param priority The priority of the entry
+	 */
+	public void add(int id, int priority) {
+		if(size == elements.length)
+			elements = Arrays.copyOf(elements, 2 * size);
+		long entry = ((long) priority << 32) | id;
+		int index = size++;
+		while(index > 0) {
+			int parentIndex = (index - 1) >>> 1;
+			if(elements[parentIndex] <= entry)	break;
+			elements[index] = elements[parentIndex];
+			index = parentIndex;
+		}
+		elements[index] = entry;
+	}
+
+	/**
+	 * Returns the priority of the first entry.
+	 *
+	 * @return the smallest priority
+	 */
+	public int peekPriority() {
+		if(isEmpty())	throw new NoSuchElementException();
+		return (int) (elements[0] >>> 32);
+	}
+
+	/**
+	 * Removes the first entry and returns its id.
+	 *
+	 * @return the id with the smallest priority
+	 */
+	public int remove() {
+		if(isEmpty())	throw new NoSuchElementException();
+
+		int ret = (int) elements[0];
+		long entry = elements[--size];
+		int index = 0;
+		int half = size >>> 1;
+		while(index < half) {
+			int child = 2 * index + 1;
+			if(child + 1 < size && elements[child + 1] < elements[child])
+				child++;
+			if(entry <= elements[child])	break;
+			elements[index] = elements[child];
+			index = child;
+		}
+		elements[index] = entry;
+		return ret;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder ret = new StringBuilder("[");
+		for(int i = 0; i < size; i++) {
+			if(i > 0)	ret.append(", ");
+			ret.append((int) elements[i]).append("=").append(elements[i] >>> 32);
+		}
+		return ret.append("]").toString();
+	}
+}
@@ -0,0 +1,11 @@
+package gps;
+
+
+public interface LazyPriorityQueueInterface {
+	boolean isEmpty();
+	void clear();
+	int size();
+	void add(int id, int priority);
+	int peekPriority();	// throws NoSuchElementException if empty
+	int remove();		// throws NoSuchElementException if empty
+}
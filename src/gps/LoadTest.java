@@ -0,0 +1,240 @@
+package gps;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This LoadTest class replays a mix of RouteQuery objects against one Graph from many threads and
+ * reports the throughput and the latency percentiles. The queries are read from a file or drawn at
+ * random from the map's symbols.
+ *
+ * With a target rate the test is open-loop: query i is due at i / rate seconds after the start,
+ * and its latency is measured from when it was due rather than from when a thread got to it. A
+ * Graph that falls behind therefore shows the waiting time in its percentiles instead of quietly
+ * sending fewer queries. Without a rate every thread sends its next query as soon as the last one
+ * returns, which measures the highest throughput.
+ *
+ * A query file has one query per line: start and end symbols, then optionally the Metric and the
+ * SearchAlgorithm, separated by tabs. Blank lines and lines starting with # are skipped.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class LoadTest {
+	//=================================================================== Properties
+	private final Graph map;
+	private final RouteQuery[] queries;
+	private final int threads;
+	private final double rate;
+
+	//=================================================================== Constructors
+	//-- Workhorse Constructor
+	/**
+	 * Creates a LoadTest.
+	 *
+	 * @param map The Graph to query
+	 * @param queries The queries, sent in order and repeated as needed
+	 * @param threads The number of threads sending queries
+	 * @param rate The queries per second to send, or 0 to send as fast as the threads can
+	 */
+	public LoadTest(Graph map, RouteQuery[] queries, int threads, double rate) {
+		if(queries.length == 0)	throw new IllegalArgumentException("no queries");
+		if(threads < 1)	throw new IllegalArgumentException("threads must be at least 1");
+		this.map = map;
+		this.queries = queries;
+		this.threads = threads;
+		this.rate = rate;
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Sends a number of queries and waits for them all to return.
+	 *
+	 * @param count The number of queries to send
+	 * @return the Result
+	 * @throws InterruptedException if interrupted while waiting for the threads
+	 */
+	public Result run(int count) throws InterruptedException {
+		Histogram latency = new Histogram();
+		LongAdder noRoute = new LongAdder();
+		LongAdder failed = new LongAdder();
+		AtomicInteger next = new AtomicInteger();
+		long interval = rate > 0 ? (long) (1e9 / rate): 0;
+		long begin = System.nanoTime();
+
+		Thread[] workers = new Thread[threads];
+		for(int t = 0; t < threads; t++) {
+			workers[t] = new Thread(() -> {
+				for(int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+					long due = begin + i * interval;
+					long now = System.nanoTime();
+					if(interval > 0 && due > now)
+						LockSupport.parkNanos(due - now);
+					long start = interval > 0 ? due: System.nanoTime();
+					try {
+						if(map.findShortestPath(queries[i % queries.length]) == null)
+							noRoute.increment();
+					}
+					catch(RuntimeException e) {
+						failed.increment();
+					}
+					latency.record(System.nanoTime() - start);
+				}
+			}, "load-" + t);
+			workers[t].start();
+		}
+		for(Thread worker: workers)
+			worker.join();
+
+		return new Result(latency, System.nanoTime() - begin, noRoute.sum(), failed.sum());
+	}
+
+	/**
+	 * Reads queries from a file.
+	 *
+	 * @param filename The name of the query file
+	 * @return the queries in file order
+	 * @throws IOException if the file can not be read or has a malformed line
+	 */
+	public static RouteQuery[] readQueries(String filename) throws IOException {
+		List<RouteQuery> ret = new ArrayList<>();
+		try(BufferedReader in = new BufferedReader(new FileReader(filename))) {
+			String line;
+			for(int number = 1; (line = in.readLine()) != null; number++) {
+				if(line.isBlank() || line.startsWith("#"))	continue;
+				String[] fields = line.split("\t");
+				try {
+					Metric metric = fields.length > 2 ? Metric.valueOf(fields[2].trim()): Metric.TIME;
+					SearchAlgorithm algorithm = fields.length > 3 ? SearchAlgorithm.valueOf(fields[3].trim())
+							: SearchAlgorithm.DIJKSTRA;
+					ret.add(new RouteQuery(fields[0].trim(), fields[1].trim(), metric, false, QueueType.AUTO,
+							algorithm));
+				}
+				catch(IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+					throw new IOException(filename + " line " + number + ": malformed query: " + line, e);
+				}
+			}
+		}
+		return ret.toArray(new RouteQuery[0]);
+	}
+
+	/**
+	 * Draws queries between random symbols of a Graph with a random Metric.
+	 *
+	 * @param map The Graph whose symbols are used
+	 * @param count The number of queries
+	 * @param algorithm The SearchAlgorithm of every query
+	 * @param seed The seed of the draw
+	 * @return the queries
+	 */
+	public static RouteQuery[] randomQueries(Graph map, int count, SearchAlgorithm algorithm, long seed) {
+		String[] symbols = map.toSymbolsArray();
+		Random random = new Random(seed);
+		RouteQuery[] ret = new RouteQuery[count];
+		for(int i = 0; i < count; i++) {
+			Metric metric = Metric.values()[random.nextInt(Metric.values().length)];
+			ret[i] = new RouteQuery(symbols[random.nextInt(symbols.length)], symbols[random.nextInt(symbols.length)],
+					metric, false, QueueType.AUTO, algorithm);
+		}
+		return ret;
+	}
+
+	//=================================================================== Result
+	/** The outcome of one run: latencies in nanoseconds, elapsed time and failures. */
+	public static final class Result {
+		private final Histogram latency;
+		private final long elapsed;
+		private final long noRoute;
+		private final long failed;
+
+		private Result(Histogram latency, long elapsed, long noRoute, long failed) {
+			this.latency = latency;
+			this.elapsed = elapsed;
+			this.noRoute = noRoute;
+			this.failed = failed;
+		}
+
+		/**
+		 * Returns the queries completed per second.
+		 *
+		 * @return the throughput
+		 */
+		public double getThroughput() {
+			return latency.getCount() * 1e9 / elapsed;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder ret = new StringBuilder();
+			ret.append(String.format("%d queries in %.2f s: %.1f queries/s, %d without a route, %d failed%n",
+					latency.getCount(), elapsed / 1e9, getThroughput(), noRoute, failed));
+			ret.append(String.format("latency ms: mean %.3f", latency.getMean() / 1e6));
+			for(double p: new double[] { 50, 90, 99, 99.9, 99.99 })
+				ret.append(String.format(", p%s %.3f", p == (int) p ? String.valueOf((int) p): String.valueOf(p),
+						latency.percentile(p) / 1e6));
+			ret.append(String.format(", max %.3f", latency.getMax() / 1e6));
+			return ret.toString();
+		}
+
+		public Histogram getLatency() 				{	return latency;		}
+		public long getElapsed() 					{	return elapsed;		}
+		public long getNoRoute() 					{	return noRoute;		}
+		public long getFailed() 					{	return failed;		}
+	}
+
+	//=================================================================== Command Line
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if(args.length < 1) {
+			System.err.println("usage: LoadTest <map file> [-queries file] [-count n] [-warmup n] [-rate queries/s]");
+			System.err.println("                [-threads n] [-algorithm DIJKSTRA|BIDIRECTIONAL|...] [-seed n]");
+			System.exit(2);
+		}
+		String queryFile = null;
+		int count = 10_000;
+		int warmup = 1_000;
+		double rate = 0;
+		int threads = Runtime.getRuntime().availableProcessors();
+		SearchAlgorithm algorithm = SearchAlgorithm.DIJKSTRA;
+		long seed = 1;
+		for(int i = 1; i < args.length; i += 2) {
+			if(i + 1 == args.length)	throw new IllegalArgumentException("missing value for " + args[i]);
+			switch(args[i]) {
+				case "-queries":	queryFile = args[i + 1];							break;
+				case "-count":		count = Integer.parseInt(args[i + 1]);				break;
+				case "-warmup":		warmup = Integer.parseInt(args[i + 1]);				break;
+				case "-rate":		rate = Double.parseDouble(args[i + 1]);				break;
+				case "-threads":	threads = Integer.parseInt(args[i + 1]);			break;
+				case "-algorithm":	algorithm = SearchAlgorithm.valueOf(args[i + 1]);	break;
+				case "-seed":		seed = Long.parseLong(args[i + 1]);					break;
+				default:			throw new IllegalArgumentException("unknown option " + args[i]);
+			}
+		}
+
+		long start = System.nanoTime();
+		Graph map = new Graph(args[0]);
+		System.out.printf("loaded %s in %d ms%n", args[0], (System.nanoTime() - start) / 1_000_000);
+		if(algorithm == SearchAlgorithm.ALT)
+			map.prepareLandmarks(16);
+		else if(algorithm == SearchAlgorithm.CH)
+			for(Metric metric: Metric.values())
+				map.prepareHierarchy(metric);
+		else if(algorithm == SearchAlgorithm.OVERLAY)
+			map.prepareOverlay();
+
+		RouteQuery[] queries = queryFile != null ? readQueries(queryFile)
+				: randomQueries(map, Math.max(count, 1), algorithm, seed);
+		if(warmup > 0)
+			new LoadTest(map, queries, threads, 0).run(warmup);
+		LoadTest test = new LoadTest(map, queries, threads, rate);
+		System.out.print(test.run(count));
+		System.out.println();
+	}
+}
@@ -0,0 +1,547 @@
+package gps;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * This MapFileParser class reads a MapInformation file straight into a CsrGraph. The file is
+ * memory-mapped and the lines between the <Nodes> and <Edges> markers are cut into chunks on line
+ * boundaries that are parsed in parallel. Numbers are parsed from the bytes and symbols are looked
+ * up in the SymbolIndex without creating Strings, so no Scanner, split or parseInt is involved.
+ *
+ * Every malformed line is reported with its line number in a MapFormatException instead of being
+ * skipped. Blank lines are ignored, a Node that repeats an earlier symbol is ignored like before,
+ * and the first line after each section marker is the column header.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class MapFileParser {
+	//=================================================================== Properties
+	private static final int CHUNK_SIZE = 1 << 20;
+	private static final int MAX_REPORTED_ERRORS = 20;
+	private static final byte TAB = '\t';
+	private static final byte NEW_LINE = '\n';
+	private static final byte RETURN = '\r';
+	private final MappedByteBuffer buf;
+	private final int length;
+
+	//=================================================================== Constructors
+	//-- Workhorse Constructor
+	/**
+	 * Creates a MapFileParser over a mapped file.
+	 *
+	 * @param buf The mapped bytes of the file
+	 */
+	private MapFileParser(MappedByteBuffer buf) {
+		this.buf = buf;
+		this.length = buf.limit();
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Reads a MapInformation file into a CsrGraph.
+	 *
+	 * @param filename The name of the file being read
+	 * @return the CsrGraph of the file
+	 * @throws FileNotFoundException if the file does not exist
+	 * @throws MapFormatException if the file has a malformed line or section
+	 * @throws IOException if the file can not be read
+	 */
+	public static CsrGraph parse(String filename) throws IOException {
+		File file = new File(filename);
+		if(!file.isFile())	throw new FileNotFoundException(filename);
+
+		try(RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			if(channel.size() > Integer.MAX_VALUE)
+				throw new MapFormatException(filename + " is larger than 2 GB", 0);
+			return new MapFileParser(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())).parse();
+		}
+	}
+
+	/**
+	 * Finds both sections, parses them in parallel chunks, and builds the CsrGraph.
+	 *
+	 * @return the CsrGraph of the file
+	 * @throws MapFormatException if the file has a malformed line or section
+	 */
+	private CsrGraph parse() throws MapFormatException {
+		// Find the sections; the first line after each start marker is a header
+		int nodesMarker = findLine("<Nodes>", 0);
+		if(nodesMarker < 0)	throw new MapFormatException("Missing <Nodes> section", 0);
+		int nodesStart = nextLine(nextLine(nodesMarker));
+		int nodesEnd = findLine("</Nodes>", nodesStart);
+		if(nodesEnd < 0)	throw new MapFormatException("Missing </Nodes> marker", 0);
+		int edgesMarker = findLine("<Edges>", nodesEnd);
+		if(edgesMarker < 0)	throw new MapFormatException("Missing <Edges> section", 0);
+		int edgesStart = nextLine(nextLine(edgesMarker));
+		int edgesEnd = findLine("</Edges>", edgesStart);
+		if(edgesEnd < 0)	edgesEnd = length;
+
+		// Nodes
+		int[] nodeBounds = chunkBounds(nodesStart, nodesEnd);
+		NodeChunk[] nodeChunks = new NodeChunk[nodeBounds.length - 1];
+		IntStream.range(0, nodeChunks.length).parallel()
+				.forEach(i -> nodeChunks[i] = parseNodes(nodeBounds[i], nodeBounds[i + 1]));
+		long nodesFirstLine = countLines(0, nodesStart) + 1;
+		long line = nodesFirstLine;
+		List<String> errors = new ArrayList<>();
+		long firstErrorLine = 0;
+		for(NodeChunk chunk: nodeChunks) {
+			firstErrorLine = collectErrors(chunk, line, errors, firstErrorLine);
+			line += chunk.lines;
+		}
+		long edgesFirstLine = line + countLines(nodesEnd, edgesStart);
+		SymbolIndex symbols = mergeNodes(nodeChunks);
+		SymbolIndex addresses = new SymbolIndex(addressesOf(nodeChunks, symbols));
+
+		// Edges
+		int[] edgeBounds = chunkBounds(edgesStart, edgesEnd);
+		EdgeChunk[] edgeChunks = new EdgeChunk[edgeBounds.length - 1];
+		IntStream.range(0, edgeChunks.length).parallel()
+				.forEach(i -> edgeChunks[i] = parseEdges(edgeBounds[i], edgeBounds[i + 1], symbols));
+		line = edgesFirstLine;
+		for(EdgeChunk chunk: edgeChunks) {
+			firstErrorLine = collectErrors(chunk, line, errors, firstErrorLine);
+			line += chunk.lines;
+		}
+
+		if(!errors.isEmpty()) {
+			StringBuilder message = new StringBuilder("Malformed map file:");
+			for(String error: errors)
+				message.append("\n  ").append(error);
+			throw new MapFormatException(message.toString(), firstErrorLine);
+		}
+		return toCsrGraph(symbols, addresses, edgeChunks);
+	}
+
+	/**
+	 * Joins the symbols of the Node chunks in file order, dropping repeated symbols.
+	 *
+	 * @param chunks The parsed Node chunks
+	 * @return the SymbolIndex of the vertices
+	 */
+	private static SymbolIndex mergeNodes(NodeChunk[] chunks) {
+		int count = 0;
+		for(NodeChunk chunk: chunks)
+			count += chunk.size;
+		String[] names = new String[count];
+		int next = 0;
+		for(NodeChunk chunk: chunks) {
+			System.arraycopy(chunk.symbols, 0, names, next, chunk.size);
+			next += chunk.size;
+		}
+
+		SymbolIndex ret = new SymbolIndex(names);
+		String[] unique = new String[count];
+		int uniqueCount = 0;
+		for(int i = 0; i < count; i++) {
+			if(ret.indexOf(names[i]) == i)
+				unique[uniqueCount++] = names[i];
+		}
+		return uniqueCount == count ? ret: new SymbolIndex(Arrays.copyOf(unique, uniqueCount));
+	}
+
+	/**
+	 * Joins the addresses of the Node chunks in file order, keeping the address of the first Node
+	 * with each symbol.
+	 *
+	 * @param chunks The parsed Node chunks
+	 * @param symbols The SymbolIndex of the vertices
+	 * @return the addresses in vertex id order
+	 */
+	private static String[] addressesOf(NodeChunk[] chunks, SymbolIndex symbols) {
+		String[] ret = new String[symbols.size()];
+		int next = 0;
+		for(NodeChunk chunk: chunks) {
+			for(int i = 0; i < chunk.size; i++) {
+				if(next < ret.length && symbols.get(next).equals(chunk.symbols[i]))
+					ret[next++] = chunk.addresses[i];
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Lays the edges of every chunk out in CSR order. Edges keep their file order within each
+	 * source vertex.
+	 *
+	 * @param symbols The SymbolIndex of the vertices
+	 * @param addresses The SymbolIndex of the addresses
+	 * @param chunks The parsed Edge chunks
+	 * @return the CsrGraph
+	 */
+	private static CsrGraph toCsrGraph(SymbolIndex symbols, SymbolIndex addresses, EdgeChunk[] chunks) {
+		int n = symbols.size();
+		int[] offsets = new int[n + 1];
+		for(EdgeChunk chunk: chunks) {
+			for(int i = 0; i < chunk.size; i++)
+				offsets[chunk.sources[i] + 1]++;
+		}
+		for(int v = 0; v < n; v++)
+			offsets[v + 1] += offsets[v];
+
+		int m = offsets[n];
+		int[] next = Arrays.copyOf(offsets, n);
+		int[] targets = new int[m];
+		int[] timeCosts = new int[m];
+		int[] distanceCosts = new int[m];
+		int[] laneCosts = new int[m];
+		for(EdgeChunk chunk: chunks) {
+			for(int i = 0; i < chunk.size; i++) {
+				int e = next[chunk.sources[i]]++;
+				targets[e] = chunk.targets[i];
+				timeCosts[e] = chunk.timeCosts[i];
+				distanceCosts[e] = chunk.distanceCosts[i];
+				laneCosts[e] = chunk.laneCosts[i];
+			}
+		}
+		return new CsrGraph(symbols, addresses, offsets, targets, timeCosts, distanceCosts, laneCosts);
+	}
+
+	/**
+	 * Parses the Node lines of one chunk. Each line is a symbol and an address separated by a tab.
+	 *
+	 * @param start The index of the first byte of the chunk
+	 * @param end The index one past the last byte of the chunk
+	 * @return the parsed chunk
+	 */
+	private NodeChunk parseNodes(int start, int end) {
+		NodeChunk chunk = new NodeChunk();
+		int lineStart = start;
+		while(lineStart < end) {
+			int lineEnd = lineEnd(lineStart, end);
+			int contentEnd = trimReturn(lineStart, lineEnd);
+			if(!isBlank(lineStart, contentEnd)) {
+				int tab = indexOf(TAB, lineStart, contentEnd);
+				int addressEnd = tab < 0 ? -1: indexOf(TAB, tab + 1, contentEnd);
+				if(addressEnd < 0)	addressEnd = contentEnd;
+				if(tab <= lineStart || addressEnd == tab + 1)
+					chunk.error(chunk.lines, "expected <symbol>\\t<address>");
+				else
+					chunk.add(decode(lineStart, tab), decode(tab + 1, addressEnd));
+			}
+			chunk.lines++;
+			lineStart = lineEnd + 1;
+		}
+		return chunk;
+	}
+
+	/**
+	 * Parses the Edge lines of one chunk. Each line is a source symbol, destination symbol, time
+	 * cost, distance cost and number of lanes separated by tabs.
+	 *
+	 * @param start The index of the first byte of the chunk
+	 * @param end The index one past the last byte of the chunk
+	 * @param symbols The symbols of the vertices
+	 * @return the parsed chunk
+	 */
+	private EdgeChunk parseEdges(int start, int end, SymbolIndex symbols) {
+		EdgeChunk chunk = new EdgeChunk();
+		int[] fields = new int[6];
+		int lineStart = start;
+		while(lineStart < end) {
+			int lineEnd = lineEnd(lineStart, end);
+			int contentEnd = trimReturn(lineStart, lineEnd);
+			if(!isBlank(lineStart, contentEnd))
+				parseEdge(chunk, symbols, fields, lineStart, contentEnd);
+			chunk.lines++;
+			lineStart = lineEnd + 1;
+		}
+		return chunk;
+	}
+
+	/**
+	 * Parses one Edge line into the chunk or records why it is malformed.
+	 *
+	 * @param chunk The chunk being parsed
+	 * @param symbols The symbols of the vertices
+	 * @param fields Scratch space for the start index of each field
+	 * @param start The index of the first byte of the line
+	 * @param end The index one past the last byte of the line
+	 */
+	private void parseEdge(EdgeChunk chunk, SymbolIndex symbols, int[] fields, int start, int end) {
+		// fields[i] is the start of field i, fields[i + 1] - 1 is its end
+		int count = 0;
+		fields[count++] = start;
+		for(int i = start; i < end && count < fields.length; i++) {
+			if(buf.get(i) == TAB)
+				fields[count++] = i + 1;
+		}
+		if(count < fields.length)
+			fields[count++] = end + 1;
+		if(count < fields.length) {
+			chunk.error(chunk.lines, "expected 5 tab separated columns");
+			return;
+		}
+
+		int source = symbols.indexOf(buf, fields[0], fields[1] - 1);
+		int target = symbols.indexOf(buf, fields[1], fields[2] - 1);
+		if(source < 0 || target < 0) {
+			chunk.error(chunk.lines, "unknown symbol " + decode(source < 0 ? fields[0]: fields[1],
+					source < 0 ? fields[1] - 1: fields[2] - 1));
+			return;
+		}
+		long time = parseCost(fields[2], fields[3] - 1);
+		long distance = parseCost(fields[3], fields[4] - 1);
+		long lanes = parseCost(fields[4], fields[5] - 1);
+		if(time < 0 || distance < 0 || lanes < 0) {
+			chunk.error(chunk.lines, "costs must be non-negative whole numbers");
+			return;
+		}
+		long lane = lanes * distance;
+		if(time > Integer.MAX_VALUE || distance > Integer.MAX_VALUE || lane > Integer.MAX_VALUE) {
+			chunk.error(chunk.lines, "cost is too large");
+			return;
+		}
+		chunk.add(source, target, (int) time, (int) distance, (int) lane);
+	}
+
+	/**
+	 * Parses a non-negative whole number from bytes.
+	 *
+	 * @param start The index of the first digit
+	 * @param end The index one past the last digit
+	 * @return the number, or -1 if the bytes are not a number or it is too large
+	 */
+	private long parseCost(int start, int end) {
+		if(start >= end || end - start > 10)	return -1;
+		long ret = 0;
+		for(int i = start; i < end; i++) {
+			int digit = buf.get(i) - '0';
+			if(digit < 0 || digit > 9)	return -1;
+			ret = 10 * ret + digit;
+		}
+		return ret;
+	}
+
+	/**
+	 * Copies the errors of a chunk into the error list with file line numbers.
+	 *
+	 * @param chunk The parsed chunk
+	 * @param firstLine The file line number of the chunk's first line
+	 * @param errors The error list
+	 * @param firstErrorLine The line number of the first error so far or 0
+	 * @return the line number of the first error so far or 0
+	 */
+	private static long collectErrors(Chunk chunk, long firstLine, List<String> errors, long firstErrorLine) {
+		for(int i = 0; i < chunk.errorCount; i++) {
+			long line = firstLine + chunk.errorLines[i];
+			if(firstErrorLine == 0)
+				firstErrorLine = line;
+			if(errors.size() < MAX_REPORTED_ERRORS)
+				errors.add("line " + line + ": " + chunk.errorMessages[i]);
+			else if(errors.size() == MAX_REPORTED_ERRORS)
+				errors.add("...");
+		}
+		return firstErrorLine;
+	}
+
+	/**
+	 * Splits a section into chunks of about CHUNK_SIZE bytes that start at the start of a line.
+	 *
+	 * @param start The index of the first byte of the section
+	 * @param end The index one past the last byte of the section
+	 * @return the chunk boundaries, first start up to last end
+	 */
+	private int[] chunkBounds(int start, int end) {
+		int[] bounds = new int[(end - start) / CHUNK_SIZE + 2];
+		int count = 0;
+		bounds[count++] = start;
+		int next = start;
+		while(end - next > CHUNK_SIZE) {
+			next = nextLine(next + CHUNK_SIZE);
+			if(next >= end)	break;
+			bounds[count++] = next;
+		}
+		bounds[count++] = end;
+		return Arrays.copyOf(bounds, count);
+	}
+
+	/**
+	 * Finds the start of the first line at or after from that contains the marker.
+	 *
+	 * @param marker The text to look for
+	 * @param from The index to start looking at
+	 * @return the index of the start of the line, or -1 if the marker is not found
+	 */
+	private int findLine(String marker, int from) {
+		byte[] bytes = marker.getBytes(StandardCharsets.US_ASCII);
+		outer:
+		for(int i = from; i <= length - bytes.length; i++) {
+			for(int j = 0; j < bytes.length; j++) {
+				if(buf.get(i + j) != bytes[j])
+					continue outer;
+			}
+			int lineStart = i;
+			while(lineStart > from && buf.get(lineStart - 1) != NEW_LINE)
+				lineStart--;
+			return lineStart;
+		}
+		return -1;
+	}
+
+	/**
+	 * Counts the lines that start in a range that begins at the start of a line.
+	 *
+	 * @param start The index of the first byte
+	 * @param end The index one past the last byte
+	 * @return the number of lines
+	 */
+	private long countLines(int start, int end) {
+		long ret = 0;
+		for(int i = start; i < end; i++) {
+			if(buf.get(i) == NEW_LINE)
+				ret++;
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the index just after the line that contains index, or the end of the file.
+	 *
+	 * @param index Any index inside the line
+	 * @return the start of the next line
+	 */
+	private int nextLine(int index) {
+		int end = lineEnd(index, length);
+		return end < length ? end + 1: length;
+	}
+
+	/**
+	 * Returns the index of the new line that ends the line, or end if there is none.
+	 *
+	 * @param start The index to look from
+	 * @param end The index to stop looking at
+	 * @return the index of the new line
+	 */
+	private int lineEnd(int start, int end) {
+		int i = start;
+		while(i < end && buf.get(i) != NEW_LINE)
+			i++;
+		return i;
+	}
+
+	/**
+	 * Drops a carriage return at the end of a line.
+	 *
+	 * @param start The index of the first byte of the line
+	 * @param end The index of the new line
+	 * @return the end of the line content
+	 */
+	private int trimReturn(int start, int end) {
+		return end > start && buf.get(end - 1) == RETURN ? end - 1: end;
+	}
+
+	/**
+	 * Checks if a line only has spaces and tabs.
+	 *
+	 * @param start The index of the first byte of the line
+	 * @param end The index one past the last byte of the line
+	 * @return whether the line is blank
+	 */
+	private boolean isBlank(int start, int end) {
+		for(int i = start; i < end; i++) {
+			byte b = buf.get(i);
+			if(b != ' ' && b != TAB)	return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the index of the first matching byte in a range, or -1.
+	 *
+	 * @param b The byte to look for
+	 * @param start The index of the first byte
+	 * @param end The index one past the last byte
+	 * @return the index of the byte
+	 */
+	private int indexOf(byte b, int start, int end) {
+		for(int i = start; i < end; i++) {
+			if(buf.get(i) == b)	return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Decodes a range of bytes as UTF-8.
+	 *
+	 * @param start The index of the first byte
+	 * @param end The index one past the last byte
+	 * @return the String
+	 */
+	private String decode(int start, int end) {
+		byte[] bytes = new byte[end - start];
+		for(int i = start; i < end; i++)
+			bytes[i - start] = buf.get(i);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	//=================================================================== Chunk Results
+	/** The lines and errors of one parsed chunk. */
+	private static class Chunk {
+		int lines;
+		int errorCount;
+		int[] errorLines = new int[0];
+		String[] errorMessages = new String[0];
+
+		void error(int line, String message) {
+			if(errorCount > MAX_REPORTED_ERRORS)	return;
+			errorLines = Arrays.copyOf(errorLines, errorCount + 1);
+			errorMessages = Arrays.copyOf(errorMessages, errorCount + 1);
+			errorLines[errorCount] = line;
+			errorMessages[errorCount++] = message;
+		}
+	}
+
+	/** The vertices of one parsed chunk of Node lines. */
+	private static class NodeChunk extends Chunk {
+		int size;
+		String[] symbols = new String[16];
+		String[] addresses = new String[16];
+
+		void add(String symbol, String address) {
+			if(size == symbols.length) {
+				symbols = Arrays.copyOf(symbols, 2 * size);
+				addresses = Arrays.copyOf(addresses, 2 * size);
+			}
+			symbols[size] = symbol;
+			addresses[size++] = address;
+		}
+	}
+
+	/** The edges of one parsed chunk of Edge lines. */
+	private static class EdgeChunk extends Chunk {
+		int size;
+		int[] sources = new int[16];
+		int[] targets = new int[16];
+		int[] timeCosts = new int[16];
+		int[] distanceCosts = new int[16];
+		int[] laneCosts = new int[16];
+
+		void add(int source, int target, int time, int distance, int lane) {
+			if(size == sources.length) {
+				sources = Arrays.copyOf(sources, 2 * size);
+				targets = Arrays.copyOf(targets, 2 * size);
+				timeCosts = Arrays.copyOf(timeCosts, 2 * size);
+				distanceCosts = Arrays.copyOf(distanceCosts, 2 * size);
+				laneCosts = Arrays.copyOf(laneCosts, 2 * size);
+			}
+			sources[size] = source;
+			targets[size] = target;
+			timeCosts[size] = time;
+			distanceCosts[size] = distance;
+			laneCosts[size++] = lane;
+		}
+	}
+}
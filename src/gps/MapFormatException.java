@@ -0,0 +1,34 @@
+package gps;
+
+import java.io.IOException;
+
+/**
+ * This MapFormatException class is thrown by the MapFileParser when a MapInformation file can not
+ * be read into a Graph. It carries the line number of the first bad line so the file can be fixed;
+ * the message lists every bad line found, up to a limit.
+ * 
+ * @author wyattcombs
+ *
+ */
+
+public class MapFormatException extends IOException {
+	//=================================================================== Properties
+	private static final long serialVersionUID = 1L;
+	private final long lineNumber;
+	
+	//=================================================================== Constructors
+	//-- Workhorse Constructor
+	/**
+	 * Creates a MapFormatException.
+	 * 
+	 * @param message The description of the problem
+	 * @param lineNumber The 1-based line number of the first bad line, or 0 if there is none
+	 */
+	public MapFormatException(String message, long lineNumber) {
+		super(message);
+		this.lineNumber = lineNumber;
+	}
+
+	//=================================================================== Getters / Setters
+	public long getLineNumber() 				{	return lineNumber;			}
+}
@@ -0,0 +1,288 @@
+package gps;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * This MapGenerator class writes synthetic road networks in the MapInformation format that
+ * Graph.addData reads, for load tests and benchmarks on maps far larger than the hand-made ones.
+ * Files are written as they are generated, so maps of millions of vertices need little memory
+ * beyond the vertex coordinates. The same arguments and seed always give the same file.
+ *
+ * Two layouts are supported. A grid is a city of blocks: every tenth street is a faster arterial
+ * with three or four lanes and the rest are one or two lane local streets. A random geometric
+ * network scatters vertices uniformly over a square and joins each to its nearest neighbours,
+ * which looks more like suburbs and rural roads; most roads have one lane and a few have up to
+ * four. In both, every road runs in both directions with the same costs, distance follows the
+ * geometry, and time is distance divided by a speed that grows with the lane count.
+ *
+ * Run from the command line with: grid side file [seed], or geometric vertices file [seed].
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class MapGenerator {
+	//=================================================================== Properties
+	public static final int ARTERIAL_SPACING = 10;
+	public static final int NEIGHBOURS = 4;
+	private static final int BLOCK_LENGTH = 10;
+	private static final int[] LANE_WEIGHTS = { 60, 25, 10, 5 };
+
+	//=================================================================== Constructors
+	//-- Empty Constructor
+	private MapGenerator() {
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Writes a grid of side * side vertices. Blocks are between 8 and 12 long.
+	 *
+	 * @param filename The name of the file to write
+	 * @param side The number of vertices along each side
+	 * @param seed The seed of the random costs
+	 * @throws IOException if the file can not be written
+	 */
+	public static void writeGrid(String filename, int side, long seed) throws IOException {
+		if(side < 1 || (long) side * side > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("bad side " + side);
+		Random random = new Random(seed);
+		try(BufferedWriter out = new BufferedWriter(new FileWriter(filename), 1 << 16)) {
+			writeNodes(out, side * side, v -> v % side + " Street " + v / side);
+			for(int v = 0; v < side * side; v++) {
+				int x = v % side;
+				int y = v / side;
+				if(x + 1 < side)
+					writeRoad(out, v, v + 1, BLOCK_LENGTH - 2 + random.nextInt(5), gridLanes(random, y));
+				if(y + 1 < side)
+					writeRoad(out, v, v + side, BLOCK_LENGTH - 2 + random.nextInt(5), gridLanes(random, x));
+			}
+			out.write("</Edges>\n");
+		}
+	}
+
+	/**
+	 * Writes a random geometric network. The vertices are scattered over a square sized so that
+	 * neighbours are about 10 apart, and each is joined to its NEIGHBOURS nearest vertices.
+	 *
+	 * @param filename The name of the file to write
+	 * @param vertices The number of vertices
+	 * @param seed The seed of the positions and lanes
+	 * @throws IOException if the file can not be written
+	 */
+	public static void writeGeometric(String filename, int vertices, long seed) throws IOException {
+		if(vertices < 2)	throw new IllegalArgumentException("need at least 2 vertices");
+		Random random = new Random(seed);
+		int cells = Math.max(1, (int) Math.sqrt(vertices / 2.0));
+		double size = BLOCK_LENGTH * Math.sqrt(vertices);
+		double cellSize = size / cells;
+		double[] x = new double[vertices];
+		double[] y = new double[vertices];
+		for(int v = 0; v < vertices; v++) {
+			x[v] = random.nextDouble() * size;
+			y[v] = random.nextDouble() * size;
+		}
+
+		// Bucket the vertices by cell so neighbours are found without comparing every pair
+		int[] cellStart = new int[cells * cells + 1];
+		for(int v = 0; v < vertices; v++)
+			cellStart[cellOf(x[v], y[v], cellSize, cells) + 1]++;
+		for(int c = 0; c < cells * cells; c++)
+			cellStart[c + 1] += cellStart[c];
+		int[] cellVertices = new int[vertices];
+		int[] fill = Arrays.copyOf(cellStart, cells * cells);
+		for(int v = 0; v < vertices; v++)
+			cellVertices[fill[cellOf(x[v], y[v], cellSize, cells)]++] = v;
+
+		int[] nearest = new int[vertices * NEIGHBOURS];
+		for(int v = 0; v < vertices; v++)
+			findNearest(v, x, y, cellStart, cellVertices, cellSize, cells, nearest);
+
+		try(BufferedWriter out = new BufferedWriter(new FileWriter(filename), 1 << 16)) {
+			writeNodes(out, vertices, v -> v + " County Rd.");
+			for(int v = 0; v < vertices; v++) {
+				for(int i = 0; i < NEIGHBOURS; i++) {
+					int w = nearest[v * NEIGHBOURS + i];
+					if(w < 0 || (w < v && contains(nearest, w, v)))	continue;
+					int distance = Math.max(1, (int) Math.round(Math.hypot(x[v] - x[w], y[v] - y[w])));
+					writeRoad(out, v, w, distance, geometricLanes(random));
+				}
+			}
+			out.write("</Edges>\n");
+		}
+	}
+
+	/**
+	 * Returns the symbol of a generated vertex.
+	 *
+	 * @param vertex The number of the vertex
+	 * @return the symbol
+	 */
+	public static String symbol(int vertex) {
+		return "V" + vertex;
+	}
+
+	/**
+	 * Writes the Nodes section and the Edges header.
+	 *
+	 * @param out The map file
+	 * @param vertices The number of vertices
+	 * @param address The address of each vertex
+	 * @throws IOException if the file can not be written
+	 */
+	private static void writeNodes(BufferedWriter out, int vertices, IntFunction<String> address)
+			throws IOException {
+		out.write("<Nodes>\nSymbol\tAddress\n");
+		for(int v = 0; v < vertices; v++) {
+			out.write(symbol(v));
+			out.write('\t');
+			out.write(address.apply(v));
+			out.write('\n');
+		}
+		out.write("</Nodes>\n<Edges>\nSource\tDestination\tTimeCost\tDistanceCost\tLanes\n");
+	}
+
+	/**
+	 * Writes a road in both directions. The time cost is the distance divided by a speed of one
+	 * plus half the lanes, so wider roads are faster.
+	 *
+	 * @param out The map file
+	 * @param from The number of one vertex
+	 * @param to The number of the other vertex
+	 * @param distance The length of the road
+	 * @param lanes The number of lanes
+	 * @throws IOException if the file can not be written
+	 */
+	private static void writeRoad(BufferedWriter out, int from, int to, int distance, int lanes) throws IOException {
+		int time = Math.max(1, (int) Math.round(distance / (1 + lanes / 2.0)));
+		String costs = "\t" + time + "\t" + distance + "\t" + lanes + "\n";
+		out.write(symbol(from) + "\t" + symbol(to) + costs);
+		out.write(symbol(to) + "\t" + symbol(from) + costs);
+	}
+
+	/**
+	 * Returns the lanes of a grid street: three or four on arterials, one or two elsewhere.
+	 *
+	 * @param random The source of the lanes
+	 * @param street The row or column of the street
+	 * @return the number of lanes
+	 */
+	private static int gridLanes(Random random, int street) {
+		return (street % ARTERIAL_SPACING == 0 ? 3: 1) + random.nextInt(2);
+	}
+
+	/**
+	 * Returns the lanes of a geometric road, drawn with the weights of LANE_WEIGHTS.
+	 *
+	 * @param random The source of the lanes
+	 * @return the number of lanes
+	 */
+	private static int geometricLanes(Random random) {
+		int draw = random.nextInt(100);
+		for(int lanes = 0; lanes < LANE_WEIGHTS.length; lanes++) {
+			draw -= LANE_WEIGHTS[lanes];
+			if(draw < 0)	return lanes + 1;
+		}
+		return LANE_WEIGHTS.length;
+	}
+
+	/**
+	 * Returns the cell of a position.
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @param cellSize The side of a cell
+	 * @param cells The number of cells along each side
+	 * @return the index of the cell
+	 */
+	private static int cellOf(double x, double y, double cellSize, int cells) {
+		int cx = Math.min(cells - 1, (int) (x / cellSize));
+		int cy = Math.min(cells - 1, (int) (y / cellSize));
+		return cy * cells + cx;
+	}
+
+	/**
+	 * Finds the NEIGHBOURS nearest vertices of a vertex. Rings of cells around it are searched
+	 * until enough vertices were seen and no unsearched cell can hold a nearer one.
+	 *
+	 * @param v The vertex
+	 * @param x The x coordinates
+	 * @param y The y coordinates
+	 * @param cellStart The first index in cellVertices of each cell
+	 * @param cellVertices The vertices ordered by cell
+	 * @param cellSize The side of a cell
+	 * @param cells The number of cells along each side
+	 * @param nearest Receives the neighbours at v * NEIGHBOURS, nearest first, -1 if too few
+	 */
+	private static void findNearest(int v, double[] x, double[] y, int[] cellStart, int[] cellVertices,
+			double cellSize, int cells, int[] nearest) {
+		int[] best = new int[NEIGHBOURS];
+		double[] bestDist = new double[NEIGHBOURS];
+		Arrays.fill(best, -1);
+		Arrays.fill(bestDist, Double.MAX_VALUE);
+		int cx = Math.min(cells - 1, (int) (x[v] / cellSize));
+		int cy = Math.min(cells - 1, (int) (y[v] / cellSize));
+		for(int ring = 0; ring < cells; ring++) {
+			if(best[NEIGHBOURS - 1] >= 0 && (ring - 1) * cellSize > Math.sqrt(bestDist[NEIGHBOURS - 1]))	break;
+			for(int gy = cy - ring; gy <= cy + ring; gy++) {
+				for(int gx = cx - ring; gx <= cx + ring; gx++) {
+					boolean edge = Math.abs(gy - cy) == ring || Math.abs(gx - cx) == ring;
+					if(!edge || gx < 0 || gy < 0 || gx >= cells || gy >= cells)	continue;
+					int cell = gy * cells + gx;
+					for(int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+						int w = cellVertices[i];
+						if(w == v)	continue;
+						double dist = (x[v] - x[w]) * (x[v] - x[w]) + (y[v] - y[w]) * (y[v] - y[w]);
+						for(int k = 0; k < NEIGHBOURS; k++) {
+							if(dist < bestDist[k]) {
+								System.arraycopy(best, k, best, k + 1, NEIGHBOURS - k - 1);
+								System.arraycopy(bestDist, k, bestDist, k + 1, NEIGHBOURS - k - 1);
+								best[k] = w;
+								bestDist[k] = dist;
+								break;
+							}
+						}
+					}
+				}
+			}
+		}
+		System.arraycopy(best, 0, nearest, v * NEIGHBOURS, NEIGHBOURS);
+	}
+
+	/**
+	 * Returns true if a vertex is one of another's nearest neighbours.
+	 *
+	 * @param nearest The neighbours of every vertex
+	 * @param vertex The vertex whose neighbours are checked
+	 * @param neighbour The possible neighbour
+	 * @return whether the road was already written from the other end
+	 */
+	private static boolean contains(int[] nearest, int vertex, int neighbour) {
+		for(int i = 0; i < NEIGHBOURS; i++) {
+			if(nearest[vertex * NEIGHBOURS + i] == neighbour)	return true;
+		}
+		return false;
+	}
+
+	//=================================================================== Command Line
+	public static void main(String[] args) throws IOException {
+		if(args.length < 3) {
+			System.err.println("usage: MapGenerator grid <side> <file> [seed]");
+			System.err.println("       MapGenerator geometric <vertices> <file> [seed]");
+			System.exit(2);
+		}
+		long seed = args.length > 3 ? Long.parseLong(args[3]): 42;
+		long start = System.nanoTime();
+		if(args[0].equals("grid"))
+			writeGrid(args[2], Integer.parseInt(args[1]), seed);
+		else if(args[0].equals("geometric"))
+			writeGeometric(args[2], Integer.parseInt(args[1]), seed);
+		else
+			throw new IllegalArgumentException("unknown layout " + args[0]);
+		System.out.printf("wrote %s in %d ms%n", args[2], (System.nanoTime() - start) / 1_000_000);
+	}
+}
@@ -0,0 +1,31 @@
+package gps;
+
+/**
+ * This Metric enum lists the cost types an Edge has. Every RouteQuery carries the Metric it is
+ * searched with, so queries with different metrics can run at the same time on one Graph.
+ * 
+ * @author wyattcombs
+ *
+ */
+
+public enum Metric {
+	TIME("Time"),
+	DISTANCE("Distance"),
+	LANE("Lane");
+	
+	//=================================================================== Properties
+	private final String label;
+	
+	//=================================================================== Constructors
+	/**
+	 * Creates a Metric with the name printed next to its costs.
+	 * 
+	 * @param label The printed name of the Metric
+	 */
+	Metric(String label) {
+		this.label = label;
+	}
+
+	//=================================================================== Getters / Setters
+	public String getLabel() 					{	return label;				}
+}
@@ -0,0 +1,223 @@
+package gps;
+
+import java.util.Arrays;
+
+/**
+ * This OverlayDijkstra class is part of the Graph data structure. It answers shortest path queries
+ * with customized OverlayWeights. Every vertex the search settles is scanned on the highest level
+ * whose cell holds neither the start nor the end Vertex: from there the search jumps straight to
+ * the other boundary vertices of that cell along the arcs of its clique, and follows only the Edges
+ * that leave the cell. Inside the lowest cells of the start and end every Edge is followed. The search
+ * thus climbs to coarser cells as it moves away from the start and comes back down near the end,
+ * so the inside of most cells is never searched.
+ *
+ * Each clique hop on the resulting path is unpacked with the same search restricted to its cell,
+ * which uses the levels below, until the returned Path is made of Edges of the map.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class OverlayDijkstra {
+	//=================================================================== Methods
+	/**
+	 * Returns the shortest path from one Vertex to another. Null is returned if no paths found.
+	 *
+	 * @param overlay The OverlayWeights of the CsrGraph being searched
+	 * @param start The id of the start Vertex
+	 * @param end The id of the end Vertex
+	 * @return The shortest path as a Path object in the Metric of the overlay
+	 */
+	public static Path shortestPath(OverlayWeights overlay, int start, int end) {
+		GraphPartition partition = overlay.getPartition();
+		SearchContext ctx = SearchContext.current();
+		search(overlay, ctx, start, end, partition.getLevelCount(), -1, -1);
+		if(!ctx.isSettled(end))	return null;
+
+		int cost = ctx.getDist(end);
+		Legs legs = new Legs(start);
+		unpack(overlay, ctx, start, end, partition.getLevelCount(), legs);
+		return new Path(overlay.getGraph(), Arrays.copyOf(legs.vertices, legs.length + 1),
+				Arrays.copyOf(legs.costs, legs.length), cost, overlay.getMetric());
+	}
+
+	/**
+	 * Runs Dijkstra over the overlay inside one cell, or over the whole map, until the end is
+	 * settled. Each vertex is scanned on its query level: the highest level below the cell's whose
+	 * cell holds neither the start nor the end, or -1 to follow every Edge. Customizing passes a
+	 * lowest scan level so that only the cliques of the level below are used.
+	 *
+	 * @param overlay The OverlayWeights to search; the levels below the cell's must be customized
+	 * @param ctx The SearchContext to search with
+	 * @param start The id of the start Vertex
+	 * @param end The id of the Vertex to stop at, or -1 to search the whole cell
+	 * @param level The level of the cell to stay in, or the level count to search the whole map
+	 * @param cell The cell to stay in, or -1 to search the whole map
+	 * @param floor The lowest level any vertex is scanned on, or -1
+	 */
+	static void search(OverlayWeights overlay, SearchContext ctx, int start, int end, int level, int cell,
+			int floor) {
+		GraphPartition partition = overlay.getPartition();
+		CsrGraph csr = overlay.getGraph();
+		Metric metric = overlay.getMetric();
+		ctx.reset(csr.vertexCount());
+		LazyHeapPriorityQ pq = ctx.getLazyQ();
+		ctx.setDist(start, 0, -1);
+		pq.add(start, 0);
+
+		while(!pq.isEmpty()) {
+			int currCost = pq.peekPriority();
+			int currVert = pq.remove();
+			if(ctx.isSettled(currVert))	continue;
+			ctx.settle(currVert);
+			if(currVert == end)	return;
+
+			int scan = Math.max(floor, queryLevel(partition, currVert, start, end, level));
+			int scanCell = scan >= 0 ? partition.getCell(scan, currVert): -1;
+			for(int e = csr.firstEdge(currVert); e < csr.endEdge(currVert); e++) {
+				int nextVert = csr.getTarget(e);
+				if(cell >= 0 && partition.getCell(level, nextVert) != cell)	continue;
+				if(scan < 0 || partition.getCell(scan, nextVert) != scanCell)
+					relax(ctx, pq, currVert, nextVert, currCost + csr.getCost(metric, e));
+			}
+			if(scan >= 0) {
+				int[] weights = overlay.weights(scan);
+				int[] arcs = overlay.arcs(scan);
+				int size = partition.boundarySize(scan, scanCell);
+				int row = partition.cliqueStart(scan, scanCell) + partition.getBoundaryIndex(scan, currVert) * size;
+				for(int i = 0; i < size && arcs[row + i] >= 0; i++) {
+					int to = arcs[row + i];
+					relax(ctx, pq, currVert, partition.getBoundary(scan, scanCell, to), currCost + weights[row + to]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the highest level below a limit on which a vertex is in neither the cell of the start
+	 * nor that of the end. Cells are nested, so on every lower level it is in neither either.
+	 *
+	 * @param partition The GraphPartition
+	 * @param v The id of the vertex
+	 * @param start The id of the start Vertex
+	 * @param end The id of the end Vertex, or -1
+	 * @param limit The level to stay below
+	 * @return the level, or -1 if the vertex shares a lowest level cell with the start or end
+	 */
+	private static int queryLevel(GraphPartition partition, int v, int start, int end, int limit) {
+		for(int level = limit - 1; level >= 0; level--) {
+			int cell = partition.getCell(level, v);
+			if(cell != partition.getCell(level, start) && (end < 0 || cell != partition.getCell(level, end)))
+				return level;
+		}
+		return -1;
+	}
+
+	/**
+	 * Gives a vertex a cheaper cost if the new one is lower.
+	 *
+	 * @param ctx The SearchContext of the query
+	 * @param pq The queue of the query
+	 * @param currVert The id of the vertex being settled
+	 * @param nextVert The id of the neighbor
+	 * @param nextCost The cost of reaching the neighbor through currVert
+	 */
+	private static void relax(SearchContext ctx, LazyHeapPriorityQ pq, int currVert, int nextVert, int nextCost) {
+		if(nextCost < ctx.getDist(nextVert)) {
+			ctx.setDist(nextVert, nextCost, currVert);
+			pq.add(nextVert, nextCost);
+		}
+	}
+
+	/**
+	 * Appends the Edges of a finished search's path to the legs. A hop with an Edge of the same
+	 * cost is kept as it is; any other hop is a clique hop on the level its first vertex was
+	 * scanned on, and is replaced by the path found by a search inside that cell. The hops are
+	 * copied out first, so the inner searches can reuse the SearchContext.
+	 *
+	 * @param overlay The OverlayWeights that were searched
+	 * @param ctx The SearchContext holding the finished search
+	 * @param start The id of the start Vertex of the search
+	 * @param end The id of the end Vertex of the search
+	 * @param level The level the search stayed below
+	 * @param legs The path built so far, which ends at start
+	 */
+	private static void unpack(OverlayWeights overlay, SearchContext ctx, int start, int end, int level, Legs legs) {
+		GraphPartition partition = overlay.getPartition();
+		CsrGraph csr = overlay.getGraph();
+		Metric metric = overlay.getMetric();
+		int hops = 0;
+		for(int v = end; v != start; v = ctx.getParent(v))
+			hops++;
+		int[] hopVertices = new int[hops + 1];
+		int[] hopCosts = new int[hops];
+		for(int v = end, i = hops; i > 0; v = ctx.getParent(v), i--) {
+			hopVertices[i] = v;
+			hopCosts[i - 1] = ctx.getDist(v) - ctx.getDist(ctx.getParent(v));
+		}
+		hopVertices[0] = start;
+
+		for(int i = 0; i < hops; i++) {
+			int from = hopVertices[i];
+			int to = hopVertices[i + 1];
+			if(hasEdge(csr, metric, from, to, hopCosts[i])) {
+				legs.add(to, hopCosts[i]);
+				continue;
+			}
+			int scan = queryLevel(partition, from, start, end, level);
+			search(overlay, ctx, from, to, scan, partition.getCell(scan, from), -1);
+			unpack(overlay, ctx, from, to, scan, legs);
+		}
+	}
+
+	/**
+	 * Returns true if there is an Edge between two vertices with a given cost.
+	 *
+	 * @param csr The CsrGraph
+	 * @param metric The cost type
+	 * @param from The id of the source
+	 * @param to The id of the target
+	 * @param cost The cost to look for
+	 * @return whether there is such an Edge
+	 */
+	private static boolean hasEdge(CsrGraph csr, Metric metric, int from, int to, int cost) {
+		for(int e = csr.firstEdge(from); e < csr.endEdge(from); e++) {
+			if(csr.getTarget(e) == to && csr.getCost(metric, e) == cost)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * The vertices and leg costs of a path being unpacked.
+	 */
+	private static final class Legs {
+		private int[] vertices = new int[16];
+		private int[] costs = new int[15];
+		private int length;
+
+		/**
+		 * Starts a path at a vertex.
+		 *
+		 * @param start The id of the first vertex
+		 */
+		Legs(int start) {
+			vertices[0] = start;
+		}
+
+		/**
+		 * Adds a leg to the end of the path.
+		 *
+		 * @param to The id of the vertex the leg ends at
+		 * @param cost The cost of the leg
+		 */
+		void add(int to, int cost) {
+			if(length == costs.length) {
+				vertices = Arrays.copyOf(vertices, 2 * vertices.length);
+				costs = Arrays.copyOf(costs, 2 * costs.length + 1);
+			}
+			costs[length++] = cost;
+			vertices[length] = to;
+		}
+	}
+}
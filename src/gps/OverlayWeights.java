@@ -0,0 +1,247 @@
+package gps;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * This OverlayWeights class is the per-Metric half of customizable route planning. For every cell
+ * of every level of a GraphPartition it stores the cost of the shortest path inside the cell
+ * between each pair of the cell's boundary vertices. The lowest level is customized with one
+ * small Dijkstra search per boundary vertex that never leaves its cell; each higher level is
+ * customized the same way but searches the cliques of the level below instead of the map, so its
+ * searches stay small. The cells of a level are customized in parallel, so it takes a fraction of
+ * the time of any topology-dependent preprocessing. When some Edge costs change only the cells
+ * holding those Edges need to be customized again.
+ *
+ * Most clique costs are the sum of two others of the same cell, the path running through a third
+ * boundary vertex; on a grid about four in five are. Searches skip those: each row of a clique also
+ * lists the boundary vertices whose cost can not be reached through another one, and only those
+ * are followed.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class OverlayWeights {
+	//=================================================================== Properties
+	private static final int UNREACHABLE = Integer.MAX_VALUE;
+	private final GraphPartition partition;
+	private final CsrGraph graph;
+	private final Metric metric;
+	private final int[][] weights;
+	private final int[][] arcs;
+
+	//=================================================================== Constructors
+	//-- Workhorse Constructor
+	/**
+	 * Creates OverlayWeights from their clique costs.
+	 *
+	 * @param partition The GraphPartition the cliques belong to
+	 * @param graph The CsrGraph whose costs were used
+	 * @param metric The cost type of the weights
+	 * @param weights The clique costs of each level, laid out as described by
+	 *        GraphPartition.cliqueStart
+	 * @param arcs The boundary indexes each clique row keeps, laid out like the weights
+	 */
+	private OverlayWeights(GraphPartition partition, CsrGraph graph, Metric metric, int[][] weights, int[][] arcs) {
+		this.partition = partition;
+		this.graph = graph;
+		this.metric = metric;
+		this.weights = weights;
+		this.arcs = arcs;
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Customizes a GraphPartition for one Metric using the costs of the graph it was built from.
+	 *
+	 * @param partition The GraphPartition
+	 * @param metric The cost type
+	 * @return the OverlayWeights
+	 */
+	public static OverlayWeights customize(GraphPartition partition, Metric metric) {
+		return customize(partition, partition.getGraph(), metric);
+	}
+
+	/**
+	 * Customizes a GraphPartition for one Metric using the costs of a CsrGraph with the same
+	 * vertices and edges as the one partitioned, such as a copy with updated costs.
+	 *
+	 * @param partition The GraphPartition
+	 * @param csr The CsrGraph whose costs are used
+	 * @param metric The cost type
+	 * @return the OverlayWeights
+	 */
+	public static OverlayWeights customize(GraphPartition partition, CsrGraph csr, Metric metric) {
+		checkShape(partition, csr);
+		int levels = partition.getLevelCount();
+		OverlayWeights ret = new OverlayWeights(partition, csr, metric, new int[levels][], new int[levels][]);
+		for(int level = 0; level < levels; level++) {
+			int current = level;
+			ret.weights[level] = new int[partition.cliqueSize(level)];
+			ret.arcs[level] = new int[partition.cliqueSize(level)];
+			IntStream.range(0, partition.getCellCount(level)).parallel()
+					.forEach(cell -> ret.customizeCell(current, cell));
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns OverlayWeights for a CsrGraph whose costs differ from this one's on some edges. On
+	 * each level only the cells holding a changed edge are customized again; edges between cells
+	 * are read from the CsrGraph during queries and need no customizing.
+	 *
+	 * @param csr The CsrGraph with the new costs
+	 * @param changedEdges The indexes of the edges whose costs changed
+	 * @return the new OverlayWeights
+	 */
+	public OverlayWeights recustomize(CsrGraph csr, int[] changedEdges) {
+		checkShape(partition, csr);
+		OverlayWeights ret = new OverlayWeights(partition, csr, metric, new int[weights.length][],
+				new int[weights.length][]);
+		int[] sources = new int[changedEdges.length];
+		for(int i = 0; i < changedEdges.length; i++)
+			sources[i] = csr.edgeSource(changedEdges[i]);
+		for(int level = 0; level < weights.length; level++) {
+			int current = level;
+			boolean[] dirty = new boolean[partition.getCellCount(level)];
+			for(int i = 0; i < changedEdges.length; i++) {
+				int cell = partition.getCell(level, sources[i]);
+				if(cell == partition.getCell(level, csr.getTarget(changedEdges[i])))
+					dirty[cell] = true;
+			}
+			ret.weights[level] = weights[level].clone();
+			ret.arcs[level] = arcs[level].clone();
+			IntStream.range(0, dirty.length).parallel().filter(cell -> dirty[cell])
+					.forEach(cell -> ret.customizeCell(current, cell));
+		}
+		return ret;
+	}
+
+	/**
+	 * Throws an IllegalArgumentException if a CsrGraph does not have the shape of the one that was
+	 * partitioned.
+	 *
+	 * @param partition The GraphPartition
+	 * @param csr The CsrGraph
+	 */
+	private static void checkShape(GraphPartition partition, CsrGraph csr) {
+		CsrGraph original = partition.getGraph();
+		if(csr != original && (csr.vertexCount() != original.vertexCount()
+				|| csr.edgeCount() != original.edgeCount()))
+			throw new IllegalArgumentException("the graph does not match the partition");
+	}
+
+	/**
+	 * Fills in the clique of one cell with a search from each of its boundary vertices, then lists
+	 * the arcs of each row. The levels below must already be customized.
+	 *
+	 * @param level The level of the cell
+	 * @param cell The cell
+	 */
+	private void customizeCell(int level, int cell) {
+		SearchContext ctx = SearchContext.current();
+		int size = partition.boundarySize(level, cell);
+		int start = partition.cliqueStart(level, cell);
+		for(int i = 0; i < size; i++) {
+			OverlayDijkstra.search(this, ctx, partition.getBoundary(level, cell, i), -1, level, cell, level - 1);
+			for(int j = 0; j < size; j++)
+				weights[level][start + i * size + j] = ctx.getDist(partition.getBoundary(level, cell, j));
+		}
+		for(int i = 0; i < size; i++)
+			listArcs(weights[level], arcs[level], start + i * size, start, size, i);
+	}
+
+	/**
+	 * Lists the boundary indexes a clique row keeps: those it reaches at a finite cost that is not
+	 * the sum of two positive clique costs through a third boundary vertex. A skipped cost is met by
+	 * going through that vertex, whose own costs are each lower, so the kept arcs still give every
+	 * cost. The list is ended by -1 when it is shorter than the row.
+	 *
+	 * @param weights The clique costs of the level
+	 * @param arcs The arcs of the level
+	 * @param row The index of the row in both arrays
+	 * @param start The index of the cell's clique
+	 * @param size The number of boundary vertices of the cell
+	 * @param from The boundary index of the row
+	 */
+	private static void listArcs(int[] weights, int[] arcs, int row, int start, int size, int from) {
+		int kept = 0;
+		for(int to = 0; to < size; to++) {
+			int weight = weights[row + to];
+			if(to == from || weight == UNREACHABLE)	continue;
+			boolean through = false;
+			for(int via = 0; via < size && !through; via++) {
+				int first = weights[row + via];
+				int second = weights[start + via * size + to];
+				through = via != from && via != to && first != UNREACHABLE && second != UNREACHABLE
+						&& first > 0 && second > 0 && (long) first + second == weight;
+			}
+			if(!through)
+				arcs[row + kept++] = to;
+		}
+		if(kept < size)
+			arcs[row + kept] = -1;
+	}
+
+	/**
+	 * Returns the cost of the shortest path inside a cell between two of its boundary vertices.
+	 *
+	 * @param level The level of the cell
+	 * @param cell The cell
+	 * @param from The boundary index of the first vertex
+	 * @param to The boundary index of the second vertex
+	 * @return the cost, or Integer.MAX_VALUE if there is no path inside the cell
+	 */
+	public int getWeight(int level, int cell, int from, int to) {
+		return weights[level][partition.cliqueStart(level, cell) + from * partition.boundarySize(level, cell) + to];
+	}
+
+	/**
+	 * Returns true if the boundary vertices of a cell can reach each other inside it.
+	 *
+	 * @param level The level of the cell
+	 * @param cell The cell
+	 * @param from The boundary index of the first vertex
+	 * @param to The boundary index of the second vertex
+	 * @return whether there is a path inside the cell
+	 */
+	public boolean isConnected(int level, int cell, int from, int to) {
+		return getWeight(level, cell, from, to) != UNREACHABLE;
+	}
+
+	/**
+	 * Returns the clique costs of one level, laid out as described by GraphPartition.cliqueStart.
+	 * The array is shared; it must not be changed.
+	 *
+	 * @param level The level
+	 * @return the clique costs
+	 */
+	int[] weights(int level) {
+		return weights[level];
+	}
+
+	/**
+	 * Returns the arcs of one level: each clique row lists the boundary indexes it keeps, ended by
+	 * -1 when shorter than the row. The array is shared; it must not be changed.
+	 *
+	 * @param level The level
+	 * @return the arcs
+	 */
+	int[] arcs(int level) {
+		return arcs[level];
+	}
+
+	@Override
+	public String toString() {
+		long edges = 0;
+		for(int[] level: weights)
+			edges += Arrays.stream(level).filter(w -> w != UNREACHABLE).count();
+		return metric.getLabel() + " overlay: " + partition.getLevelCount() + " levels, " + edges + " overlay edges";
+	}
+
+	//=================================================================== Getters / Setters
+	public GraphPartition getPartition() 		{	return partition;			}
+	public CsrGraph getGraph() 					{	return graph;				}
+	public Metric getMetric() 					{	return metric;				}
+}
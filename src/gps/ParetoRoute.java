@@ -0,0 +1,72 @@
+package gps;
+
+/**
+ * This ParetoRoute class is one route of the trade-off front found by ParetoSearch. It has the ids
+ * of the vertices visited and the time, distance and lane cost of every leg, so the route can be
+ * given as a Path in any Metric. No other route of the front is at least as cheap in all three
+ * costs.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class ParetoRoute {
+	//=================================================================== Properties
+	private final CsrGraph graph;
+	private final int[] vertices;
+	private final int[][] legCosts;
+	private final int[] costs;
+
+	//=================================================================== Constructors
+	//-- Workhorse Constructor
+	/**
+	 * Creates a ParetoRoute.
+	 *
+	 * @param graph The CsrGraph the vertex ids belong to
+	 * @param vertices The ids of the vertices from start to end
+	 * @param legCosts The leg costs of each Metric, indexed by Metric ordinal
+	 */
+	public ParetoRoute(CsrGraph graph, int[] vertices, int[][] legCosts) {
+		this.graph = graph;
+		this.vertices = vertices;
+		this.legCosts = legCosts;
+		costs = new int[legCosts.length];
+		for(int m = 0; m < legCosts.length; m++) {
+			for(int leg: legCosts[m])
+				costs[m] += leg;
+		}
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Returns the route as a Path in one Metric.
+	 *
+	 * @param metric The cost type of the Path
+	 * @return the Path
+	 */
+	public Path toPath(Metric metric) {
+		return new Path(graph, vertices, legCosts[metric.ordinal()], costs[metric.ordinal()], metric);
+	}
+
+	/**
+	 * Returns the total cost of the route in one Metric.
+	 *
+	 * @param metric The cost type
+	 * @return the cost
+	 */
+	public int getCost(Metric metric) {
+		return costs[metric.ordinal()];
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder ret = new StringBuilder("Route: ").append(toPath(Metric.TIME).getPathStr());
+		for(Metric metric: Metric.values())
+			ret.append(", ").append(metric.getLabel()).append(" cost: ").append(getCost(metric));
+		return ret.toString();
+	}
+
+	//=================================================================== Getters / Setters
+	public int[] getVertices() 				{	return vertices.clone();	}
+	public int length() 					{	return vertices.length;		}
+}
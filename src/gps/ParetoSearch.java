@@ -0,0 +1,353 @@
+package gps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This ParetoSearch class is part of the Graph data structure. It finds every route from one
+ * Vertex to another that is not dominated in time, distance and lane cost together, in a single
+ * label-setting search. A label is one way of reaching a vertex with its three costs. Each vertex
+ * keeps a bag of labels none of which is at least as cheap as another in all three costs; a new
+ * label that some label in the bag dominates is dropped, and labels it dominates are removed.
+ * Labels are settled in order of the sum of their costs, which a dominated label always exceeds,
+ * so a settled label is never dominated later. Labels dominated by a route already found to the
+ * end Vertex are dropped too.
+ *
+ * Labels live in primitive arrays indexed by label id, so a search creates a few arrays rather
+ * than an object per label. Each thread keeps its own ParetoSearch and reuses its arrays from one
+ * search to the next. Like the SearchContext, the bag sizes are stamped with an epoch that each
+ * search increases, so a search only costs the labels it makes, not the size of the map.
+ *
+ * The bag of every vertex holds at most a given number of labels, which bounds the work on large
+ * maps at the price of possibly missing part of the front. Once a bag is full a new label only
+ * gets in if it is the cheapest at its vertex in some Metric, so the cheapest route in each Metric
+ * is always part of the result. That needs room for one label per Metric, so the cap is at least
+ * the number of Metrics.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class ParetoSearch {
+	//=================================================================== Properties
+	public static final int DEFAULT_LABEL_CAP = 64;
+	private static final int METRICS = Metric.values().length;
+	private static final ThreadLocal<ParetoSearch> SEARCHES = ThreadLocal.withInitial(ParetoSearch::new);
+	private CsrGraph csr;
+	private int labelCap;
+	private int[] labelVertex;
+	private int[] labelParent;
+	private int[] labelCosts;
+	private boolean[] labelDead;
+	private int labels;
+	private int[][] bags;
+	private int[] bagSize;
+	private int[] bagEpoch;
+	private int epoch;
+
+	//=================================================================== Constructors
+	//-- Workhorse Constructor
+	/** Creates an empty ParetoSearch that grows on the first search. */
+	private ParetoSearch() {
+		labelVertex = new int[64];
+		labelParent = new int[64];
+		labelCosts = new int[64 * METRICS];
+		labelDead = new boolean[64];
+		bags = new int[0][];
+		bagSize = new int[0];
+		bagEpoch = new int[0];
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Returns the routes from one Vertex to another that no other route beats in all three costs,
+	 * ordered by the sum of their costs.
+	 *
+	 * @param csr The CsrGraph to search
+	 * @param start The id of the start Vertex
+	 * @param end The id of the end Vertex
+	 * @param labelCap The most labels kept at one vertex, at least one per Metric
+	 * @return the Pareto-optimal routes; empty if the end can not be reached
+	 */
+	public static List<ParetoRoute> search(CsrGraph csr, int start, int end, int labelCap) {
+		if(labelCap < METRICS)
+			throw new IllegalArgumentException("labelCap must be at least " + METRICS);
+		ParetoSearch search = SEARCHES.get();
+		search.reset(csr, labelCap);
+		try {
+			return search.run(start, end);
+		}
+		finally {
+			search.csr = null;
+		}
+	}
+
+	/**
+	 * Prepares the ParetoSearch for a new search. The bag arrays are only reallocated when the
+	 * graph has more vertices than any graph before it.
+	 *
+	 * @param graph The CsrGraph to search
+	 * @param cap The most labels kept at one vertex
+	 */
+	private void reset(CsrGraph graph, int cap) {
+		csr = graph;
+		labelCap = cap;
+		labels = 0;
+		int n = graph.vertexCount();
+		if(n > bags.length) {
+			int capacity = Math.max(n, bags.length + (bags.length >> 1));
+			bags = new int[capacity][];
+			bagSize = new int[capacity];
+			bagEpoch = new int[capacity];
+			epoch = 0;
+		}
+		if(++epoch == Integer.MAX_VALUE) {
+			Arrays.fill(bagEpoch, 0);
+			epoch = 1;
+		}
+	}
+
+	/**
+	 * Returns the number of labels in a vertex's bag during this search.
+	 *
+	 * @param vertex The id of the vertex
+	 * @return the bag size
+	 */
+	private int bagSize(int vertex) {
+		return bagEpoch[vertex] == epoch ? bagSize[vertex]: 0;
+	}
+
+	/**
+	 * Runs the label-setting search.
+	 *
+	 * @param start The id of the start Vertex
+	 * @param end The id of the end Vertex
+	 * @return the Pareto-optimal routes
+	 */
+	private List<ParetoRoute> run(int start, int end) {
+		LazyHeapPriorityQ pq = SearchContext.current().getLazyQ();
+		pq.clear();
+		int[] costs = new int[METRICS];
+		insert(start, costs);
+		int first = addLabel(start, -1, costs);
+		bags[start][bagSize[start]++] = first;
+		pq.add(first, 0);
+		List<ParetoRoute> ret = new ArrayList<>();
+
+		while(!pq.isEmpty()) {
+			int label = pq.remove();
+			if(labelDead[label])	continue;
+			int currVert = labelVertex[label];
+			if(currVert == end) {
+				ret.add(toRoute(label));
+				continue;
+			}
+
+			for(int e = csr.firstEdge(currVert); e < csr.endEdge(currVert); e++) {
+				int nextVert = csr.getTarget(e);
+				for(Metric metric: Metric.values())
+					costs[metric.ordinal()] = labelCosts[label * METRICS + metric.ordinal()] + csr.getCost(metric, e);
+				if(dominated(end, costs) || !insert(nextVert, costs))	continue;
+				int next = addLabel(nextVert, label, costs);
+				bags[nextVert][bagSize[nextVert]++] = next;
+				pq.add(next, priority(costs));
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Makes room in a vertex's bag for new costs. Returns false if a label in the bag dominates
+	 * the costs or the bag is full; otherwise the labels the costs dominate are removed.
+	 *
+	 * @param vertex The id of the vertex
+	 * @param costs The costs of the new label
+	 * @return whether the new label should be added
+	 */
+	private boolean insert(int vertex, int[] costs) {
+		if(bags[vertex] == null)
+			bags[vertex] = new int[4];
+		if(bagEpoch[vertex] != epoch) {
+			bagEpoch[vertex] = epoch;
+			bagSize[vertex] = 0;
+		}
+		int[] bag = bags[vertex];
+		for(int i = 0; i < bagSize[vertex]; i++) {
+			if(dominates(bag[i], costs))	return false;
+		}
+
+		int kept = 0;
+		for(int i = 0; i < bagSize[vertex]; i++) {
+			if(isDominatedBy(bag[i], costs))
+				labelDead[bag[i]] = true;
+			else
+				bag[kept++] = bag[i];
+		}
+		bagSize[vertex] = kept;
+		if(kept == labelCap && !evict(vertex, costs))	return false;
+		if(bagSize[vertex] == bag.length)
+			bags[vertex] = Arrays.copyOf(bag, Math.min(labelCap, 2 * bagSize[vertex]));
+		return true;
+	}
+
+	/**
+	 * Makes room in a full bag for costs that are cheaper than every label in the bag in some
+	 * Metric. The label with the highest sum of costs that is not the cheapest in any Metric, once
+	 * the new costs are counted, is removed, so the cheapest route in each Metric always survives
+	 * the cap. A bag of at least one label per Metric always has such a label.
+	 *
+	 * @param vertex The id of the vertex
+	 * @param costs The costs of the new label
+	 * @return whether a label was removed
+	 */
+	private boolean evict(int vertex, int[] costs) {
+		int[] bag = bags[vertex];
+		int size = bagSize[vertex];
+		int[] cheapest = new int[METRICS];
+		boolean improves = false;
+		for(int m = 0; m < METRICS; m++) {
+			cheapest[m] = 0;
+			for(int i = 1; i < size; i++) {
+				if(labelCosts[bag[i] * METRICS + m] < labelCosts[bag[cheapest[m]] * METRICS + m])
+					cheapest[m] = i;
+			}
+			if(costs[m] < labelCosts[bag[cheapest[m]] * METRICS + m]) {
+				cheapest[m] = -1;
+				improves = true;
+			}
+		}
+		if(!improves)	return false;
+
+		int victim = -1;
+		long victimSum = -1;
+		for(int i = 0; i < size; i++) {
+			if(contains(cheapest, i))	continue;
+			long sum = 0;
+			for(int m = 0; m < METRICS; m++)
+				sum += labelCosts[bag[i] * METRICS + m];
+			if(sum > victimSum) {
+				victim = i;
+				victimSum = sum;
+			}
+		}
+		if(victim < 0)	return false;
+		labelDead[bag[victim]] = true;
+		bag[victim] = bag[--bagSize[vertex]];
+		return true;
+	}
+
+	/**
+	 * Returns true if an array holds a value.
+	 *
+	 * @param values The array
+	 * @param value The value to look for
+	 * @return whether the value is in the array
+	 */
+	private static boolean contains(int[] values, int value) {
+		for(int v: values) {
+			if(v == value)	return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if a route already found to the end Vertex dominates the costs.
+	 *
+	 * @param end The id of the end Vertex
+	 * @param costs The costs of a label
+	 * @return whether the label can not lead to a new route
+	 */
+	private boolean dominated(int end, int[] costs) {
+		for(int i = 0; i < bagSize(end); i++) {
+			if(dominates(bags[end][i], costs))	return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if a label is at least as cheap as the costs in every Metric.
+	 *
+	 * @param label The label id
+	 * @param costs The costs to compare with
+	 * @return whether the label dominates the costs
+	 */
+	private boolean dominates(int label, int[] costs) {
+		for(int m = 0; m < METRICS; m++) {
+			if(labelCosts[label * METRICS + m] > costs[m])	return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if the costs are at least as cheap as a label in every Metric.
+	 *
+	 * @param label The label id
+	 * @param costs The costs to compare with
+	 * @return whether the costs dominate the label
+	 */
+	private boolean isDominatedBy(int label, int[] costs) {
+		for(int m = 0; m < METRICS; m++) {
+			if(costs[m] > labelCosts[label * METRICS + m])	return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Stores a new label.
+	 *
+	 * @param vertex The id of the vertex
+	 * @param parent The label it was reached from, or -1
+	 * @param costs The costs of the label
+	 * @return the label id
+	 */
+	private int addLabel(int vertex, int parent, int[] costs) {
+		if(labels == labelVertex.length) {
+			labelVertex = Arrays.copyOf(labelVertex, 2 * labels);
+			labelParent = Arrays.copyOf(labelParent, 2 * labels);
+			labelCosts = Arrays.copyOf(labelCosts, 2 * labels * METRICS);
+			labelDead = Arrays.copyOf(labelDead, 2 * labels);
+		}
+		labelVertex[labels] = vertex;
+		labelParent[labels] = parent;
+		labelDead[labels] = false;
+		System.arraycopy(costs, 0, labelCosts, labels * METRICS, METRICS);
+		return labels++;
+	}
+
+	/**
+	 * Returns the queue priority of a label: the sum of its costs.
+	 *
+	 * @param costs The costs of the label
+	 * @return the priority
+	 */
+	private static int priority(int[] costs) {
+		long sum = 0;
+		for(int cost: costs)
+			sum += cost;
+		return (int) Math.min(sum, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Builds the ParetoRoute ending at a label by following the parent labels.
+	 *
+	 * @param label The label at the end Vertex
+	 * @return the ParetoRoute
+	 */
+	private ParetoRoute toRoute(int label) {
+		int length = 0;
+		for(int l = label; l >= 0; l = labelParent[l])
+			length++;
+		int[] vertices = new int[length];
+		int[][] legCosts = new int[METRICS][length - 1];
+		for(int l = label; l >= 0; l = labelParent[l]) {
+			vertices[--length] = labelVertex[l];
+			if(length > 0) {
+				for(int m = 0; m < METRICS; m++)
+					legCosts[m][length - 1] = labelCosts[l * METRICS + m] - labelCosts[labelParent[l] * METRICS + m];
+			}
+		}
+		return new ParetoRoute(csr, vertices, legCosts);
+	}
+}
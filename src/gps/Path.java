@@ -0,0 +1,110 @@
+package gps;
+
+/**
+ * This Path class is part of the Graph data structure. A Path is the Edges and associated
+ * costs taken to get from one Vertex to another. A Path has the ids of the vertices visited from
+ * the start Vertex to the end Vertex, the cost of each Edge (leg) taken, the total cost of the
+ * Path, and the Metric the costs are in. The symbols of the path are only looked up in the
+ * CsrGraph the first time the Path is printed. This Path class implements the Comparable
+ * Interface.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class Path implements Comparable<Path> {
+	//=================================================================== Properties
+	public static final String PATH_SEPARATOR = " -> ";
+	private static final int[] NO_VERTICES = new int[0];
+	private final CsrGraph graph;
+	private final int[] vertices;
+	private final int[] legCosts;
+	private final int cost;
+	private final Metric metric;
+	private String pathStr;
+
+	//=================================================================== Constructors
+	/** Creates an empty Path. */
+	//-- Empty Constructor
+	public Path() {
+		this(null, NO_VERTICES, NO_VERTICES, 0, Metric.TIME);
+	}
+
+	/**
+	 * Creates a Path with the vertices visited, the cost of each leg, and the total cost.
+	 *
+	 * @param graph The CsrGraph the vertex ids belong to
+	 * @param vertices The ids of the vertices from start to end
+	 * @param legCosts The cost of each Edge taken; one shorter than vertices
+	 * @param cost The cost of the path
+	 * @param metric The cost type of the costs
+	 */
+	//-- Workhorse Constructor
+	public Path(CsrGraph graph, int[] vertices, int[] legCosts, int cost, Metric metric) {
+		this.graph = graph;
+		this.vertices = vertices;
+		this.legCosts = legCosts;
+		this.cost = cost;
+		this.metric = metric;
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Returns the id of the last Vertex of the Path, or -1 if the Path is empty.
+	 *
+	 * @return the end Vertex id
+	 */
+	public int getVertex() {
+		return vertices.length == 0 ? -1: vertices[vertices.length - 1];
+	}
+
+	/**
+	 * Returns the number of vertices on the Path.
+	 *
+	 * @return the Path length in vertices
+	 */
+	public int length() {
+		return vertices.length;
+	}
+
+	/**
+	 * Returns the symbols of the vertices on the Path. Single-character symbols are written one
+	 * after another, as in ABC; longer symbols are separated by PATH_SEPARATOR so they can still
+	 * be told apart. The String is built on first use.
+	 *
+	 * @return the path of vertices taken
+	 */
+	public String getPathStr() {
+		if(pathStr == null) {
+			boolean single = true;
+			for(int v: vertices)
+				single &= graph.getSymbol(v).length() == 1;
+			StringBuilder ret = new StringBuilder();
+			for(int i = 0; i < vertices.length; i++) {
+				if(i > 0 && !single)	ret.append(PATH_SEPARATOR);
+				ret.append(graph.getSymbol(vertices[i]));
+			}
+			pathStr = ret.toString();
+		}
+		return pathStr;
+	}
+
+	@Override
+	public int compareTo(Path other) {
+		return Integer.compare(cost, other.cost);
+	}
+
+	@Override
+	public String toString() {
+		return "Path: " + getPathStr() + ", " + metric.getLabel() + " cost: " + cost;
+	}
+
+	//=================================================================== Getters / Setters
+	public int[] getVertices() 				{	return vertices.clone();	}
+	public int getVertex(int index) 		{	return vertices[index];		}
+	public int getLegCost(int index) 		{	return legCosts[index];		}
+	public int[] getLegCosts() 				{	return legCosts.clone();	}
+	public int getCost() 					{	return cost;				}
+	public Metric getMetric() 				{	return metric;				}
+	public CsrGraph getGraph() 				{	return graph;				}
+}
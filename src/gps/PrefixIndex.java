@@ -0,0 +1,108 @@
+package gps;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * This PrefixIndex class finds the names of a SymbolIndex that start with a prefix, ignoring case,
+ * for type-ahead in the location pickers. The names are kept lower-cased in one sorted array with
+ * their ids alongside, so the names with a prefix are one contiguous run found by binary search:
+ * a lookup costs a logarithmic search plus the names it returns, however many names there are.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class PrefixIndex {
+	//=================================================================== Properties
+	private final SymbolIndex names;
+	private final String[] keys;
+	private final int[] ids;
+
+	//=================================================================== Constructors
+	//-- Workhorse Constructor
+	/**
+	 * Creates a PrefixIndex over every name of a SymbolIndex.
+	 *
+	 * @param names The symbols or addresses of the vertices
+	 */
+	public PrefixIndex(SymbolIndex names) {
+		this.names = names;
+		int size = names.size();
+		String[] lower = new String[size];
+		Integer[] order = new Integer[size];
+		for(int id = 0; id < size; id++) {
+			lower[id] = names.get(id).toLowerCase(Locale.ROOT);
+			order[id] = id;
+		}
+		Arrays.sort(order, Comparator.comparing((Integer id) -> lower[id]).thenComparing(id -> id));
+
+		keys = new String[size];
+		ids = new int[size];
+		for(int i = 0; i < size; i++) {
+			keys[i] = lower[order[i]];
+			ids[i] = order[i];
+		}
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Returns the ids of the names that start with a prefix, ignoring case, in alphabetical order.
+	 *
+	 * @param prefix The start of the names
+	 * @param limit The most ids returned
+	 * @return the ids; a name that is exactly the prefix comes first
+	 */
+	public int[] find(String prefix, int limit) {
+		String key = prefix.toLowerCase(Locale.ROOT);
+		int first = lowerBound(key);
+		int count = 0;
+		while(count < limit && first + count < keys.length && keys[first + count].startsWith(key))
+			count++;
+		return Arrays.copyOfRange(ids, first, first + count);
+	}
+
+	/**
+	 * Returns the names that start with a prefix, ignoring case, in alphabetical order.
+	 *
+	 * @param prefix The start of the names
+	 * @param limit The most names returned
+	 * @return the names as they are written in the map
+	 */
+	public String[] complete(String prefix, int limit) {
+		int[] found = find(prefix, limit);
+		String[] ret = new String[found.length];
+		for(int i = 0; i < found.length; i++)
+			ret[i] = names.get(found[i]);
+		return ret;
+	}
+
+	/**
+	 * Returns the position of the first key that is not less than a key.
+	 *
+	 * @param key The lower-cased key
+	 * @return the position, or the number of keys if every key is less
+	 */
+	private int lowerBound(String key) {
+		int lo = 0;
+		int hi = keys.length;
+		while(lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if(keys[mid].compareTo(key) < 0)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Returns the number of names in the PrefixIndex.
+	 *
+	 * @return the number of names
+	 */
+	public int size() {
+		return keys.length;
+	}
+}
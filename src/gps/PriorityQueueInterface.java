@@ -1,3 +1,5 @@
+package gps;
+
 
 public interface PriorityQueueInterface<T extends Comparable<? super T>> {
 	boolean isEmpty();
@@ -0,0 +1,166 @@
+package gps;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * This QueryMonitor class collects the QueryStats of every Dijkstra query into Histogram objects
+ * and publishes them as a JMX MBean named OBJECT_NAME. Queries slower than a threshold are also
+ * written to the gps.SlowQueries Logger with all their counters.
+ *
+ * At most one QueryMonitor is active at a time. While none is, Dijkstra only reads one volatile
+ * field per query and counts in local variables, so turning instrumentation off costs next to
+ * nothing. Starting the JVM with -Dgps.queryMonitor=true enables it from the first query, and
+ * -Dgps.slowQueryMillis sets the threshold.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class QueryMonitor implements QueryMonitorMBean {
+	//=================================================================== Properties
+	public static final String OBJECT_NAME = "gps:type=QueryMonitor";
+	public static final long DEFAULT_SLOW_QUERY_MILLIS = 100;
+	private static final Logger SLOW_QUERIES = Logger.getLogger("gps.SlowQueries");
+	private static volatile QueryMonitor active;
+	private final Histogram latency = new Histogram();
+	private final Histogram settled = new Histogram();
+	private final Histogram relaxed = new Histogram();
+	private final Histogram pushes = new Histogram();
+	private final Histogram stalePops = new Histogram();
+	private final Histogram peakQueue = new Histogram();
+	private final LongAdder slowQueries = new LongAdder();
+	private volatile long slowQueryNanos;
+
+	static {
+		if(Boolean.getBoolean("gps.queryMonitor"))
+			enable(Long.getLong("gps.slowQueryMillis", DEFAULT_SLOW_QUERY_MILLIS));
+	}
+
+	//=================================================================== Constructors
+	//-- Workhorse Constructor
+	/**
+	 * Creates a QueryMonitor.
+	 *
+	 * @param slowQueryMillis The wall time above which a query is logged
+	 */
+	private QueryMonitor(long slowQueryMillis) {
+		setSlowQueryThresholdMillis(slowQueryMillis);
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Starts collecting QueryStats and registers the MBean, unless a QueryMonitor is already
+	 * active.
+	 *
+	 * @param slowQueryMillis The wall time above which a query is logged
+	 * @return the active QueryMonitor
+	 */
+	public static synchronized QueryMonitor enable(long slowQueryMillis) {
+		if(active != null)	return active;
+		QueryMonitor ret = new QueryMonitor(slowQueryMillis);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if(server.isRegistered(name))
+				server.unregisterMBean(name);
+			server.registerMBean(ret, name);
+		}
+		catch(JMException e) {
+			throw new IllegalStateException("can not register " + OBJECT_NAME, e);
+		}
+		active = ret;
+		return ret;
+	}
+
+	/** Stops collecting QueryStats and unregisters the MBean. */
+	public static synchronized void disable() {
+		if(active == null)	return;
+		active = null;
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+		}
+		catch(JMException e) {
+			// Already unregistered by someone else
+		}
+	}
+
+	/**
+	 * Returns the active QueryMonitor, or null if instrumentation is off.
+	 *
+	 * @return the QueryMonitor
+	 */
+	public static QueryMonitor active() {
+		return active;
+	}
+
+	/**
+	 * Adds the QueryStats of one query to the histograms and logs it if it was slow.
+	 *
+	 * @param stats The QueryStats of the query
+	 */
+	public void record(QueryStats stats) {
+		latency.record(stats.getNanos());
+		settled.record(stats.getSettled());
+		relaxed.record(stats.getRelaxed());
+		pushes.record(stats.getPushes());
+		stalePops.record(stats.getStalePops());
+		peakQueue.record(stats.getPeakQueue());
+		if(stats.getNanos() > slowQueryNanos) {
+			slowQueries.increment();
+			SLOW_QUERIES.warning(stats::toString);
+		}
+	}
+
+	@Override
+	public void reset() {
+		latency.reset();
+		settled.reset();
+		relaxed.reset();
+		pushes.reset();
+		stalePops.reset();
+		peakQueue.reset();
+		slowQueries.reset();
+	}
+
+	@Override
+	public String toString() {
+		return "latency ns: " + latency + "\nsettled: " + settled + "\nrelaxed: " + relaxed + "\npushes: " + pushes
+				+ "\nstale pops: " + stalePops + "\npeak queue: " + peakQueue + "\n" + getSlowQueryCount()
+				+ " slow queries";
+	}
+
+	//=================================================================== Getters / Setters
+	@Override
+	public void setSlowQueryThresholdMillis(long millis) {
+		if(millis < 0)	throw new IllegalArgumentException("threshold must not be negative");
+		slowQueryNanos = millis * 1_000_000;
+	}
+
+	public long getQueryCount() 				{	return latency.getCount();					}
+	public long getSlowQueryCount() 			{	return slowQueries.sum();					}
+	public long getSlowQueryThresholdMillis() 	{	return slowQueryNanos / 1_000_000;			}
+	public double getMeanLatencyMicros() 		{	return latency.getMean() / 1000;			}
+	public long getLatencyP50Micros() 			{	return latency.percentile(50) / 1000;		}
+	public long getLatencyP90Micros() 			{	return latency.percentile(90) / 1000;		}
+	public long getLatencyP99Micros() 			{	return latency.percentile(99) / 1000;		}
+	public long getLatencyP999Micros() 			{	return latency.percentile(99.9) / 1000;		}
+	public long getLatencyMaxMicros() 			{	return latency.getMax() / 1000;				}
+	public double getMeanSettled() 				{	return settled.getMean();					}
+	public long getSettledP50() 				{	return settled.percentile(50);				}
+	public long getSettledP99() 				{	return settled.percentile(99);				}
+	public double getMeanRelaxed() 				{	return relaxed.getMean();					}
+	public long getRelaxedP99() 				{	return relaxed.percentile(99);				}
+	public double getMeanPushes() 				{	return pushes.getMean();					}
+	public double getMeanStalePops() 			{	return stalePops.getMean();					}
+	public long getStalePopsP99() 				{	return stalePops.percentile(99);			}
+	public long getPeakQueueP99() 				{	return peakQueue.percentile(99);			}
+	public long getPeakQueueMax() 				{	return peakQueue.getMax();					}
+	public Histogram getLatency() 				{	return latency;								}
+	public Histogram getSettled() 				{	return settled;								}
+}
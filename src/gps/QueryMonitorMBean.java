@@ -0,0 +1,33 @@
+package gps;
+
+/**
+ * This QueryMonitorMBean interface is the JMX view of a QueryMonitor. Latencies are in
+ * microseconds; the other percentiles are counts per query.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public interface QueryMonitorMBean {
+	long getQueryCount();
+	long getSlowQueryCount();
+	long getSlowQueryThresholdMillis();
+	void setSlowQueryThresholdMillis(long millis);
+	double getMeanLatencyMicros();
+	long getLatencyP50Micros();
+	long getLatencyP90Micros();
+	long getLatencyP99Micros();
+	long getLatencyP999Micros();
+	long getLatencyMaxMicros();
+	double getMeanSettled();
+	long getSettledP50();
+	long getSettledP99();
+	double getMeanRelaxed();
+	long getRelaxedP99();
+	double getMeanPushes();
+	double getMeanStalePops();
+	long getStalePopsP99();
+	long getPeakQueueP99();
+	long getPeakQueueMax();
+	void reset();
+}
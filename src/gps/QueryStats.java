@@ -0,0 +1,84 @@
+package gps;
+
+/**
+ * This QueryStats class holds the work one Dijkstra query did: the vertices it settled, the edges
+ * it relaxed, the entries it pushed onto and popped off its priority queue, the largest the queue
+ * grew and how long the query took. Pops that found an already settled vertex are stale; they are
+ * the price of the lazy queue. A QueryStats is only created while a QueryMonitor is enabled.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class QueryStats {
+	//=================================================================== Properties
+	private final CsrGraph graph;
+	private final int start;
+	private final int end;
+	private final Metric metric;
+	private final QueueType queueType;
+	private final boolean found;
+	private final int settled;
+	private final int relaxed;
+	private final int pushes;
+	private final int pops;
+	private final int peakQueue;
+	private final long nanos;
+
+	//=================================================================== Constructors
+	//-- Workhorse Constructor
+	/**
+	 * Creates a QueryStats.
+	 *
+	 * @param graph The CsrGraph that was searched
+	 * @param start The id of the start Vertex
+	 * @param end The id of the end Vertex
+	 * @param metric The cost type that was minimized
+	 * @param queueType How the priority queue was managed
+	 * @param found True if a path was found
+	 * @param settled The number of vertices settled
+	 * @param relaxed The number of edges relaxed
+	 * @param pushes The number of queue entries added
+	 * @param pops The number of queue entries removed
+	 * @param peakQueue The most entries the queue held at once
+	 * @param nanos The wall time of the query in nanoseconds
+	 */
+	public QueryStats(CsrGraph graph, int start, int end, Metric metric, QueueType queueType, boolean found,
+			int settled, int relaxed, int pushes, int pops, int peakQueue, long nanos) {
+		this.graph = graph;
+		this.start = start;
+		this.end = end;
+		this.metric = metric;
+		this.queueType = queueType;
+		this.found = found;
+		this.settled = settled;
+		this.relaxed = relaxed;
+		this.pushes = pushes;
+		this.pops = pops;
+		this.peakQueue = peakQueue;
+		this.nanos = nanos;
+	}
+
+	//=================================================================== Methods
+	@Override
+	public String toString() {
+		return graph.getSymbol(start) + " -> " + graph.getSymbol(end) + " " + metric.getLabel() + " " + queueType
+				+ (found ? "": " no path") + ": " + String.format("%.3f", nanos / 1e6) + " ms, " + settled
+				+ " settled, " + relaxed + " relaxed, " + pushes + " pushes, " + pops + " pops (" + getStalePops()
+				+ " stale), peak queue " + peakQueue;
+	}
+
+	//=================================================================== Getters / Setters
+	public int getStart() 					{	return start;				}
+	public int getEnd() 					{	return end;					}
+	public Metric getMetric() 				{	return metric;				}
+	public QueueType getQueueType() 		{	return queueType;			}
+	public boolean isFound() 				{	return found;				}
+	public int getSettled() 				{	return settled;				}
+	public int getRelaxed() 				{	return relaxed;				}
+	public int getPushes() 					{	return pushes;				}
+	public int getPops() 					{	return pops;				}
+	public int getStalePops() 				{	return pops - settled;		}
+	public int getPeakQueue() 				{	return peakQueue;			}
+	public long getNanos() 					{	return nanos;				}
+}
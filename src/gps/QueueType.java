@@ -0,0 +1,37 @@
+package gps;
+
+/**
+ * This QueueType enum lists the ways the Dijkstra class can manage its priority queue. LAZY adds
+ * a new entry every time a vertex gets a cheaper cost and skips stale entries when they are
+ * removed. DECREASE_KEY keeps one entry per vertex in an IndexedHeapPriorityQ and lowers its
+ * priority in place. BUCKET and RADIX are lazy too, but use a BucketPriorityQ or a
+ * RadixHeapPriorityQ, which only work because Dijkstra removes priorities in increasing order and
+ * edge costs are ints. AUTO picks BUCKET or RADIX from the largest edge cost of the searched graph.
+ * 
+ * @author wyattcombs
+ *
+ */
+
+public enum QueueType {
+	LAZY,
+	DECREASE_KEY,
+	BUCKET,
+	RADIX,
+	AUTO;
+	
+	// Largest edge cost for which AUTO uses a BucketPriorityQ
+	public static final int MAX_BUCKET_COST = 1 << 12;
+	
+	/**
+	 * Returns the QueueType a search over edges with a largest cost should use. AUTO becomes
+	 * BUCKET when maxCost is small enough for one bucket per priority and RADIX otherwise; every
+	 * other QueueType is returned as it is.
+	 * 
+	 * @param maxCost The largest edge cost of the graph
+	 * @return the QueueType to use
+	 */
+	public QueueType resolve(int maxCost) {
+		if(this != AUTO)	return this;
+		return maxCost <= MAX_BUCKET_COST ? BUCKET: RADIX;
+	}
+}
@@ -0,0 +1,144 @@
+package gps;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * This RadixHeapPriorityQ class is part of the Graph data structure. It is a radix heap of vertex
+ * ids with int priorities, used by the Dijkstra class when the edge costs are too large for a
+ * BucketPriorityQ. Entries are kept in 32 buckets by the highest bit in which their priority
+ * differs from the last priority removed. Removing refills bucket 0 from the first non-empty bucket
+ * and every entry only ever moves to a lower bucket, so each entry is moved at most 32 times however
+ * many there are. Like the LazyHeapPriorityQ the same id may be added many times.
+ *
+ * The priorities must be monotone: nothing smaller than the last priority removed may be added,
+ * which Dijkstra keeps to because edge costs are never negative. Entries are packed into longs
+ * (priority in the high bits, id in the low bits) so adding and removing never creates objects.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class RadixHeapPriorityQ implements LazyPriorityQueueInterface {
+	//=================================================================== Properties
+	private static final int BUCKETS = 32;
+	private static final int DEFAULT_CAPACITY = 16;
+	private final long[][] buckets;
+	private final int[] sizes;
+	private int last;
+	private int size;
+
+	//=================================================================== Constructors
+	//-- Workhorse Constructor
+	/** Creates an empty RadixHeapPriorityQ. */
+	public RadixHeapPriorityQ() {
+		buckets = new long[BUCKETS][DEFAULT_CAPACITY];
+		sizes = new int[BUCKETS];
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Returns true if there are no entries.
+	 *
+	 * @return whether the RadixHeapPriorityQ is empty
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/** Removes all entries but keeps the capacity for the next query. */
+	public void clear() {
+		Arrays.fill(sizes, 0);
+		last = 0;
+		size = 0;
+	}
+
+	/**
+	 * Returns the number of entries.
+	 *
+	 * @return the size of the RadixHeapPriorityQ
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Adds an id with a priority.
+	 *
+	 * @param id The vertex id
+	 * @param priority The priority of the entry
+	 * @throws IllegalArgumentException if the priority is below the last one removed
+	 */
+	public void add(int id, int priority) {
+		if(priority < last)	throw new IllegalArgumentException("priority " + priority + " is below " + last);
+		push(bucketOf(priority), ((long) priority << 32) | id);
+		size++;
+	}
+
+	/**
+	 * Returns the bucket of a priority: 0 if it equals the last priority removed, otherwise one more
+	 * than the highest bit in which they differ.
+	 *
+	 * @param priority The priority
+	 * @return the bucket index
+	 */
+	private int bucketOf(int priority) {
+		return 32 - Integer.numberOfLeadingZeros(priority ^ last);
+	}
+
+	/**
+	 * Appends an entry to a bucket.
+	 *
+	 * @param bucket The bucket index
+	 * @param entry The packed priority and id
+	 */
+	private void push(int bucket, long entry) {
+		long[] entries = buckets[bucket];
+		if(sizes[bucket] == entries.length)
+			buckets[bucket] = entries = Arrays.copyOf(entries, 2 * entries.length);
+		entries[sizes[bucket]++] = entry;
+	}
+
+	/**
+	 * Fills bucket 0 if it is empty by making the smallest priority of the first non-empty bucket
+	 * the last priority and spreading that bucket over the lower ones.
+	 */
+	private void pull() {
+		if(isEmpty())	throw new NoSuchElementException();
+		if(sizes[0] > 0)	return;
+
+		int bucket = 1;
+		while(sizes[bucket] == 0)
+			bucket++;
+		long[] entries = buckets[bucket];
+		int count = sizes[bucket];
+		long min = entries[0];
+		for(int i = 1; i < count; i++)
+			min = Math.min(min, entries[i]);
+		last = (int) (min >>> 32);
+		sizes[bucket] = 0;
+		for(int i = 0; i < count; i++)
+			push(bucketOf((int) (entries[i] >>> 32)), entries[i]);
+	}
+
+	/**
+	 * Returns the priority of the first entry.
+	 *
+	 * @return the smallest priority
+	 */
+	public int peekPriority() {
+		pull();
+		return last;
+	}
+
+	/**
+	 * Removes the first entry and returns its id.
+	 *
+	 * @return the id with the smallest priority
+	 */
+	public int remove() {
+		pull();
+		size--;
+		return (int) buckets[0][--sizes[0]];
+	}
+}
@@ -0,0 +1,219 @@
+package gps;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * This RouteCache class remembers the answers of shortest path queries on a Graph. Paths are kept
+ * in a BoundedCache keyed by start, end and Metric. A source that keeps being asked for is hot:
+ * its whole ShortestPathTree is computed once and kept in a second, smaller BoundedCache, and every
+ * later query from it is read off the tree whatever its destination. A tree is only built when
+ * the tree cache would keep it, so more hot sources than trees do not rebuild trees in turn.
+ *
+ * Entries belong to one version of the Graph. When a query carries a newer version than the cache
+ * has seen, every entry is dropped; a query from an older version bypasses the cache. A version
+ * made by changing some Edge costs is announced with update instead: the paths of the changed
+ * Metric are dropped, the other paths are kept and the cached trees are repaired rather than
+ * thrown away. Repairs run outside the cache's lock, so queries are not held up by them.
+ *
+ * A hit takes no lock: the version is an AtomicLong and the BoundedCache lookups are lock-free.
+ * Only storing a computed answer and moving to a new version lock the RouteCache, and a new
+ * version is published only after the old entries are gone, so a query of the new version never
+ * sees them.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class RouteCache {
+	//=================================================================== Properties
+	public static final int DEFAULT_ROUTE_CAPACITY = 10_000;
+	public static final int DEFAULT_TREE_CAPACITY = 8;
+	public static final int HOT_SOURCE_COUNT = 8;
+	private static final Path NO_PATH = new Path();
+	private final BoundedCache<RouteKey, Path> routes;
+	private final BoundedCache<Long, ShortestPathTree> trees;
+	private final AtomicLong version = new AtomicLong(Long.MIN_VALUE);
+	private long invalidations;
+	private long repairs;
+
+	//=================================================================== Constructors
+	//-- Empty Constructor
+	/** Creates a RouteCache with the default capacities. */
+	public RouteCache() {
+		this(DEFAULT_ROUTE_CAPACITY, DEFAULT_TREE_CAPACITY);
+	}
+
+	//-- Workhorse Constructor
+	/**
+	 * Creates a RouteCache.
+	 *
+	 * @param routeCapacity The most paths kept
+	 * @param treeCapacity The most shortest path trees kept, or 0 to keep none
+	 */
+	public RouteCache(int routeCapacity, int treeCapacity) {
+		routes = new BoundedCache<>(routeCapacity);
+		trees = treeCapacity > 0 ? new BoundedCache<>(treeCapacity, routeCapacity): null;
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Returns the shortest path between two vertices from the cache, or computes and caches it.
+	 *
+	 * @param graphVersion The version of the Graph the query runs on
+	 * @param csr The CsrGraph of that version
+	 * @param start The id of the start Vertex
+	 * @param end The id of the end Vertex
+	 * @param metric The cost type to minimize
+	 * @param search Runs the query on a miss; may return null if there is no path
+	 * @return the shortest path, or null if there is none
+	 */
+	public Path find(long graphVersion, CsrGraph csr, int start, int end, Metric metric, Supplier<Path> search) {
+		if(!checkVersion(graphVersion))	return search.get();
+
+		RouteKey key = new RouteKey(start, end, metric);
+		Path ret = routes.get(key);
+		if(ret != null)	return ret == NO_PATH ? null: ret;
+
+		ShortestPathTree tree = trees == null ? null: findTree(graphVersion, csr, start, metric);
+		ret = tree != null ? tree.toPath(end): search.get();
+		synchronized(this) {
+			if(graphVersion == version.get())
+				routes.put(key, ret == null ? NO_PATH: ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the cached ShortestPathTree of a source, building it first if the source has become
+	 * hot. Returns null for a source that is not hot yet. How often a source is asked for is read
+	 * from the tree cache's FrequencySketch, which counts every lookup of it. A tree is only kept if
+	 * the cache is still at the version it was built for, so update never repairs a tree that
+	 * missed an earlier change.
+	 *
+	 * @param graphVersion The version of the Graph the query runs on
+	 * @param csr The CsrGraph to search
+	 * @param source The id of the source
+	 * @param metric The cost type
+	 * @return the ShortestPathTree, or null
+	 */
+	private ShortestPathTree findTree(long graphVersion, CsrGraph csr, int source, Metric metric) {
+		long key = (long) source * Metric.values().length + metric.ordinal();
+		ShortestPathTree ret = trees.get(key);
+		if(ret != null && ret.getGraph() == csr)	return ret;
+
+		if(trees.frequency(key) < HOT_SOURCE_COUNT || !trees.admits(key))	return null;
+		ret = ShortestPathTree.build(csr, source, metric);
+		synchronized(this) {
+			if(graphVersion == version.get())
+				trees.put(key, ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * Moves the cache to a newer Graph version, dropping every entry. A query of the cache's own
+	 * version only reads the AtomicLong.
+	 *
+	 * @param graphVersion The version of the Graph a query runs on
+	 * @return false if the version is not the cache's, so the cache must not be used
+	 */
+	private boolean checkVersion(long graphVersion) {
+		long current = version.get();
+		if(graphVersion == current)	return true;
+		if(graphVersion < current)	return false;
+		synchronized(this) {
+			current = version.get();
+			if(graphVersion > current) {
+				if(current != Long.MIN_VALUE)	invalidations++;
+				routes.clear();
+				if(trees != null)	trees.clear();
+				version.compareAndSet(current, graphVersion);
+			}
+			return graphVersion == version.get();
+		}
+	}
+
+	/**
+	 * Moves the cache to a Graph version whose costs of one Metric differ on some edges. Paths of
+	 * that Metric are dropped, and every cached tree is repaired or moved to the new CsrGraph.
+	 * Queries of the current version keep using the cache while the trees are repaired. If the
+	 * cache holds entries of an older version than the one just before, it is cleared instead.
+	 *
+	 * @param graphVersion The new version of the Graph
+	 * @param csr The CsrGraph of that version
+	 * @param metric The cost type that changed
+	 * @param changedEdges The indexes of the edges whose costs changed
+	 */
+	public void update(long graphVersion, CsrGraph csr, Metric metric, int[] changedEdges) {
+		Map<Long, ShortestPathTree> repaired = new HashMap<>();
+		if(trees != null) {
+			for(Map.Entry<Long, ShortestPathTree> entry: trees.entries().entrySet()) {
+				ShortestPathTree tree = entry.getValue();
+				repaired.put(entry.getKey(), tree.getMetric() == metric ? tree.repair(csr, changedEdges)
+						: tree.withGraph(csr));
+			}
+		}
+
+		synchronized(this) {
+			long current = version.get();
+			if(graphVersion != current + 1) {
+				checkVersion(graphVersion);
+				return;
+			}
+			routes.removeIf((key, path) -> key.metric == metric);
+			if(trees != null) {
+				trees.replaceAll(repaired);
+				trees.removeIf((key, tree) -> tree.getGraph() != csr);
+			}
+			repairs += repaired.size();
+			version.compareAndSet(current, graphVersion);
+		}
+	}
+
+	/** Drops every entry. */
+	public synchronized void clear() {
+		routes.clear();
+		if(trees != null)	trees.clear();
+	}
+
+	@Override
+	public String toString() {
+		return "routes: " + routes + "; trees: " + (trees == null ? "off": trees.toString()) + "; "
+				+ getInvalidations() + " invalidations, " + getRepairs() + " tree repairs";
+	}
+
+	//=================================================================== Getters / Setters
+	public BoundedCache<RouteKey, Path> getRoutes() 		{	return routes;			}
+	public BoundedCache<Long, ShortestPathTree> getTrees() 	{	return trees;			}
+	public synchronized long getInvalidations() 			{	return invalidations;	}
+	public synchronized long getRepairs() 					{	return repairs;			}
+
+	//=================================================================== RouteKey
+	/** The start, end and Metric of a cached path. */
+	public static final class RouteKey {
+		private final int start;
+		private final int end;
+		private final Metric metric;
+
+		private RouteKey(int start, int end, Metric metric) {
+			this.start = start;
+			this.end = end;
+			this.metric = metric;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if(!(other instanceof RouteKey))	return false;
+			RouteKey key = (RouteKey) other;
+			return start == key.start && end == key.end && metric == key.metric;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * start + end) + metric.ordinal();
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package gps;
+
+/**
+ * This RouteQuery class holds everything a single route request needs: the start and end
+ * locations, the Metric to minimize, whether the locations are addresses or symbols, which
+ * SearchAlgorithm answers it and how Dijkstra manages its priority queue. A RouteQuery never
+ * changes after it is created, so it can be handed to any thread.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class RouteQuery {
+	//=================================================================== Properties
+	private final String start;
+	private final String end;
+	private final Metric metric;
+	private final boolean useAddress;
+	private final QueueType queueType;
+	private final SearchAlgorithm algorithm;
+
+	//=================================================================== Constructors
+	/**
+	 * Creates a RouteQuery between two symbols using the time cost.
+	 *
+	 * @param start The symbol of the beginning Vertex
+	 * @param end The symbol of the ending Vertex
+	 */
+	public RouteQuery(String start, String end) {
+		this(start, end, Metric.TIME, false);
+	}
+
+	/**
+	 * Creates a RouteQuery whose priority queue is picked from the largest edge cost.
+	 *
+	 * @param start The symbol or address of the beginning Vertex
+	 * @param end The symbol or address of the ending Vertex
+	 * @param metric The cost type to minimize
+	 * @param useAddress True if start and end are addresses, false if they are symbols
+	 */
+	public RouteQuery(String start, String end, Metric metric, boolean useAddress) {
+		this(start, end, metric, useAddress, QueueType.AUTO);
+	}
+
+	/**
+	 * Creates a RouteQuery answered by one-directional Dijkstra.
+	 *
+	 * @param start The symbol or address of the beginning Vertex
+	 * @param end The symbol or address of the ending Vertex
+	 * @param metric The cost type to minimize
+	 * @param useAddress True if start and end are addresses, false if they are symbols
+	 * @param queueType How Dijkstra manages its priority queue
+	 */
+	public RouteQuery(String start, String end, Metric metric, boolean useAddress, QueueType queueType) {
+		this(start, end, metric, useAddress, queueType, SearchAlgorithm.DIJKSTRA);
+	}
+
+	//-- Workhorse Constructor
+	/**
+	 * Creates a RouteQuery.
+	 *
+	 * @param start The symbol or address of the beginning Vertex
+	 * @param end The symbol or address of the ending Vertex
+	 * @param metric The cost type to minimize
+	 * @param useAddress True if start and end are addresses, false if they are symbols
+	 * @param queueType How Dijkstra manages its priority queue
+	 * @param algorithm The search used to answer the query
+	 */
+	public RouteQuery(String start, String end, Metric metric, boolean useAddress, QueueType queueType,
+			SearchAlgorithm algorithm) {
+		if(metric == null || queueType == null || algorithm == null)	throw new NullPointerException();
+		this.start = start;
+		this.end = end;
+		this.metric = metric;
+		this.useAddress = useAddress;
+		this.queueType = queueType;
+		this.algorithm = algorithm;
+	}
+
+	//=================================================================== Methods
+	@Override
+	public String toString() {
+		return (useAddress ? "Addresses ": "Symbols ") + start + " -> " + end + ", " + metric.getLabel()
+				+ " cost, " + algorithm + " " + queueType;
+	}
+
+	//=================================================================== Getters / Setters
+	public String getStart() 					{	return start;				}
+	public String getEnd() 						{	return end;					}
+	public Metric getMetric() 					{	return metric;				}
+	public boolean isUseAddress() 				{	return useAddress;			}
+	public QueueType getQueueType() 			{	return queueType;			}
+	public SearchAlgorithm getAlgorithm() 		{	return algorithm;			}
+}
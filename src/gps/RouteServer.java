@@ -0,0 +1,420 @@
+package gps;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * This RouteServer class serves one shared Graph over HTTP with the JDK's built-in HttpServer, so
+ * it needs nothing but a JRE. Every endpoint takes GET parameters and answers with JSON:
+ *
+ * /route?from=A&to=B[&metric=TIME][&algorithm=DIJKSTRA][&address=false]: the shortest path.
+ * /paths?from=A&to=B[&metric=TIME][&k=5][&address=false]: the k cheapest loopless paths, each
+ * written out as soon as it is found.
+ * /table?sources=A,B&targets=C,D[&metric=TIME][&address=false]: the cost of every pair, null
+ * where there is no path. A table has at most MAX_TABLE_CELLS pairs.
+ * /health: the Graph version and the request counts.
+ *
+ * Responses are written through a JsonWriter straight onto the connection. Requests run on a
+ * fixed pool of platform threads, so each thread's SearchContext is reused from one request to the
+ * next instead of being allocated per request. At most a fixed number of requests are running or
+ * waiting at once; a request beyond that is answered at once with 503 and a Retry-After header
+ * instead of being queued, so an overloaded server stays responsive and its latency stays bounded.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class RouteServer implements AutoCloseable {
+	//=================================================================== Properties
+	public static final int DEFAULT_PORT = 8080;
+	public static final int DEFAULT_MAX_PENDING = 256;
+	public static final int DEFAULT_K = 5;
+	public static final int MAX_K = 100;
+	public static final int MAX_TABLE_CELLS = 10_000;
+	private final Graph map;
+	private final HttpServer server;
+	private final ExecutorService workers;
+	private final int maxPending;
+	private final Semaphore pending;
+	private final LongAdder served = new LongAdder();
+	private final LongAdder shed = new LongAdder();
+
+	//=================================================================== Constructors
+	//-- Workhorse Constructor
+	/**
+	 * Creates a RouteServer and starts listening.
+	 *
+	 * @param map The Graph to serve
+	 * @param port The port to listen on, or 0 for any free port
+	 * @param threads The number of threads requests run on
+	 * @param maxPending The most requests running or waiting at once
+	 * @throws IOException if the port can not be opened
+	 */
+	public RouteServer(Graph map, int port, int threads, int maxPending) throws IOException {
+		if(maxPending < 1)	throw new IllegalArgumentException("maxPending must be at least 1");
+		this.map = map;
+		this.maxPending = maxPending;
+		this.pending = new Semaphore(maxPending);
+		this.workers = RoutingEngine.platformThreads(threads);
+
+		server = HttpServer.create(new InetSocketAddress(port), 0);
+		server.createContext("/route", admit(this::route));
+		server.createContext("/paths", admit(this::paths));
+		server.createContext("/table", admit(this::table));
+		server.createContext("/health", this::health);
+		server.start();
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Wraps a handler so it runs on the workers if a pending slot is free, and answers 503 on the
+	 * HttpServer's own thread otherwise. A request that arrives while the server is closing is
+	 * answered 503 as well.
+	 *
+	 * @param handler The handler of an endpoint
+	 * @return the admitting handler
+	 */
+	private HttpHandler admit(HttpHandler handler) {
+		return exchange -> {
+			if(!pending.tryAcquire()) {
+				shed.increment();
+				exchange.getResponseHeaders().set("Retry-After", "1");
+				sendError(exchange, 503, "server busy");
+				return;
+			}
+			try {
+				workers.execute(() -> {
+					try {
+						if(!exchange.getRequestMethod().equals("GET"))
+							sendError(exchange, 405, "only GET is supported");
+						else
+							handler.handle(exchange);
+						served.increment();
+					}
+					catch(IllegalArgumentException e) {
+						sendQuietly(exchange, 400, e.getMessage());
+					}
+					catch(IOException | RuntimeException e) {
+						sendQuietly(exchange, 500, e.toString());
+					}
+					finally {
+						exchange.close();
+						pending.release();
+					}
+				});
+			}
+			catch(RejectedExecutionException e) {
+				sendQuietly(exchange, 503, "server closing");
+				exchange.close();
+				pending.release();
+			}
+		};
+	}
+
+	/**
+	 * Answers /route with the shortest path.
+	 *
+	 * @param exchange The request
+	 * @throws IOException if the response can not be written
+	 */
+	private void route(HttpExchange exchange) throws IOException {
+		Map<String, String> params = parameters(exchange);
+		RouteQuery query = new RouteQuery(required(params, "from"), required(params, "to"), metric(params),
+				address(params), QueueType.AUTO, enumParam(params, "algorithm", SearchAlgorithm.class,
+						SearchAlgorithm.DIJKSTRA));
+		Path path = map.findShortestPath(query);
+		if(path == null) {
+			sendError(exchange, 404, "no route from " + query.getStart() + " to " + query.getEnd());
+			return;
+		}
+		try(Writer out = open(exchange, 200)) {
+			writePath(new JsonWriter(out), path);
+		}
+	}
+
+	/**
+	 * Answers /paths with the k cheapest loopless paths, writing each path as it is found.
+	 *
+	 * @param exchange The request
+	 * @throws IOException if the response can not be written
+	 */
+	private void paths(HttpExchange exchange) throws IOException {
+		Map<String, String> params = parameters(exchange);
+		RouteQuery query = new RouteQuery(required(params, "from"), required(params, "to"), metric(params),
+				address(params));
+		int k = params.containsKey("k") ? Integer.parseInt(params.get("k")): DEFAULT_K;
+		if(k < 1 || k > MAX_K)	throw new IllegalArgumentException("k must be between 1 and " + MAX_K);
+		Iterator<Path> paths = map.pathIterator(query, k, KShortestPaths.UNLIMITED);
+		try(Writer out = open(exchange, 200)) {
+			JsonWriter json = new JsonWriter(out);
+			json.beginObject().name("metric").value(query.getMetric().name()).name("paths").beginArray();
+			while(paths.hasNext()) {
+				writePath(json, paths.next());
+				json.flush();
+			}
+			json.endArray().endObject();
+		}
+	}
+
+	/**
+	 * Answers /table with the DistanceMatrix of the sources and targets, one row at a time.
+	 *
+	 * @param exchange The request
+	 * @throws IOException if the response can not be written
+	 */
+	private void table(HttpExchange exchange) throws IOException {
+		Map<String, String> params = parameters(exchange);
+		String[] sources = required(params, "sources").split(",");
+		String[] targets = required(params, "targets").split(",");
+		if((long) sources.length * targets.length > MAX_TABLE_CELLS)
+			throw new IllegalArgumentException("a table has at most " + MAX_TABLE_CELLS + " cells");
+		DistanceMatrix matrix = map.findDistanceMatrix(sources, targets, metric(params), address(params));
+		try(Writer out = open(exchange, 200)) {
+			JsonWriter json = new JsonWriter(out);
+			json.beginObject().name("metric").value(matrix.getMetric().name());
+			json.name("sources").beginArray();
+			for(String source: sources)
+				json.value(source);
+			json.endArray().name("targets").beginArray();
+			for(String target: targets)
+				json.value(target);
+			json.endArray().name("costs").beginArray();
+			for(int row = 0; row < matrix.getRowCount(); row++) {
+				json.beginArray();
+				for(int column = 0; column < matrix.getColumnCount(); column++) {
+					int cost = matrix.getCost(row, column);
+					if(cost == DistanceMatrix.UNREACHABLE)
+						json.nullValue();
+					else
+						json.value(cost);
+				}
+				json.endArray();
+			}
+			json.endArray().endObject();
+		}
+	}
+
+	/**
+	 * Answers /health. It is not admitted through the pending slots, so it answers even when the
+	 * server is shedding load.
+	 *
+	 * @param exchange The request
+	 * @throws IOException if the response can not be written
+	 */
+	private void health(HttpExchange exchange) throws IOException {
+		try(exchange; Writer out = open(exchange, 200)) {
+			new JsonWriter(out).beginObject().name("status").value("ok").name("version").value(map.getVersion())
+					.name("served").value(getServed()).name("shed").value(getShed()).name("pending")
+					.value(getPending()).endObject();
+		}
+	}
+
+	/**
+	 * Writes a Path as an object with its cost and a step for every vertex.
+	 *
+	 * @param json Where to write
+	 * @param path The Path
+	 * @throws IOException if the response can not be written
+	 */
+	private static void writePath(JsonWriter json, Path path) throws IOException {
+		CsrGraph graph = path.getGraph();
+		json.beginObject().name("metric").value(path.getMetric().name()).name("cost").value(path.getCost());
+		json.name("steps").beginArray();
+		for(int i = 0; i < path.length(); i++) {
+			json.beginObject().name("symbol").value(graph.getSymbol(path.getVertex(i))).name("address")
+					.value(graph.getAddress(path.getVertex(i)));
+			if(i > 0)
+				json.name("legCost").value(path.getLegCost(i - 1));
+			json.endObject();
+		}
+		json.endArray().endObject();
+	}
+
+	/**
+	 * Sends the headers of a streamed JSON response and returns a Writer for its body.
+	 *
+	 * @param exchange The request
+	 * @param status The HTTP status
+	 * @return the body Writer; closing it ends the response
+	 * @throws IOException if the headers can not be sent
+	 */
+	private static Writer open(HttpExchange exchange, int status) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, 0);
+		return new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Sends an error as a JSON object with one message and ends the exchange.
+	 *
+	 * @param exchange The request
+	 * @param status The HTTP status
+	 * @param message The error message
+	 * @throws IOException if the response can not be written
+	 */
+	private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+		try(exchange; Writer out = open(exchange, status)) {
+			new JsonWriter(out).beginObject().name("error").value(message).endObject();
+		}
+	}
+
+	/**
+	 * Sends an error if the response has not been started yet, ignoring a broken connection.
+	 *
+	 * @param exchange The request
+	 * @param status The HTTP status
+	 * @param message The error message
+	 */
+	private static void sendQuietly(HttpExchange exchange, int status, String message) {
+		try {
+			if(exchange.getResponseCode() < 0)
+				sendError(exchange, status, message);
+		}
+		catch(IOException e) {
+			// The client has gone; there is no one to tell
+		}
+	}
+
+	/**
+	 * Decodes the query string of a request.
+	 *
+	 * @param exchange The request
+	 * @return the parameters by name
+	 */
+	private static Map<String, String> parameters(HttpExchange exchange) {
+		Map<String, String> ret = new HashMap<>();
+		String query = exchange.getRequestURI().getRawQuery();
+		if(query == null)	return ret;
+		for(String pair: query.split("&")) {
+			int split = pair.indexOf('=');
+			String name = split < 0 ? pair: pair.substring(0, split);
+			String value = split < 0 ? "": pair.substring(split + 1);
+			ret.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns a parameter that must be present.
+	 *
+	 * @param params The parameters
+	 * @param name The name of the parameter
+	 * @return the value
+	 * @throws IllegalArgumentException if the parameter is missing or empty
+	 */
+	private static String required(Map<String, String> params, String name) {
+		String ret = params.get(name);
+		if(ret == null || ret.isEmpty())	throw new IllegalArgumentException("missing parameter " + name);
+		return ret;
+	}
+
+	/**
+	 * Returns the metric parameter, TIME by default.
+	 *
+	 * @param params The parameters
+	 * @return the Metric
+	 */
+	private static Metric metric(Map<String, String> params) {
+		return enumParam(params, "metric", Metric.class, Metric.TIME);
+	}
+
+	/**
+	 * Returns true if the address parameter says the locations are addresses.
+	 *
+	 * @param params The parameters
+	 * @return whether locations are addresses
+	 */
+	private static boolean address(Map<String, String> params) {
+		return Boolean.parseBoolean(params.get("address"));
+	}
+
+	/**
+	 * Returns an enum parameter, ignoring case.
+	 *
+	 * @param params The parameters
+	 * @param name The name of the parameter
+	 * @param type The enum class
+	 * @param fallback The value if the parameter is missing
+	 * @return the constant
+	 * @throws IllegalArgumentException if the value names no constant
+	 */
+	private static <E extends Enum<E>> E enumParam(Map<String, String> params, String name, Class<E> type, E fallback) {
+		String value = params.get(name);
+		if(value == null || value.isEmpty())	return fallback;
+		try {
+			return Enum.valueOf(type, value.toUpperCase());
+		}
+		catch(IllegalArgumentException e) {
+			throw new IllegalArgumentException("unknown " + name + " " + value);
+		}
+	}
+
+	/** Stops listening, lets running requests finish for up to a second, and stops the workers. */
+	@Override
+	public void close() {
+		server.stop(1);
+		workers.shutdown();
+	}
+
+	//=================================================================== Getters / Setters
+	public int getPort() 						{	return server.getAddress().getPort();		}
+	public long getServed() 					{	return served.sum();						}
+	public long getShed() 						{	return shed.sum();							}
+	public int getPending() 					{	return maxPending - pending.availablePermits();	}
+
+	//=================================================================== Command Line
+	public static void main(String[] args) throws IOException {
+		if(args.length < 1) {
+			System.err.println("usage: RouteServer <map file> [-port n] [-threads n] [-pending n] [-cache]");
+			System.exit(2);
+		}
+		int port = DEFAULT_PORT;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int maxPending = DEFAULT_MAX_PENDING;
+		boolean cache = false;
+		for(int i = 1; i < args.length; i++) {
+			switch(args[i]) {
+				case "-port":		port = Integer.parseInt(value(args, ++i));			break;
+				case "-threads":	threads = Integer.parseInt(value(args, ++i));		break;
+				case "-pending":	maxPending = Integer.parseInt(value(args, ++i));	break;
+				case "-cache":		cache = true;										break;
+				default:			throw new IllegalArgumentException("unknown option " + args[i]);
+			}
+		}
+
+		Graph map = new Graph(args[0]);
+		if(cache)
+			map.enableCache(RouteCache.DEFAULT_ROUTE_CAPACITY, RouteCache.DEFAULT_TREE_CAPACITY);
+		RouteServer server = new RouteServer(map, port, threads, maxPending);
+		Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+		System.out.println("serving " + args[0] + " on port " + server.getPort());
+	}
+
+	/**
+	 * Returns the value of a command line option.
+	 *
+	 * @param args The command line
+	 * @param i The index of the value, just after its option
+	 * @return the value
+	 */
+	private static String value(String[] args, int i) {
+		if(i == args.length)	throw new IllegalArgumentException("missing value for " + args[i - 1]);
+		return args[i];
+	}
+}
@@ -0,0 +1,133 @@
+package gps;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This RoutingEngine class runs RouteQuery objects against one loaded Graph on an ExecutorService.
+ * The Graph is never changed by a query and every query carries its own Metric, so any number of
+ * queries can run at once. The executor can use platform threads or, on Java 21 and newer, virtual
+ * threads. The RoutingEngine owns the executor and shuts it down when closed.
+ *
+ * Each thread keeps its own SearchContext, so a fixed pool of platform threads reuses its search
+ * arrays across queries while virtual threads allocate new ones for every query.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class RoutingEngine implements AutoCloseable {
+	//=================================================================== Properties
+	private final Graph map;
+	private final ExecutorService executor;
+
+	//=================================================================== Constructors
+	/**
+	 * Creates a RoutingEngine with one platform thread per available processor.
+	 *
+	 * @param map The Graph to route on
+	 */
+	public RoutingEngine(Graph map) {
+		this(map, platformThreads(Runtime.getRuntime().availableProcessors()));
+	}
+
+	//-- Workhorse Constructor
+	/**
+	 * Creates a RoutingEngine.
+	 *
+	 * @param map The Graph to route on
+	 * @param executor The executor queries are run on
+	 */
+	public RoutingEngine(Graph map, ExecutorService executor) {
+		this.map = map;
+		this.executor = executor;
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Creates an executor with a fixed number of platform threads.
+	 *
+	 * @param threads The number of threads
+	 * @return the executor
+	 */
+	public static ExecutorService platformThreads(int threads) {
+		return Executors.newFixedThreadPool(threads);
+	}
+
+	/**
+	 * Creates an executor that starts a new virtual thread for every query. Virtual threads are
+	 * looked up at runtime so the project still builds on older JDKs.
+	 *
+	 * @return the executor
+	 * @throws UnsupportedOperationException if the running JDK has no virtual threads
+	 */
+	public static ExecutorService virtualThreads() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			throw new UnsupportedOperationException("Virtual threads need Java 21 or newer", e);
+		}
+	}
+
+	/**
+	 * Finds the shortest path of one RouteQuery on the calling thread.
+	 *
+	 * @param query The route to find
+	 * @return the shortest path as a Path object or null if there is none
+	 */
+	public Path route(RouteQuery query) {
+		return map.findShortestPath(query);
+	}
+
+	/**
+	 * Finds the shortest path of one RouteQuery on the executor.
+	 *
+	 * @param query The route to find
+	 * @return a Future of the shortest path
+	 */
+	public Future<Path> submit(RouteQuery query) {
+		return executor.submit(() -> map.findShortestPath(query));
+	}
+
+	/**
+	 * Finds the shortest paths of many RouteQuery objects in parallel and waits for all of them.
+	 *
+	 * @param queries The routes to find
+	 * @return the shortest paths in the same order as the queries, null where there is no path
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public List<Path> routeAll(List<RouteQuery> queries) throws InterruptedException {
+		List<Callable<Path>> tasks = new ArrayList<>(queries.size());
+		for(RouteQuery query: queries)
+			tasks.add(() -> map.findShortestPath(query));
+
+		List<Path> ret = new ArrayList<>(queries.size());
+		for(Future<Path> result: executor.invokeAll(tasks)) {
+			try {
+				ret.add(result.get());
+			} catch (ExecutionException e) {
+				if(e.getCause() instanceof RuntimeException)
+					throw (RuntimeException) e.getCause();
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+		return ret;
+	}
+
+	/** Shuts down the executor once the queries already submitted have finished. */
+	@Override
+	public void close() {
+		executor.shutdown();
+	}
+
+	//=================================================================== Getters / Setters
+	public Graph getMap() 						{	return map;					}
+	public ExecutorService getExecutor() 		{	return executor;			}
+}
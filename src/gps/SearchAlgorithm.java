@@ -0,0 +1,24 @@
+package gps;
+
+/**
+ * This SearchAlgorithm enum lists the ways a RouteQuery can be answered. DIJKSTRA searches forward
+ * from the start Vertex until the end Vertex is settled. BIDIRECTIONAL searches forward from the
+ * start and backward from the end over incoming Edges at the same time and stops once the two
+ * searches can no longer find a cheaper meeting point, which settles far fewer vertices on long
+ * routes. ALT is A* guided by lower bounds from precomputed Landmarks distances; a Graph without
+ * prepared Landmarks answers it with DIJKSTRA. CH searches a ContractionHierarchy prepared for the
+ * query's Metric and likewise falls back to DIJKSTRA when there is none. OVERLAY searches the
+ * customized OverlayWeights of a GraphPartition, skipping over the inside of every cell but those of
+ * the start and end, and also falls back to DIJKSTRA when no overlay is prepared.
+ * 
+ * @author wyattcombs
+ *
+ */
+
+public enum SearchAlgorithm {
+	DIJKSTRA,
+	BIDIRECTIONAL,
+	ALT,
+	CH,
+	OVERLAY
+}
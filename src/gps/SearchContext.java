@@ -0,0 +1,203 @@
+package gps;
+
+import java.util.Arrays;
+
+/**
+ * This SearchContext class is the reusable workspace of the Dijkstra class. It holds the distance,
+ * parent and settled arrays and the priority queues, sized for the largest graph searched so far.
+ * Each thread has its own SearchContext so queries on different threads never share state.
+ *
+ * Instead of clearing the arrays before every query, reset() increases an epoch number. A distance
+ * or settled flag only counts when the stamp stored next to it equals the current epoch, so a reset
+ * costs O(1) and a steady stream of queries creates no garbage.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class SearchContext {
+	//=================================================================== Properties
+	private static final ThreadLocal<SearchContext> CONTEXTS = ThreadLocal.withInitial(SearchContext::new);
+	private int[] dist;
+	private int[] parent;
+	private int[] reached;
+	private int[] settled;
+	private int epoch;
+	private IndexedHeapPriorityQ indexedQ;
+	private LazyHeapPriorityQ lazyQ;
+	private BucketPriorityQ bucketQ;
+	private RadixHeapPriorityQ radixQ;
+	private SearchContext backward;
+
+	//=================================================================== Constructors
+	//-- Empty Constructor
+	/** Creates an empty SearchContext that grows on the first reset. */
+	public SearchContext() {
+		this(0);
+	}
+
+	//-- Workhorse Constructor
+	/**
+	 * Creates a SearchContext for graphs of up to a number of vertices.
+	 *
+	 * @param capacity The number of vertices to allocate for
+	 */
+	public SearchContext(int capacity) {
+		allocate(capacity);
+		lazyQ = new LazyHeapPriorityQ();
+		radixQ = new RadixHeapPriorityQ();
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Returns the SearchContext of the calling thread.
+	 *
+	 * @return the thread's SearchContext
+	 */
+	public static SearchContext current() {
+		return CONTEXTS.get();
+	}
+
+	/**
+	 * Returns a second SearchContext that belongs to this one, for the backward half of a
+	 * bidirectional search. It is created on first use and reset separately.
+	 *
+	 * @return the backward SearchContext
+	 */
+	public SearchContext getBackward() {
+		if(backward == null)
+			backward = new SearchContext();
+		return backward;
+	}
+
+	/**
+	 * Allocates new arrays and a new IndexedHeapPriorityQ.
+	 *
+	 * @param capacity The number of vertices to allocate for
+	 */
+	private void allocate(int capacity) {
+		dist = new int[capacity];
+		parent = new int[capacity];
+		reached = new int[capacity];
+		settled = new int[capacity];
+		indexedQ = new IndexedHeapPriorityQ(capacity);
+		epoch = 0;
+	}
+
+	/**
+	 * Prepares the SearchContext for a new query. The arrays are only reallocated when the graph
+	 * has more vertices than any graph before it.
+	 *
+	 * @param vertexCount The number of vertices in the graph being searched
+	 */
+	public void reset(int vertexCount) {
+		if(vertexCount > dist.length) {
+			allocate(Math.max(vertexCount, dist.length + (dist.length >> 1)));
+		}
+		if(++epoch == Integer.MAX_VALUE) {
+			Arrays.fill(reached, 0);
+			Arrays.fill(settled, 0);
+			epoch = 1;
+		}
+		indexedQ.clear();
+		lazyQ.clear();
+		radixQ.clear();
+		if(bucketQ != null)
+			bucketQ.clear();
+	}
+	
+	/**
+	 * Returns the lazy priority queue of a QueueType, cleared for a new search. AUTO must be
+	 * resolved first, and DECREASE_KEY has no lazy queue.
+	 *
+	 * @param queueType LAZY, BUCKET or RADIX
+	 * @param maxCost The largest edge cost of the graph, which a BucketPriorityQ must allow for
+	 * @return the priority queue
+	 */
+	public LazyPriorityQueueInterface getQueue(QueueType queueType, int maxCost) {
+		LazyPriorityQueueInterface ret;
+		switch(queueType) {
+		case BUCKET:
+			if(bucketQ == null || bucketQ.getMaxGap() < maxCost)
+				bucketQ = new BucketPriorityQ(maxCost);
+			ret = bucketQ;
+			break;
+		case RADIX:
+			ret = radixQ;
+			break;
+		case LAZY:
+			ret = lazyQ;
+			break;
+		default:
+			throw new IllegalArgumentException("no lazy queue for " + queueType);
+		}
+		ret.clear();
+		return ret;
+	}
+
+	/**
+	 * Returns true if the vertex has been given a distance during this query.
+	 *
+	 * @param vertex The id of the vertex
+	 * @return whether the vertex has a distance
+	 */
+	public boolean isReached(int vertex) {
+		return reached[vertex] == epoch;
+	}
+
+	/**
+	 * Returns the distance of the vertex, or Integer.MAX_VALUE if it has not been reached.
+	 *
+	 * @param vertex The id of the vertex
+	 * @return the best known distance
+	 */
+	public int getDist(int vertex) {
+		return reached[vertex] == epoch ? dist[vertex]: Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Sets the best known distance and parent of a vertex.
+	 *
+	 * @param vertex The id of the vertex
+	 * @param distance The distance from the start
+	 * @param parentVertex The id of the previous vertex or -1 for the start
+	 */
+	public void setDist(int vertex, int distance, int parentVertex) {
+		dist[vertex] = distance;
+		parent[vertex] = parentVertex;
+		reached[vertex] = epoch;
+	}
+
+	/**
+	 * Returns the parent of a reached vertex.
+	 *
+	 * @param vertex The id of the vertex
+	 * @return the id of the previous vertex or -1 for the start
+	 */
+	public int getParent(int vertex) {
+		return parent[vertex];
+	}
+
+	/**
+	 * Returns true if the vertex has been settled during this query.
+	 *
+	 * @param vertex The id of the vertex
+	 * @return whether the vertex is settled
+	 */
+	public boolean isSettled(int vertex) {
+		return settled[vertex] == epoch;
+	}
+
+	/**
+	 * Marks a vertex as settled for this query.
+	 *
+	 * @param vertex The id of the vertex
+	 */
+	public void settle(int vertex) {
+		settled[vertex] = epoch;
+	}
+
+	//=================================================================== Getters / Setters
+	public IndexedHeapPriorityQ getIndexedQ() 	{	return indexedQ;	}
+	public LazyHeapPriorityQ getLazyQ() 		{	return lazyQ;		}
+}
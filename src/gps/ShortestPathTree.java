@@ -0,0 +1,231 @@
+package gps;
+
+import java.util.Arrays;
+
+/**
+ * This ShortestPathTree class holds the shortest path from one source Vertex to every other Vertex
+ * of a CsrGraph in one Metric: the cost of reaching each vertex and the vertex before it on its
+ * path. Once built, the shortest path to any destination is read off the tree without searching.
+ *
+ * When some Edge costs change, repair gives the tree of the new CsrGraph without a full search,
+ * in the style of Ramalingam and Reps: only the vertices whose cost actually changes are searched
+ * again. A tree is never changed, so readers of the old tree are not disturbed by a repair.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class ShortestPathTree {
+	//=================================================================== Properties
+	public static final int UNREACHABLE = Integer.MAX_VALUE;
+	private final CsrGraph graph;
+	private final int source;
+	private final Metric metric;
+	private final int[] dist;
+	private final int[] parent;
+
+	//=================================================================== Constructors
+	//-- Workhorse Constructor
+	/**
+	 * Creates a ShortestPathTree from its distances and parents.
+	 *
+	 * @param graph The CsrGraph the tree spans
+	 * @param source The id of the root Vertex
+	 * @param metric The cost type of the tree
+	 * @param dist The cost of reaching each vertex, UNREACHABLE if it can not be reached
+	 * @param parent The vertex before each vertex on its path, or -1
+	 */
+	public ShortestPathTree(CsrGraph graph, int source, Metric metric, int[] dist, int[] parent) {
+		this.graph = graph;
+		this.source = source;
+		this.metric = metric;
+		this.dist = dist;
+		this.parent = parent;
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Builds the ShortestPathTree of a source with one full Dijkstra search.
+	 *
+	 * @param csr The CsrGraph to search
+	 * @param source The id of the root Vertex
+	 * @param metric The cost type to minimize
+	 * @return the ShortestPathTree
+	 */
+	public static ShortestPathTree build(CsrGraph csr, int source, Metric metric) {
+		int[] dist = new int[csr.vertexCount()];
+		int[] parent = new int[csr.vertexCount()];
+		Dijkstra.shortestPathTree(csr, source, metric, false, dist, parent);
+		return new ShortestPathTree(csr, source, metric, dist, parent);
+	}
+
+	/**
+	 * Returns the tree for a CsrGraph whose costs of this tree's Metric differ from this one's on
+	 * some edges. First every vertex whose tree path uses an Edge that became more expensive is
+	 * cut off together with its subtree, and each cut vertex takes the cheapest incoming Edge from
+	 * a vertex that was not cut. Then every Edge that became cheaper offers its target a new cost,
+	 * and Dijkstra spreads the changed costs from the vertices that were given new ones. Vertices
+	 * whose cost does not change are never visited.
+	 *
+	 * @param csr The CsrGraph with the new costs
+	 * @param changedEdges The indexes of the edges whose costs changed
+	 * @return the repaired ShortestPathTree
+	 */
+	public ShortestPathTree repair(CsrGraph csr, int[] changedEdges) {
+		csr.buildReverse();
+		int[] nextDist = dist.clone();
+		int[] nextParent = parent.clone();
+		LazyHeapPriorityQ pq = SearchContext.current().getLazyQ();
+		pq.clear();
+
+		int[] cut = new int[16];
+		int cutCount = 0;
+		for(int e: changedEdges) {
+			int u = csr.edgeSource(e);
+			int v = csr.getTarget(e);
+			if(nextParent[v] != u || nextDist[v] == UNREACHABLE || nextDist[u] == UNREACHABLE)	continue;
+			if((long) nextDist[u] + cheapestEdge(csr, u, v) <= nextDist[v])	continue;
+
+			int head = cutCount;
+			cut = add(cut, cutCount++, v);
+			nextDist[v] = UNREACHABLE;
+			while(head < cutCount) {
+				int x = cut[head++];
+				for(int i = csr.firstEdge(x); i < csr.endEdge(x); i++) {
+					int y = csr.getTarget(i);
+					if(nextParent[y] == x && nextDist[y] != UNREACHABLE) {
+						cut = add(cut, cutCount++, y);
+						nextDist[y] = UNREACHABLE;
+					}
+				}
+			}
+		}
+
+		for(int c = 0; c < cutCount; c++) {
+			int x = cut[c];
+			nextParent[x] = -1;
+			for(int i = csr.firstInEdge(x); i < csr.endInEdge(x); i++) {
+				int w = csr.getSource(i);
+				if(nextDist[w] == UNREACHABLE)	continue;
+				long cost = (long) nextDist[w] + csr.getCost(metric, csr.getInEdge(i));
+				if(cost < nextDist[x]) {
+					nextDist[x] = (int) cost;
+					nextParent[x] = w;
+				}
+			}
+			if(nextDist[x] != UNREACHABLE)
+				pq.add(x, nextDist[x]);
+		}
+
+		for(int e: changedEdges) {
+			int u = csr.edgeSource(e);
+			int v = csr.getTarget(e);
+			if(nextDist[u] == UNREACHABLE)	continue;
+			long cost = (long) nextDist[u] + csr.getCost(metric, e);
+			if(cost < nextDist[v]) {
+				nextDist[v] = (int) cost;
+				nextParent[v] = u;
+				pq.add(v, nextDist[v]);
+			}
+		}
+
+		while(!pq.isEmpty()) {
+			int currCost = pq.peekPriority();
+			int currVert = pq.remove();
+			if(currCost > nextDist[currVert])	continue;
+
+			for(int e = csr.firstEdge(currVert); e < csr.endEdge(currVert); e++) {
+				int nextVert = csr.getTarget(e);
+				long nextCost = (long) currCost + csr.getCost(metric, e);
+				if(nextCost < nextDist[nextVert]) {
+					nextDist[nextVert] = (int) nextCost;
+					nextParent[nextVert] = currVert;
+					pq.add(nextVert, nextDist[nextVert]);
+				}
+			}
+		}
+
+		return new ShortestPathTree(csr, source, metric, nextDist, nextParent);
+	}
+
+	/**
+	 * Returns this tree for a CsrGraph that only differs from this one in the costs of another
+	 * Metric. The arrays are shared.
+	 *
+	 * @param csr The new CsrGraph
+	 * @return the ShortestPathTree of csr
+	 */
+	public ShortestPathTree withGraph(CsrGraph csr) {
+		return new ShortestPathTree(csr, source, metric, dist, parent);
+	}
+
+	/**
+	 * Returns the cost of the cheapest Edge from one vertex to another.
+	 *
+	 * @param csr The CsrGraph
+	 * @param from The id of the source
+	 * @param to The id of the target
+	 * @return the cost, or Integer.MAX_VALUE if there is no such Edge
+	 */
+	private int cheapestEdge(CsrGraph csr, int from, int to) {
+		int ret = Integer.MAX_VALUE;
+		for(int e = csr.firstEdge(from); e < csr.endEdge(from); e++) {
+			if(csr.getTarget(e) == to)
+				ret = Math.min(ret, csr.getCost(metric, e));
+		}
+		return ret;
+	}
+
+	/**
+	 * Stores a value in an array, growing it if it is full.
+	 *
+	 * @param values The array
+	 * @param index Where to store the value
+	 * @param value The value
+	 * @return the array, or a larger copy of it
+	 */
+	private static int[] add(int[] values, int index, int value) {
+		if(index == values.length)
+			values = Arrays.copyOf(values, 2 * index);
+		values[index] = value;
+		return values;
+	}
+
+	/**
+	 * Returns the shortest path from the source to a vertex, or null if it can not be reached.
+	 *
+	 * @param end The id of the end Vertex
+	 * @return the Path
+	 */
+	public Path toPath(int end) {
+		if(dist[end] == UNREACHABLE)	return null;
+		int length = 0;
+		for(int v = end; v >= 0; v = parent[v])
+			length++;
+		int[] vertices = new int[length];
+		int[] legCosts = new int[length - 1];
+		for(int v = end; v >= 0; v = parent[v]) {
+			vertices[--length] = v;
+			if(length > 0)
+				legCosts[length - 1] = dist[v] - dist[parent[v]];
+		}
+
+		return new Path(graph, vertices, legCosts, dist[end], metric);
+	}
+
+	/**
+	 * Returns the cost of the shortest path from the source to a vertex.
+	 *
+	 * @param vertex The id of the vertex
+	 * @return the cost, or UNREACHABLE
+	 */
+	public int getDist(int vertex) {
+		return dist[vertex];
+	}
+
+	//=================================================================== Getters / Setters
+	public CsrGraph getGraph() 					{	return graph;				}
+	public int getSource() 						{	return source;				}
+	public Metric getMetric() 					{	return metric;				}
+	public int getParent(int vertex) 			{	return parent[vertex];		}
+}
@@ -0,0 +1,125 @@
+package gps;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * This SnapshotWriter class writes the little-endian binary files read back by GraphSnapshot and
+ * the preprocessing tables stored next to a map. Values are buffered and written to a temporary
+ * file while a CRC32 of everything written is kept. commit() appends the CRC32 and moves the file
+ * into place, so a reader never sees half a file; closing without committing deletes it.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class SnapshotWriter implements AutoCloseable {
+	//=================================================================== Properties
+	private static final int BUFFER_SIZE = 1 << 20;
+	private final File target;
+	private final File tmp;
+	private final FileChannel channel;
+	private final ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	private final CRC32 crc = new CRC32();
+	private boolean committed;
+
+	//=================================================================== Constructors
+	//-- Workhorse Constructor
+	/**
+	 * Opens a SnapshotWriter for a file.
+	 *
+	 * @param filename The name of the file to write
+	 * @throws IOException if the file can not be created
+	 */
+	public SnapshotWriter(String filename) throws IOException {
+		target = new File(filename).getAbsoluteFile();
+		tmp = new File(target.getPath() + ".tmp");
+		channel = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Writes an int.
+	 *
+	 * @param value The value to write
+	 * @throws IOException if the file can not be written
+	 */
+	public void putInt(int value) throws IOException {
+		if(buf.remaining() < 4)	flush();
+		buf.putInt(value);
+	}
+
+	/**
+	 * Writes a long.
+	 *
+	 * @param value The value to write
+	 * @throws IOException if the file can not be written
+	 */
+	public void putLong(long value) throws IOException {
+		if(buf.remaining() < 8)	flush();
+		buf.putLong(value);
+	}
+
+	/**
+	 * Writes bytes.
+	 *
+	 * @param bytes The bytes to write
+	 * @throws IOException if the file can not be written
+	 */
+	public void putBytes(byte[] bytes) throws IOException {
+		for(int i = 0; i < bytes.length; ) {
+			if(!buf.hasRemaining())	flush();
+			int count = Math.min(buf.remaining(), bytes.length - i);
+			buf.put(bytes, i, count);
+			i += count;
+		}
+	}
+
+	/**
+	 * Writes the CRC32 of everything written so far and moves the file into place.
+	 *
+	 * @throws IOException if the file can not be written or moved
+	 */
+	public void commit() throws IOException {
+		flush();
+		buf.putLong(crc.getValue());
+		buf.flip();
+		while(buf.hasRemaining())
+			channel.write(buf);
+		buf.clear();
+		channel.force(true);
+		channel.close();
+		Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		committed = true;
+	}
+
+	/**
+	 * Writes the buffered values to the file and adds them to the CRC32.
+	 *
+	 * @throws IOException if the file can not be written
+	 */
+	private void flush() throws IOException {
+		buf.flip();
+		crc.update(buf.array(), 0, buf.limit());
+		while(buf.hasRemaining())
+			channel.write(buf);
+		buf.clear();
+	}
+
+	/** Closes the file, deleting it if commit() was never called. */
+	@Override
+	public void close() throws IOException {
+		if(committed)	return;
+		channel.close();
+		Files.deleteIfExists(tmp.toPath());
+	}
+}
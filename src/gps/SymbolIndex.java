@@ -0,0 +1,273 @@
+package gps;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * This SymbolIndex class is part of the Graph data structure. It holds the symbols or addresses of
+ * the vertices in id order and an open addressing hash table from each name back to its id, so a
+ * name can be looked up in constant time instead of scanning every Vertex. Names can be any length.
+ * When a name appears more than once the lowest id is kept in the table.
+ *
+ * The names are either a String array or a pool of UTF-8 bytes read from a GraphSnapshot. Names in
+ * a pool are only decoded when asked for, and the hash table of a snapshot is used as it is, so a
+ * mapped SymbolIndex is ready without touching every name.
+ *
+ * A PrefixIndex for looking names up by their start is built the first time it is asked for.
+ *
+ * @author wyattcombs
+ *
+ */
+
+public class SymbolIndex {
+	//=================================================================== Properties
+	private static final int EMPTY = -1;
+	private final String[] names;
+	private final ByteBuffer pool;
+	private final IntBuffer poolOffsets;
+	private final IntBuffer slots;
+	private final int size;
+	private final int mask;
+	private volatile PrefixIndex prefixIndex;
+
+	//=================================================================== Constructors
+	/**
+	 * Creates a SymbolIndex over the names, where the id of a name is its position in the array.
+	 *
+	 * @param names The symbols or addresses of the vertices in id order
+	 */
+	public SymbolIndex(String[] names) {
+		this(names, null, null, IntBuffer.wrap(newSlots(names.length)), names.length);
+
+		for(int id = 0; id < names.length; id++) {
+			int slot = findSlot(names[id]);
+			if(slots.get(slot) == EMPTY)
+				slots.put(slot, id);
+		}
+	}
+
+	/**
+	 * Creates a SymbolIndex over a pool of UTF-8 names and a hash table built by an earlier
+	 * SymbolIndex with the same names.
+	 *
+	 * @param pool The UTF-8 bytes of all names one after another
+	 * @param poolOffsets The first byte of each name, with the pool length at the end
+	 * @param slots The hash table
+	 */
+	public SymbolIndex(ByteBuffer pool, IntBuffer poolOffsets, IntBuffer slots) {
+		this(null, pool, poolOffsets, slots, poolOffsets.limit() - 1);
+	}
+
+	//-- Workhorse Constructor
+	/**
+	 * Creates a SymbolIndex.
+	 *
+	 * @param names The names in id order, or null if they are in a pool
+	 * @param pool The UTF-8 bytes of the names, or null
+	 * @param poolOffsets The first byte of each name in the pool, or null
+	 * @param slots The hash table; its length must be a power of two
+	 * @param size The number of names
+	 */
+	private SymbolIndex(String[] names, ByteBuffer pool, IntBuffer poolOffsets, IntBuffer slots, int size) {
+		int capacity = slots.limit();
+		if(Integer.bitCount(capacity) != 1 || capacity < size)
+			throw new IllegalArgumentException("hash table size must be a power of two larger than the names");
+		this.names = names;
+		this.pool = pool;
+		this.poolOffsets = poolOffsets;
+		this.slots = slots;
+		this.size = size;
+		this.mask = capacity - 1;
+	}
+
+	//=================================================================== Methods
+	/**
+	 * Creates an empty hash table with room for a number of names.
+	 *
+	 * @param count The number of names
+	 * @return the empty slots
+	 */
+	private static int[] newSlots(int count) {
+		int capacity = 2;
+		while(capacity < 2 * count)
+			capacity <<= 1;
+		int[] ret = new int[capacity];
+		Arrays.fill(ret, EMPTY);
+		return ret;
+	}
+
+	/**
+	 * Returns the id of a name or -1 if the name is not in the SymbolIndex.
+	 *
+	 * @param name The symbol or address to look up
+	 * @return the id of the name
+	 */
+	public int indexOf(String name) {
+		if(name == null)	return EMPTY;
+		return slots.get(findSlot(name));
+	}
+
+	/**
+	 * Returns the id of a name stored as bytes in a buffer, or -1 if the name is not in the
+	 * SymbolIndex. ASCII names are hashed and compared straight from the bytes so no String is
+	 * created; any other name is decoded as UTF-8 first.
+	 *
+	 * @param bytes The buffer holding the name
+	 * @param start The index of the first byte of the name
+	 * @param end The index one past the last byte of the name
+	 * @return the id of the name
+	 */
+	public int indexOf(ByteBuffer bytes, int start, int end) {
+		int h = 0;
+		for(int i = start; i < end; i++) {
+			byte b = bytes.get(i);
+			if(b < 0)
+				return indexOf(decode(bytes, start, end));
+			h = 31 * h + b;
+		}
+
+		int slot = (h ^ (h >>> 16)) & mask;
+		int id;
+		while((id = slots.get(slot)) != EMPTY) {
+			if(matches(id, bytes, start, end))
+				return id;
+			slot = (slot + 1) & mask;
+		}
+		return EMPTY;
+	}
+
+	/**
+	 * Compares the name with an id to ASCII bytes in a buffer.
+	 *
+	 * @param id The id of the name
+	 * @param bytes The buffer holding the bytes
+	 * @param start The index of the first byte
+	 * @param end The index one past the last byte
+	 * @return whether they are the same
+	 */
+	private boolean matches(int id, ByteBuffer bytes, int start, int end) {
+		if(names == null) {
+			int from = poolOffsets.get(id);
+			if(poolOffsets.get(id + 1) - from != end - start)	return false;
+			for(int i = start; i < end; i++) {
+				if(pool.get(from + i - start) != bytes.get(i))
+					return false;
+			}
+			return true;
+		}
+
+		String name = names[id];
+		if(name.length() != end - start)	return false;
+		for(int i = 0; i < name.length(); i++) {
+			if(name.charAt(i) != bytes.get(start + i))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the slot holding the name or the empty slot where it would be placed.
+	 *
+	 * @param name The name to look for
+	 * @return the slot index
+	 */
+	private int findSlot(String name) {
+		ByteBuffer utf8 = names == null ? ByteBuffer.wrap(name.getBytes(StandardCharsets.UTF_8)): null;
+		int h = name.hashCode();
+		int slot = (h ^ (h >>> 16)) & mask;
+		int id;
+		while((id = slots.get(slot)) != EMPTY) {
+			if(names != null ? names[id].equals(name): matches(id, utf8, 0, utf8.limit()))
+				break;
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Decodes a range of bytes as UTF-8.
+	 *
+	 * @param bytes The buffer holding the bytes
+	 * @param start The index of the first byte
+	 * @param end The index one past the last byte
+	 * @return the String
+	 */
+	private static String decode(ByteBuffer bytes, int start, int end) {
+		byte[] ret = new byte[end - start];
+		for(int i = start; i < end; i++)
+			ret[i - start] = bytes.get(i);
+		return new String(ret, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the number of names in the SymbolIndex.
+	 *
+	 * @return the number of names
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the name with the given id.
+	 *
+	 * @param id The id of the name
+	 * @return the symbol or address
+	 */
+	public String get(int id) {
+		if(names != null)	return names[id];
+		if(id < 0 || id >= size)	throw new ArrayIndexOutOfBoundsException(id);
+		return decode(pool, poolOffsets.get(id), poolOffsets.get(id + 1));
+	}
+
+	/**
+	 * Returns a copy of all names in id order.
+	 *
+	 * @return an array of the names
+	 */
+	public String[] toArray() {
+		if(names != null)	return names.clone();
+		String[] ret = new String[size];
+		for(int i = 0; i < size; i++)
+			ret[i] = get(i);
+		return ret;
+	}
+
+	/**
+	 * Returns the PrefixIndex of the names, building it the first time.
+	 *
+	 * @return the PrefixIndex
+	 */
+	public PrefixIndex getPrefixIndex() {
+		PrefixIndex ret = prefixIndex;
+		if(ret == null) {
+			synchronized(this) {
+				ret = prefixIndex;
+				if(ret == null)
+					prefixIndex = ret = new PrefixIndex(this);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the number of slots in the hash table.
+	 *
+	 * @return the hash table size
+	 */
+	public int slotCount() {
+		return mask + 1;
+	}
+
+	/**
+	 * Returns the id stored in a slot of the hash table, or -1 if the slot is empty.
+	 *
+	 * @param slot The slot index
+	 * @return the id in the slot
+	 */
+	public int getSlot(int slot) {
+		return slots.get(slot);
+	}
+}
@@ -1,4 +1,6 @@
-import java.io.FileNotFoundException;
+package gps;
+
+import java.io.IOException;
 
 /**
  * This Tester Class is for testing the Graph data structure and GraphFrame GUI. It is set up to
@@ -8,9 +10,9 @@ import java.io.FileNotFoundException;
  *
  */
 
-public class Tester {	public static void main(String[] args) throws FileNotFoundException {	new Tester();	}
+public class Tester {	public static void main(String[] args) throws IOException {	new Tester();	}
 
-	public Tester() throws FileNotFoundException {
+	public Tester() throws IOException {
 		Graph gTest = new Graph("MapInformation-1.txt");
 		GraphFrame test = new GraphFrame(gTest);
 		System.out.println(test.map);
@@ -1,3 +1,5 @@
+package gps;
+
 /**
  * This Vertex class is meant to be a property of a Graph object. A Vertex is a part of the
  * Graph data structure which has the symbol and address of each location. Each Vertex also has 
@@ -13,7 +15,8 @@ public class Vertex {
 	private String address;
 	private Vertex nextVert;
 	private Edge edges;
-	public static int vertices = 0;
+	private Edge lastEdge;
+	private int id;
 	
 	//=================================================================== Constructors
 	//-- Empty Constructor
@@ -60,7 +63,7 @@ public class Vertex {
 		setAddress("");
 		setNextVert(null);
 		setEdges(null);
-		vertices = 0;
+		setId(-1);
 	}
 	
 	/**
@@ -76,33 +79,69 @@ public class Vertex {
 		}
 	}
 	
+	/**
+	 * Adds a new Edge to the end of the Edge chain. The last Edge is remembered so adding
+	 * does not walk the whole chain every time.
+	 * 
+	 * @param edge The Edge to be added
+	 */
+	public void addEdge(Edge edge) {
+		if(edges == null) {
+			edges = edge;
+		} else {
+			if(lastEdge == null)
+				lastEdge = edges;
+			while(lastEdge.getNextEdge() != null)
+				lastEdge = lastEdge.getNextEdge();
+			lastEdge.setNextEdge(edge);
+		}
+		lastEdge = edge;
+	}
+	
 	/**
 	 * Returns the symbol or address of the Vertex.
 	 * 
+	 * @param useAddress True for the address, false for the symbol
 	 * @return the Vertex symbol or address
 	 */
-	public String getReturnAddress() {
-		return Graph.returnAddress ? symbol : address;
+	public String getReturnAddress(boolean useAddress) {
+		return useAddress ? address : symbol;
 	}
 	
-	@Override
-	public String toString() {
-		String ret = getReturnAddress() + " - Edges: ";
+	/**
+	 * Lists the Vertex with its Edges.
+	 * 
+	 * @param useAddress True to print addresses, false to print symbols
+	 * @param metric The cost type printed for each Edge
+	 * @return the Vertex as a String
+	 */
+	public String toString(boolean useAddress, Metric metric) {
+		String ret = getReturnAddress(useAddress) + " - Edges: ";
 		Edge tmp = edges;
 		while(tmp != null) {
-			ret += tmp.toString() + ", ";
+			ret += tmp.toString(useAddress, metric) + ", ";
 			tmp = tmp.getNextEdge();
 		}
 		
 		return  ret.substring(0, ret.length()-2);
 	}
+	
+	@Override
+	public String toString() {
+		return toString(true, Metric.TIME);
+	}
 
 	@Override
 	public boolean equals(Object obj) {
 		if(!(obj instanceof Vertex))	return false;
 		Vertex v = (Vertex) obj;
 		
-		return toString().equals(v.toString());
+		return symbol.equals(v.symbol) && address.equals(v.address);
+	}
+	
+	@Override
+	public int hashCode() {
+		return symbol.hashCode();
 	}
 
 	//=================================================================== Getters / Setters
@@ -110,9 +149,11 @@ public class Vertex {
 	public String getAddress() 					{	return address;				}
 	public Vertex getNextVert() 				{	return nextVert;			}
 	public Edge getEdges() 						{	return edges;				}
+	public int getId()							{	return id;					}
 
 	public void setSymbol(String symbol) 		{	this.symbol = symbol;		}
 	public void setAddress(String address) 		{	this.address = address;		}
 	public void setNextVert(Vertex nextVert)	{	this.nextVert = nextVert;	}
-	public void setEdges(Edge edges) 			{	this.edges = edges;			}
+	public void setEdges(Edge edges) 			{	this.edges = edges;	lastEdge = null;	}
+	public void setId(int id)					{	this.id = id;				}
 }